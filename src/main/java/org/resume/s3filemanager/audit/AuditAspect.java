@@ -7,6 +7,7 @@ import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.reflect.MethodSignature;
 import org.resume.s3filemanager.constant.SecurityConstants;
+import org.resume.s3filemanager.dto.FileDownloadResponse;
 import org.resume.s3filemanager.enums.CommonResponseStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.web.multipart.MultipartFile;
@@ -59,7 +60,7 @@ public class AuditAspect {
 
     /**
      * Извлекает идентификатор ресурса из аргументов метода.
-     * Для FILE операций: оригинальное имя файла или String параметр.
+     * Для FILE операций: оригинальное имя файла, уникальное имя скачиваемого файла или String параметр.
      * Для USER операций: username из AuthRequest или String параметр.
      */
     private String extractResourceId(Object[] args) {
@@ -71,6 +72,10 @@ public class AuditAspect {
                 }
             }
 
+            if (arg instanceof FileDownloadResponse download) {
+                return download.getUniqueName();
+            }
+
             if (arg instanceof String str && !str.isBlank()) {
                 return str;
             }
@@ -22,7 +22,7 @@ public class AuditEventListener {
 
     private final AuditLogRepository auditLogRepository;
 
-    @Async
+    @Async("asyncExecutor")
     @EventListener
     public void onAuditEvent(AuditEvent event) {
         try {
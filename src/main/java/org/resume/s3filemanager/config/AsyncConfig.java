@@ -2,6 +2,8 @@ package org.resume.s3filemanager.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
@@ -36,4 +38,20 @@ public class AsyncConfig {
         return executor;
     }
 
+    /**
+     * Создаёт Executor для параллельных операций с объектным хранилищем.
+     * <p>
+     * Задачи выполняются на виртуальных потоках: они почти всё время ждут сетевой ввод-вывод,
+     * а ограничение параллелизма задаётся на уровне конкретной операции.
+     *
+     * @return executor на виртуальных потоках с передачей MDC
+     */
+    @Bean("storageExecutor")
+    public AsyncTaskExecutor storageExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("storage-");
+        executor.setVirtualThreads(true);
+        executor.setTaskDecorator(new MdcTaskDecorator());
+        return executor;
+    }
+
 }
@@ -75,12 +75,15 @@ public class SecurityConfig {
      * <ul>
      *   <li>/api/auth/* - регистрация и вход</li>
      *   <li>/api/home - список файлов без аутентификации</li>
+     *   <li>GET /api/files/{uniqueName}, /api/files/presigned/{uniqueName} - скачивание</li>
+     *   <li>POST /api/files/bulk-download - скачивание нескольких файлов архивом</li>
      * </ul>
      * Защищенные пути:
      * <ul>
      *   <li>/api/files/* - требуют аутентификации</li>
      *   <li>/api/files/multiple-upload - только ADMIN</li>
      *   <li>/api/admin/* - только ADMIN</li>
+     *   <li>/actuator/* - только ADMIN</li>
      * </ul>
      *
      * @param http конфигуратор HTTP безопасности
@@ -97,11 +100,14 @@ public class SecurityConfig {
                         .requestMatchers("/api/auth/login", "/api/auth/register").permitAll()
                         .requestMatchers("/api/home").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/files/{uniqueName}").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/files/presigned/{uniqueName}").permitAll()
+                        .requestMatchers(HttpMethod.POST, "/api/files/bulk-download").permitAll()
                         .requestMatchers(HttpMethod.POST, "/api/files/upload").authenticated()
                         .requestMatchers(HttpMethod.DELETE, "/api/files/{uniqueName}").authenticated()
                         .requestMatchers(HttpMethod.POST, "/api/files/multiple-upload").hasAuthority(UserRole.ADMIN.getAuthority())
                         .requestMatchers(HttpMethod.GET, "/api/admin/audit-logs").hasAuthority(UserRole.ADMIN.getAuthority())
                         .requestMatchers("/api/admin/**").hasAuthority(UserRole.ADMIN.getAuthority())
+                        .requestMatchers("/actuator/**").hasAuthority(UserRole.ADMIN.getAuthority())
                         .requestMatchers("/api/auth/logout").authenticated()
                         .anyRequest().authenticated())
                 .addFilterBefore(jwtTokenFilter, UsernamePasswordAuthenticationFilter.class)
@@ -0,0 +1,75 @@
+package org.resume.s3filemanager.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import software.amazon.awssdk.core.metrics.CoreMetric;
+import software.amazon.awssdk.http.HttpMetric;
+import software.amazon.awssdk.metrics.MetricCollection;
+import software.amazon.awssdk.metrics.MetricPublisher;
+import software.amazon.awssdk.metrics.SdkMetric;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Публикует метрики пула HTTP соединений S3 клиента в Micrometer.
+ * <p>
+ * SDK снимает состояние пула при каждой попытке запроса; гауги показывают
+ * последнее снятое значение:
+ * <ul>
+ *   <li>{@code storage.http.pool.leased} — соединения, занятые запросами</li>
+ *   <li>{@code storage.http.pool.pending} — запросы, ожидающие свободного соединения</li>
+ *   <li>{@code storage.http.pool.available} — свободные соединения в пуле</li>
+ *   <li>{@code storage.http.pool.max} — размер пула</li>
+ * </ul>
+ * Счетчик {@code storage.http.retries} — число повторных попыток запросов.
+ * Все метрики помечены тегом {@code client} (sync, async).
+ * Транспорт без пула (URL_CONNECTION) метрики пула не сообщает.
+ */
+class StorageHttpMetricPublisher implements MetricPublisher {
+
+    private static final String API_CALL_ATTEMPT = "ApiCallAttempt";
+    private static final String HTTP_CLIENT = "HttpClient";
+
+    private final AtomicInteger leased = new AtomicInteger();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicInteger available = new AtomicInteger();
+    private final AtomicInteger max = new AtomicInteger();
+    private final Counter retries;
+
+    StorageHttpMetricPublisher(MeterRegistry meterRegistry, String client) {
+        Tags tags = Tags.of("client", client);
+        meterRegistry.gauge("storage.http.pool.leased", tags, leased);
+        meterRegistry.gauge("storage.http.pool.pending", tags, pending);
+        meterRegistry.gauge("storage.http.pool.available", tags, available);
+        meterRegistry.gauge("storage.http.pool.max", tags, max);
+        this.retries = meterRegistry.counter("storage.http.retries", tags);
+    }
+
+    @Override
+    public void publish(MetricCollection metricCollection) {
+        metricCollection.metricValues(CoreMetric.RETRY_COUNT).forEach(count -> retries.increment(count));
+
+        metricCollection.childrenWithName(API_CALL_ATTEMPT)
+                .flatMap(attempt -> attempt.childrenWithName(HTTP_CLIENT))
+                .forEach(http -> {
+                    update(leased, http, HttpMetric.LEASED_CONCURRENCY);
+                    update(pending, http, HttpMetric.PENDING_CONCURRENCY_ACQUIRES);
+                    update(available, http, HttpMetric.AVAILABLE_CONCURRENCY);
+                    update(max, http, HttpMetric.MAX_CONCURRENCY);
+                });
+    }
+
+    @Override
+    public void close() {
+        // метрики принадлежат MeterRegistry
+    }
+
+    private static void update(AtomicInteger gauge, MetricCollection http, SdkMetric<Integer> metric) {
+        List<Integer> values = http.metricValues(metric);
+        if (!values.isEmpty()) {
+            gauge.set(values.getLast());
+        }
+    }
+}
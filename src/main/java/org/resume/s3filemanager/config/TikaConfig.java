@@ -1,6 +1,7 @@
 package org.resume.s3filemanager.config;
 
 import org.apache.tika.Tika;
+import org.apache.tika.mime.MimeTypes;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -9,6 +10,11 @@ import org.springframework.context.annotation.Configuration;
  * <p>
  * Предоставляет bean {@link Tika} для анализа файловых сигнатур
  * и защиты от подмены типа файла.
+ * <p>
+ * Используется только встроенный реестр {@link MimeTypes} (магические байты и имя файла)
+ * без поиска дополнительных детекторов через ServiceLoader: двоичные форматы
+ * уже распознаны {@link org.resume.s3filemanager.validation.FileSignatureMatcher},
+ * до Tika доходят в основном текстовые файлы.
  *
  * @see Tika
  */
@@ -17,6 +23,6 @@ public class TikaConfig {
 
     @Bean
     public Tika tika() {
-        return new Tika();
+        return new Tika(MimeTypes.getDefaultMimeTypes());
     }
 }
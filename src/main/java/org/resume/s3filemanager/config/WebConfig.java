@@ -4,19 +4,22 @@ import lombok.RequiredArgsConstructor;
 import org.resume.s3filemanager.properties.PageableProperties;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
 import org.springframework.data.web.config.EnableSpringDataWebSupport;
 import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 import java.util.List;
 
 /**
- * Конфигурация Spring MVC для пагинации.
+ * Конфигурация Spring MVC для пагинации и асинхронных ответов.
  * <p>
  * Настраивает {@link PageableHandlerMethodArgumentResolver} с параметрами
  * пагинации по умолчанию из конфигурационных properties.
+ * Потоковые ответы ({@code StreamingResponseBody}) выполняются на executor'е хранилища.
  *
  * @see PageableProperties
  */
@@ -27,6 +30,7 @@ import java.util.List;
 public class WebConfig implements WebMvcConfigurer {
 
     private final PageableProperties pageableProperties;
+    private final AsyncTaskExecutor storageExecutor;
 
     @Override
     public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
@@ -38,4 +42,9 @@ public class WebConfig implements WebMvcConfigurer {
 
         resolvers.add(resolver);
     }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(storageExecutor);
+    }
 }
@@ -1,14 +1,26 @@
 package org.resume.s3filemanager.config;
 
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.resume.s3filemanager.properties.YandexStorageProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.*;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.awscore.retry.AwsRetryStrategy;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.retries.api.BackoffStrategy;
+import software.amazon.awssdk.retries.api.RetryStrategy;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 
 import java.net.URI;
 
@@ -16,30 +28,113 @@ import java.net.URI;
  * Конфигурация S3 клиента для Yandex Object Storage.
  * <p>
  * Создает {@link S3Client} с настройками подключения к Yandex Cloud
- * через AWS SDK v2 с использованием S3-совместимого API.
+ * через AWS SDK v2 с использованием S3-совместимого API, а также {@link S3AsyncClient}
+ * для неблокирующего скачивания. Пул HTTP соединений, таймауты и стратегия повторов
+ * задаются в {@code yandex.storage.http} и {@code yandex.storage.retry}.
+ * При включенном режиме presigned URL дополнительно создается {@link S3Presigner}.
  *
  * @see YandexStorageProperties
  * @see S3Client
  */
 @Configuration
 @RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "app.storage", name = "backend", havingValue = "yandex", matchIfMissing = true)
 @EnableConfigurationProperties({YandexStorageProperties.class})
 public class YandexStorageConfig {
 
     private final YandexStorageProperties properties;
+    private final MeterRegistry meterRegistry;
 
     @Bean
     public S3Client yandexS3Client() {
-        AwsBasicCredentials credentials = AwsBasicCredentials.create(
-                properties.getAccessKey(),
-                properties.getSecretKey()
-        );
-
         return S3Client.builder()
-                .credentialsProvider(StaticCredentialsProvider.create(credentials))
+                .credentialsProvider(credentialsProvider())
+                .endpointOverride(URI.create(properties.getEndpoint()))
+                .region(Region.of(properties.getRegion()))
+                .httpClientBuilder(httpClientBuilder())
+                .overrideConfiguration(overrideConfiguration("sync"))
+                .build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public S3AsyncClient yandexS3AsyncClient() {
+        YandexStorageProperties.Http http = properties.getHttp();
+
+        return S3AsyncClient.builder()
+                .credentialsProvider(credentialsProvider())
                 .endpointOverride(URI.create(properties.getEndpoint()))
                 .region(Region.of(properties.getRegion()))
+                .httpClientBuilder(NettyNioAsyncHttpClient.builder()
+                        .maxConcurrency(http.asyncMaxConnections())
+                        .maxPendingConnectionAcquires(http.maxPendingAcquires())
+                        .connectionTimeout(http.connectionTimeout())
+                        .readTimeout(http.socketTimeout())
+                        .writeTimeout(http.socketTimeout())
+                        .connectionAcquisitionTimeout(http.acquireTimeout())
+                        .connectionMaxIdleTime(http.connectionMaxIdleTime())
+                        .connectionTimeToLive(http.connectionTimeToLive())
+                        .useIdleConnectionReaper(http.reapIdleConnections())
+                        .tcpKeepAlive(http.tcpKeepAlive()))
+                .overrideConfiguration(overrideConfiguration("async"))
                 .build();
     }
 
+    @Bean
+    @ConditionalOnProperty(prefix = "app.presigned", name = "enabled", havingValue = "true")
+    public S3Presigner yandexS3Presigner() {
+        return S3Presigner.builder()
+                .credentialsProvider(credentialsProvider())
+                .endpointOverride(URI.create(properties.getEndpoint()))
+                .region(Region.of(properties.getRegion()))
+                .build();
+    }
+
+    private SdkHttpClient.Builder<?> httpClientBuilder() {
+        YandexStorageProperties.Http http = properties.getHttp();
+
+        return switch (http.clientType()) {
+            case APACHE -> ApacheHttpClient.builder()
+                    .maxConnections(http.maxConnections())
+                    .connectionTimeout(http.connectionTimeout())
+                    .socketTimeout(http.socketTimeout())
+                    .connectionAcquisitionTimeout(http.acquireTimeout())
+                    .connectionMaxIdleTime(http.connectionMaxIdleTime())
+                    .connectionTimeToLive(http.connectionTimeToLive())
+                    .useIdleConnectionReaper(http.reapIdleConnections())
+                    .tcpKeepAlive(http.tcpKeepAlive());
+            case URL_CONNECTION -> UrlConnectionHttpClient.builder()
+                    .connectionTimeout(http.connectionTimeout())
+                    .socketTimeout(http.socketTimeout());
+        };
+    }
+
+    /**
+     * Стратегия повторов и публикация метрик пула. Для обеих стратегий задержка
+     * между попытками экспоненциальная с full jitter.
+     */
+    private ClientOverrideConfiguration overrideConfiguration(String client) {
+        YandexStorageProperties.Retry retry = properties.getRetry();
+
+        RetryStrategy strategy = switch (retry.mode()) {
+            case STANDARD -> AwsRetryStrategy.standardRetryStrategy();
+            case ADAPTIVE -> AwsRetryStrategy.adaptiveRetryStrategy();
+        };
+
+        return ClientOverrideConfiguration.builder()
+                .retryStrategy(strategy.toBuilder()
+                        .maxAttempts(retry.maxAttempts())
+                        .backoffStrategy(BackoffStrategy.exponentialDelay(retry.baseDelay(), retry.maxBackoff()))
+                        .build())
+                .addMetricPublisher(new StorageHttpMetricPublisher(meterRegistry, client))
+                .build();
+    }
+
+    private StaticCredentialsProvider credentialsProvider() {
+        AwsBasicCredentials credentials = AwsBasicCredentials.create(
+                properties.getAccessKey(),
+                properties.getSecretKey()
+        );
+        return StaticCredentialsProvider.create(credentials);
+    }
+
 }
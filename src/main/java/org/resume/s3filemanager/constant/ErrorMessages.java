@@ -23,6 +23,13 @@ public class ErrorMessages {
     public static final String ACCESS_DENIED_DELETE_FILE = "Cannot delete other user's file";
     public static final String FILES_UPLOAD_ERROR = "Failed to upload all added files";
     public static final String MAX_FILES_EXCEEDED = "Maximum %d files allowed per upload";
+    public static final String UPLOADED_SIZE_MISMATCH = "Uploaded object size %d does not match declared size %d";
+    public static final String UPLOAD_OFFSET_MISMATCH = "Chunk offset %d does not match upload offset %d";
+    public static final String UPLOAD_SESSION_BUSY = "Another chunk of this upload is in progress";
+    public static final String UPLOAD_CHUNK_SIZE_INVALID = "Chunk size must be %d bytes";
+    public static final String UPLOAD_INCOMPLETE = "Upload is incomplete: %d of %d bytes received";
+    public static final String RECONCILIATION_IN_PROGRESS = "Storage reconciliation is already running";
+    public static final String STORAGE_UNAVAILABLE = "Storage is temporarily unavailable, retry later";
 
     // Database
     public static final String DATA_INTEGRITY_UNIQUE = "Record with this data already exists";
@@ -20,6 +20,10 @@ public class ValidationMessages {
     public static final String FILE_TYPE_NOT_ALLOWED = "File type not allowed: %s (%s)";
     public static final String FILE_SIGNATURE_MISMATCH = "File does not match declared type: %s";
     public static final String FILE_PROCESSING_ERROR = "Error processing file validation";
+    public static final String INVALID_HASH = "Hash must be a hexadecimal string of 32 to 64 characters";
+    public static final String HASH_BATCH_TOO_LARGE = "Too many hashes in one request";
+    public static final String DOWNLOAD_BATCH_TOO_LARGE = "Too many files in one archive";
+    public static final String DELETE_BATCH_TOO_LARGE = "Too many files in one delete request";
 
     // Generic validation
     public static final String VALIDATION_FAILED = "Validation failed";
@@ -5,12 +5,14 @@ import org.resume.s3filemanager.audit.AuditOperation;
 import org.resume.s3filemanager.dto.AuditLogFilterRequest;
 import org.resume.s3filemanager.dto.AuditLogResponse;
 import org.resume.s3filemanager.dto.CommonResponse;
+import org.resume.s3filemanager.dto.ReconciliationReport;
 import org.resume.s3filemanager.dto.UserDetailsResponse;
 import org.resume.s3filemanager.enums.CommonResponseStatus;
 import org.resume.s3filemanager.enums.FileUploadStatus;
 import org.resume.s3filemanager.enums.UserStatus;
 import org.resume.s3filemanager.service.admin.AdminService;
 import org.resume.s3filemanager.service.auth.UserService;
+import org.resume.s3filemanager.service.reconciliation.StorageReconciliationService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
@@ -23,7 +25,7 @@ import java.time.Instant;
  * REST контроллер для административных операций.
  * <p>
  * Предоставляет API для просмотра журнала аудита с поддержкой
- * фильтрации и пагинации. Доступен только администраторам.
+ * фильтрации и пагинации, управления пользователями и сверки хранилища. Доступен только администраторам.
  *
  * @see AdminService
  */
@@ -33,6 +35,7 @@ import java.time.Instant;
 public class AdminController {
 
     private final AdminService adminService;
+    private final StorageReconciliationService storageReconciliationService;
 
     /**
      * Возвращает журнал аудита с фильтрацией и пагинацией.
@@ -103,6 +106,20 @@ public class AdminController {
         return CommonResponse.success(result);
     }
 
+    /**
+     * Запускает сверку объектов S3 с метаданными файлов.
+     * <p>
+     * По умолчанию выполняется в режиме dry run: расхождения только находятся.
+     *
+     * @param dryRun не удалять найденные объекты и записи
+     * @return итог сверки
+     */
+    @PostMapping("/storage/reconciliation")
+    public CommonResponse<ReconciliationReport> reconcileStorage(
+            @RequestParam(defaultValue = "true") boolean dryRun) {
+        return CommonResponse.success(storageReconciliationService.reconcile(dryRun));
+    }
+
     /**
      * Удаляет пользователя из системы.
      * <p>
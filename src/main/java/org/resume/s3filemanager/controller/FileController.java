@@ -1,25 +1,41 @@
 package org.resume.s3filemanager.controller;
 
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.resume.s3filemanager.constant.SuccessMessages;
+import org.resume.s3filemanager.dto.BulkDeleteRequest;
+import org.resume.s3filemanager.dto.BulkDeleteResponse;
+import org.resume.s3filemanager.dto.BulkDownloadRequest;
 import org.resume.s3filemanager.dto.CommonResponse;
 import org.resume.s3filemanager.dto.FileDownloadResponse;
+import org.resume.s3filemanager.dto.HashCheckRequest;
+import org.resume.s3filemanager.dto.HashCheckResponse;
 import org.resume.s3filemanager.dto.MultipleUploadResponse;
 import org.resume.s3filemanager.service.file.FileFacadeService;
+import org.resume.s3filemanager.service.file.FileStreamingService;
+import org.resume.s3filemanager.service.file.StorageResponseBody;
+import org.resume.s3filemanager.service.file.ZipStreamingService;
 import org.resume.s3filemanager.validation.ValidFile;
-import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutor;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 /**
  * REST контроллер для управления файлами.
  * <p>
- * Предоставляет API для загрузки, скачивания и удаления файлов.
+ * Предоставляет API для загрузки, скачивания (в том числе нескольких файлов архивом) и удаления файлов.
  * Поддерживает одиночную загрузку (для всех пользователей) и
  * множественную загрузку (только для администраторов).
  *
@@ -32,22 +48,28 @@ import java.util.List;
 public class FileController {
 
     private final FileFacadeService fileFacadeService;
+    private final FileStreamingService fileStreamingService;
+    private final ZipStreamingService zipStreamingService;
+    private final AsyncTaskExecutor storageExecutor;
 
     /**
      * Загружает один файл (аутентифицированные пользователи).
      * <p>
      * Обычные пользователи могут загрузить только один файл (проверка статуса).
      * Администраторы могут загружать неограниченно.
+     * Загрузка в хранилище выполняется в фоновом потоке, поток запроса освобождается.
      *
      * @param file загружаемый файл с валидацией типа
      * @return сообщение об успешной загрузке
      */
     @PostMapping("/upload")
     @ResponseStatus(HttpStatus.CREATED)
-    public CommonResponse<String> upload (@RequestParam("file")
+    public CompletableFuture<CommonResponse<String>> upload (@RequestParam("file")
             @ValidFile MultipartFile file) {
-        fileFacadeService.uploadFile(file);
-        return CommonResponse.success(SuccessMessages.FILE_UPLOAD_SUCCESS);
+        Executor executor = new DelegatingSecurityContextExecutor(storageExecutor);
+        return CompletableFuture
+                .runAsync(() -> fileFacadeService.uploadFile(file), executor)
+                .thenApply(ignored -> CommonResponse.success(SuccessMessages.FILE_UPLOAD_SUCCESS));
     }
 
     /**
@@ -67,26 +89,87 @@ public class FileController {
         return CommonResponse.success(results);
     }
 
+    /**
+     * Проверяет, какие файлы уже есть на сервере, по хешам содержимого.
+     * <p>
+     * Клиент передает хеши и размеры (до {@value HashCheckRequest#MAX_BATCH_SIZE} за запрос)
+     * и загружает только те файлы, которых у него на сервере еще нет.
+     *
+     * @param request хеши и размеры файлов
+     * @return для каждого хеша — есть ли такой файл и его уникальное имя
+     */
+    @PostMapping("/hash-check")
+    public CommonResponse<HashCheckResponse> checkHashes(@Valid @RequestBody HashCheckRequest request) {
+        return CommonResponse.success(fileFacadeService.checkExistingHashes(request));
+    }
+
     /**
      * Скачивает файл по уникальному имени.
      * <p>
      * Возвращает файл с оригинальным именем в заголовке Content-Disposition.
+     * Содержимое передается из S3 клиенту потоком, без буферизации в памяти.
+     * Поддерживает заголовки Range и If-Range (ответ 206, в том числе multipart/byteranges).
+     * Ответ 304 на совпадающий If-None-Match в аудит скачиваний не попадает.
+     * <p>
+     * Поток запроса не ждет ответа S3: объект открывается асинхронно. Если клиент
+     * отключился или истек таймаут запроса, открытие объекта отменяется.
      *
      * @param uniqueName уникальное имя файла (UUID-based)
-     * @return файл с корректными заголовками для скачивания
+     * @param headers заголовки запроса
+     * @return файл или запрошенные диапазоны с корректными заголовками для скачивания
      */
     @GetMapping("/{uniqueName}")
-    public ResponseEntity<ByteArrayResource> download(@PathVariable String uniqueName) {
+    public DeferredResult<ResponseEntity<StreamingResponseBody>> download(@PathVariable String uniqueName,
+                                                                          @RequestHeader HttpHeaders headers) {
 
-        FileDownloadResponse response = fileFacadeService.downloadFile(uniqueName);
-        ByteArrayResource resource = new ByteArrayResource(response.getContent());
+        FileDownloadResponse response = fileFacadeService.findDownload(uniqueName);
+        CompletableFuture<ResponseEntity<StreamingResponseBody>> streaming = fileStreamingService
+                .notModified(response, headers)
+                .map(CompletableFuture::completedFuture)
+                .orElseGet(() -> fileFacadeService.streamFile(response, headers));
 
-        return ResponseEntity
-                .ok()
-                .contentLength(response.getSize())
-                .header("Content-Type", response.getContentType())
-                .header("Content-Disposition", "attachment; filename*=UTF-8''" + response.getFileName())
-                .body(resource);
+        DeferredResult<ResponseEntity<StreamingResponseBody>> result = new DeferredResult<>();
+        result.onTimeout(() -> streaming.cancel(true));
+        result.onError(error -> streaming.cancel(true));
+        streaming.whenComplete((entity, error) -> {
+            if (error != null) {
+                result.setErrorResult(error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause()
+                        : error);
+            } else if (!result.setResult(entity) && entity.getBody() instanceof StorageResponseBody body) {
+                body.close();
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Скачивает несколько файлов одним ZIP архивом.
+     * <p>
+     * Архив формируется на лету по мере чтения файлов из S3 (до
+     * {@value BulkDownloadRequest#MAX_FILES} файлов), размер ответа заранее неизвестен.
+     *
+     * @param request уникальные имена файлов
+     * @return потоковый ответ с архивом
+     */
+    @PostMapping("/bulk-download")
+    public ResponseEntity<StreamingResponseBody> bulkDownload(@Valid @RequestBody BulkDownloadRequest request) {
+        List<FileDownloadResponse> files = fileFacadeService.downloadFiles(request.uniqueNames());
+        return zipStreamingService.stream(files);
+    }
+
+    /**
+     * Удаляет несколько файлов.
+     * <p>
+     * Права проверяются для каждого файла: удаляются только свои файлы
+     * (администратор — любые), остальные возвращаются с ошибкой.
+     *
+     * @param request уникальные имена файлов (до {@value BulkDeleteRequest#MAX_FILES})
+     * @return результат для каждого файла (SUCCESS или ERROR)
+     */
+    @PostMapping("/bulk-delete")
+    public CommonResponse<List<BulkDeleteResponse>> bulkDelete(@Valid @RequestBody BulkDeleteRequest request) {
+        return CommonResponse.success(fileFacadeService.deleteFiles(request.uniqueNames()));
     }
 
     /**
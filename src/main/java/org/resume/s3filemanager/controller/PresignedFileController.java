@@ -0,0 +1,65 @@
+package org.resume.s3filemanager.controller;
+
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.resume.s3filemanager.constant.SuccessMessages;
+import org.resume.s3filemanager.dto.CommonResponse;
+import org.resume.s3filemanager.dto.PresignedUploadRequest;
+import org.resume.s3filemanager.dto.PresignedUrlResponse;
+import org.resume.s3filemanager.service.file.PresignedUrlService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST контроллер прямой передачи файлов через presigned URL.
+ * <p>
+ * Доступен только при {@code app.presigned.enabled=true}. Содержимое файлов
+ * не проходит через приложение: клиент получает подписанную ссылку и обращается
+ * к хранилищу напрямую. Загрузка завершается вызовом подтверждения.
+ *
+ * @see PresignedUrlService
+ */
+@RestController
+@RequestMapping("api/files/presigned")
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "app.presigned", name = "enabled", havingValue = "true")
+public class PresignedFileController {
+
+    private final PresignedUrlService presignedUrlService;
+
+    /**
+     * Выдает ссылку для загрузки файла напрямую в хранилище.
+     *
+     * @param request имя, MIME-тип и размер файла
+     * @return ссылка, обязательные заголовки и уникальное имя файла
+     */
+    @PostMapping("/upload")
+    public CommonResponse<PresignedUrlResponse> createUploadUrl(@Valid @RequestBody PresignedUploadRequest request) {
+        return CommonResponse.success(presignedUrlService.createUploadUrl(request));
+    }
+
+    /**
+     * Подтверждает загрузку по ссылке и регистрирует файл.
+     *
+     * @param uniqueName уникальное имя, выданное вместе с ссылкой
+     * @return сообщение об успешной загрузке
+     */
+    @PostMapping("/upload/{uniqueName}/confirm")
+    @ResponseStatus(HttpStatus.CREATED)
+    public CommonResponse<String> confirmUpload(@PathVariable String uniqueName) {
+        presignedUrlService.confirmUpload(uniqueName);
+        return CommonResponse.success(SuccessMessages.FILE_UPLOAD_SUCCESS);
+    }
+
+    /**
+     * Выдает ссылку для скачивания файла напрямую из хранилища.
+     *
+     * @param uniqueName уникальное имя файла
+     * @return ссылка для скачивания
+     */
+    @GetMapping("/{uniqueName}")
+    public CommonResponse<PresignedUrlResponse> createDownloadUrl(@PathVariable String uniqueName) {
+        return CommonResponse.success(presignedUrlService.createDownloadUrl(uniqueName));
+    }
+}
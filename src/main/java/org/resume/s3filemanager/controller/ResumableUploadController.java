@@ -0,0 +1,108 @@
+package org.resume.s3filemanager.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.resume.s3filemanager.constant.SuccessMessages;
+import org.resume.s3filemanager.dto.CommonResponse;
+import org.resume.s3filemanager.dto.ResumableUploadRequest;
+import org.resume.s3filemanager.dto.ResumableUploadStatus;
+import org.resume.s3filemanager.exception.FileReadException;
+import org.resume.s3filemanager.service.file.ResumableUploadService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+/**
+ * REST контроллер возобновляемой загрузки файлов по частям.
+ * <p>
+ * Протокол:
+ * <ul>
+ *   <li>POST — создание сессии, в ответе уникальное имя и размер части</li>
+ *   <li>PUT с параметром {@code offset} — передача очередной части телом запроса</li>
+ *   <li>GET — текущее смещение, с которого нужно продолжить после обрыва</li>
+ *   <li>POST .../complete — завершение и регистрация файла</li>
+ *   <li>DELETE — отмена загрузки</li>
+ * </ul>
+ *
+ * @see ResumableUploadService
+ */
+@RestController
+@RequestMapping("api/files/resumable")
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "app.resumable-upload", name = "enabled", havingValue = "true")
+public class ResumableUploadController {
+
+    private final ResumableUploadService resumableUploadService;
+
+    /**
+     * Создает сессию возобновляемой загрузки.
+     *
+     * @param request имя, MIME-тип и размер файла
+     * @return состояние сессии
+     */
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public CommonResponse<ResumableUploadStatus> create(@Valid @RequestBody ResumableUploadRequest request) {
+        return CommonResponse.success(resumableUploadService.createUpload(request));
+    }
+
+    /**
+     * Возвращает текущее смещение загрузки.
+     *
+     * @param uniqueName уникальное имя файла из ответа на создание сессии
+     * @return состояние сессии
+     */
+    @GetMapping("/{uniqueName}")
+    public CommonResponse<ResumableUploadStatus> status(@PathVariable String uniqueName) {
+        return CommonResponse.success(resumableUploadService.getStatus(uniqueName));
+    }
+
+    /**
+     * Принимает часть файла. Тело запроса передается в хранилище потоком.
+     *
+     * @param uniqueName уникальное имя файла
+     * @param offset смещение части в файле
+     * @param request запрос с содержимым части и заголовком Content-Length
+     * @return состояние сессии после приема части
+     */
+    @PutMapping(value = "/{uniqueName}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public CommonResponse<ResumableUploadStatus> uploadChunk(@PathVariable String uniqueName,
+                                                             @RequestParam long offset,
+                                                             HttpServletRequest request) {
+        try {
+            return CommonResponse.success(resumableUploadService.uploadChunk(
+                    uniqueName, offset, request.getInputStream(), request.getContentLengthLong()
+            ));
+        } catch (IOException e) {
+            throw new FileReadException(e, uniqueName);
+        }
+    }
+
+    /**
+     * Завершает загрузку и регистрирует файл.
+     *
+     * @param uniqueName уникальное имя файла
+     * @return сообщение об успешной загрузке
+     */
+    @PostMapping("/{uniqueName}/complete")
+    @ResponseStatus(HttpStatus.CREATED)
+    public CommonResponse<String> complete(@PathVariable String uniqueName) {
+        resumableUploadService.completeUpload(uniqueName);
+        return CommonResponse.success(SuccessMessages.FILE_UPLOAD_SUCCESS);
+    }
+
+    /**
+     * Отменяет загрузку.
+     *
+     * @param uniqueName уникальное имя файла
+     */
+    @DeleteMapping("/{uniqueName}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void abort(@PathVariable String uniqueName) {
+        resumableUploadService.abortUpload(uniqueName);
+    }
+}
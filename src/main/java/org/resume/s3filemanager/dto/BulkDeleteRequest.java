@@ -0,0 +1,21 @@
+package org.resume.s3filemanager.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import org.resume.s3filemanager.constant.ValidationMessages;
+
+import java.util.List;
+
+/**
+ * Запрос удаления нескольких файлов.
+ *
+ * @param uniqueNames уникальные имена удаляемых файлов
+ */
+public record BulkDeleteRequest(
+        @NotEmpty(message = ValidationMessages.FIELD_REQUIRED)
+        @Size(max = BulkDeleteRequest.MAX_FILES, message = ValidationMessages.DELETE_BATCH_TOO_LARGE)
+        List<@NotBlank(message = ValidationMessages.FIELD_REQUIRED) String> uniqueNames) {
+
+    public static final int MAX_FILES = 10_000;
+}
@@ -0,0 +1,18 @@
+package org.resume.s3filemanager.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.resume.s3filemanager.enums.CommonResponseStatus;
+
+/**
+ * Результат удаления одного файла в рамках пакетного удаления.
+ *
+ * @param status SUCCESS или ERROR
+ * @param uniqueName уникальное имя файла
+ * @param message причина ошибки
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BulkDeleteResponse(
+        CommonResponseStatus status,
+        String uniqueName,
+        String message) {
+}
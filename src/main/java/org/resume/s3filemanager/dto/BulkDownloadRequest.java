@@ -0,0 +1,21 @@
+package org.resume.s3filemanager.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import org.resume.s3filemanager.constant.ValidationMessages;
+
+import java.util.List;
+
+/**
+ * Запрос скачивания нескольких файлов одним ZIP архивом.
+ *
+ * @param uniqueNames уникальные имена файлов в порядке записи в архив
+ */
+public record BulkDownloadRequest(
+        @NotEmpty(message = ValidationMessages.FIELD_REQUIRED)
+        @Size(max = BulkDownloadRequest.MAX_FILES, message = ValidationMessages.DOWNLOAD_BATCH_TOO_LARGE)
+        List<@NotBlank(message = ValidationMessages.FIELD_REQUIRED) String> uniqueNames) {
+
+    public static final int MAX_FILES = 100;
+}
@@ -6,8 +6,12 @@ import lombok.Getter;
 @Getter
 @Builder
 public class FileDownloadResponse {
-    private byte[] content;
+    private String uniqueName;
     private String fileName;
+    private String originalName;
     private String contentType;
     private long size;
+    private String eTag;
+    private String contentEncoding;
+    private long storedSize;
 }
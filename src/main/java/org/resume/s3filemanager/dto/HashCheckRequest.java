@@ -0,0 +1,42 @@
+package org.resume.s3filemanager.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
+import org.resume.s3filemanager.constant.ValidationMessages;
+import org.resume.s3filemanager.enums.HashAlgorithm;
+
+import java.util.List;
+
+/**
+ * Запрос проверки, какое содержимое уже есть на сервере.
+ *
+ * @param algorithm алгоритм, которым клиент посчитал хеши; если не указан — алгоритм сервера
+ * @param files хеши и размеры файлов
+ */
+public record HashCheckRequest(
+        HashAlgorithm algorithm,
+
+        @Valid
+        @NotEmpty(message = ValidationMessages.FIELD_REQUIRED)
+        @Size(max = HashCheckRequest.MAX_BATCH_SIZE, message = ValidationMessages.HASH_BATCH_TOO_LARGE)
+        List<@NotNull Item> files) {
+
+    public static final int MAX_BATCH_SIZE = 1000;
+
+    /**
+     * @param hash хеш содержимого в шестнадцатеричном виде
+     * @param size размер файла в байтах
+     */
+    public record Item(
+            @NotNull(message = ValidationMessages.FIELD_REQUIRED)
+            @Pattern(regexp = "[0-9a-fA-F]{32,64}", message = ValidationMessages.INVALID_HASH)
+            String hash,
+
+            @PositiveOrZero
+            long size) {
+    }
+}
@@ -0,0 +1,25 @@
+package org.resume.s3filemanager.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.resume.s3filemanager.enums.HashAlgorithm;
+
+import java.util.List;
+
+/**
+ * Результат проверки хешей в порядке запроса.
+ *
+ * @param algorithm алгоритм, по которому выполнялся поиск
+ * @param files результат для каждого хеша
+ */
+public record HashCheckResponse(HashAlgorithm algorithm, List<Result> files) {
+
+    /**
+     * @param hash хеш содержимого (нижний регистр)
+     * @param size размер файла в байтах
+     * @param exists есть ли у пользователя файл с таким хешем и размером
+     * @param uniqueName уникальное имя существующего файла
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Result(String hash, long size, boolean exists, String uniqueName) {
+    }
+}
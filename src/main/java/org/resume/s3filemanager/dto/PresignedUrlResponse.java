@@ -0,0 +1,24 @@
+package org.resume.s3filemanager.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Presigned URL для прямой передачи файла между клиентом и хранилищем.
+ *
+ * @param uniqueName уникальное имя файла
+ * @param method HTTP метод, которым нужно обратиться по ссылке
+ * @param url подписанная ссылка
+ * @param headers заголовки, которые клиент обязан отправить вместе с запросом
+ * @param expiresAt момент истечения ссылки
+ */
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public record PresignedUrlResponse(
+        String uniqueName,
+        String method,
+        String url,
+        Map<String, String> headers,
+        Instant expiresAt) {
+}
@@ -0,0 +1,24 @@
+package org.resume.s3filemanager.dto;
+
+/**
+ * Итог прохода сверки S3 с базой.
+ *
+ * @param dryRun расхождения только найдены, ничего не удалялось
+ * @param scannedObjects просмотрено объектов S3
+ * @param scannedRows просмотрено записей метаданных
+ * @param orphanObjects объекты без записи в базе
+ * @param orphanRows записи без объекта в S3
+ * @param recentObjects объекты без записи, пропущенные как слишком новые
+ * @param deletedObjects удалено объектов
+ * @param deletedRows удалено записей
+ */
+public record ReconciliationReport(
+        boolean dryRun,
+        long scannedObjects,
+        long scannedRows,
+        long orphanObjects,
+        long orphanRows,
+        long recentObjects,
+        long deletedObjects,
+        long deletedRows) {
+}
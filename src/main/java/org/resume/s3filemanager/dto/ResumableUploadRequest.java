@@ -0,0 +1,16 @@
+package org.resume.s3filemanager.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+import org.resume.s3filemanager.constant.ValidationMessages;
+
+public record ResumableUploadRequest(
+        @NotBlank(message = ValidationMessages.FIELD_REQUIRED)
+        String fileName,
+
+        @NotBlank(message = ValidationMessages.FIELD_REQUIRED)
+        String contentType,
+
+        @Positive(message = ValidationMessages.FILE_EMPTY)
+        long size) {
+}
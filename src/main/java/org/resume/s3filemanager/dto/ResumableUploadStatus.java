@@ -0,0 +1,16 @@
+package org.resume.s3filemanager.dto;
+
+/**
+ * Состояние возобновляемой загрузки.
+ *
+ * @param uniqueName уникальное имя файла, идентификатор сессии
+ * @param offset число принятых байт; следующая часть должна начинаться с этого смещения
+ * @param size полный размер файла
+ * @param chunkSize размер каждой части, кроме последней
+ */
+public record ResumableUploadStatus(
+        String uniqueName,
+        long offset,
+        long size,
+        long chunkSize) {
+}
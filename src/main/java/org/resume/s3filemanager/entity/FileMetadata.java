@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import org.resume.s3filemanager.enums.HashAlgorithm;
 
 @Entity
 @Getter
@@ -32,6 +33,15 @@ public class FileMetadata {
     @Column(length = 64, nullable = false, unique = true)
     private String fileHash;
 
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20, nullable = false)
+    private HashAlgorithm hashAlgorithm;
+
+    @Column(length = 20)
+    private String contentEncoding;
+
+    private Long storedSize;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
@@ -0,0 +1,51 @@
+package org.resume.s3filemanager.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.resume.s3filemanager.enums.StorageAction;
+
+import java.time.Instant;
+
+@Entity
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "storage_outbox")
+public class StorageOutboxEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private StorageAction action;
+
+    @Column(length = 1024, nullable = false)
+    private String objectKey;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(nullable = false)
+    private Instant nextAttemptAt;
+
+    @Column(columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    /**
+     * Отмечает неудачную попытку и откладывает следующую.
+     *
+     * @param nextAttemptAt время следующей попытки
+     * @param error причина неудачи
+     */
+    public void retryLater(Instant nextAttemptAt, String error) {
+        this.attempts++;
+        this.nextAttemptAt = nextAttemptAt;
+        this.lastError = error;
+    }
+}
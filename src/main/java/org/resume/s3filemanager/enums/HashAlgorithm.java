@@ -0,0 +1,17 @@
+package org.resume.s3filemanager.enums;
+
+/**
+ * Алгоритм, которым вычислен хеш содержимого файла.
+ * <p>
+ * Сохраняется рядом с хешем, поэтому после смены алгоритма
+ * ранее сохраненные хеши остаются корректными.
+ */
+public enum HashAlgorithm {
+    MD5,
+    SHA256,
+    /**
+     * SHA-256 дерево: части файла хешируются параллельно,
+     * итоговый хеш — SHA-256 от последовательности хешей частей.
+     */
+    SHA256_TREE
+}
@@ -0,0 +1,8 @@
+package org.resume.s3filemanager.enums;
+
+/**
+ * Отложенные действия с хранилищем, выполняемые через outbox.
+ */
+public enum StorageAction {
+    DELETE_OBJECT
+}
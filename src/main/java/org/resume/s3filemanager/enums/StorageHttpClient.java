@@ -0,0 +1,16 @@
+package org.resume.s3filemanager.enums;
+
+/**
+ * Реализация HTTP транспорта синхронного S3 клиента.
+ */
+public enum StorageHttpClient {
+    /**
+     * Apache HttpClient: пул соединений с настраиваемым размером и очисткой простаивающих соединений.
+     */
+    APACHE,
+    /**
+     * {@code HttpURLConnection} из JDK: минимум зависимостей, соединения переиспользует
+     * keep-alive кэш JDK, настройки пула и метрики пула не поддерживаются.
+     */
+    URL_CONNECTION
+}
@@ -0,0 +1,19 @@
+package org.resume.s3filemanager.enums;
+
+/**
+ * Класс операции с хранилищем для ограничения параллельности (bulkhead).
+ */
+public enum StorageOperation {
+    /**
+     * Загрузка файла или части multipart upload.
+     */
+    UPLOAD,
+    /**
+     * Открытие файла или диапазона на чтение; разрешение держится до закрытия потока.
+     */
+    DOWNLOAD,
+    /**
+     * Короткие запросы метаданных, копирования и удаления; отдельного лимита нет.
+     */
+    OTHER
+}
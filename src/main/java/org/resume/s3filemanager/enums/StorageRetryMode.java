@@ -0,0 +1,16 @@
+package org.resume.s3filemanager.enums;
+
+/**
+ * Стратегия повторов запросов к S3.
+ */
+public enum StorageRetryMode {
+    /**
+     * Экспоненциальная задержка с jitter, повторы ограничены бюджетом токенов.
+     */
+    STANDARD,
+    /**
+     * Как {@link #STANDARD}, дополнительно клиент снижает частоту запросов
+     * при ответах о превышении лимитов (throttling) от хранилища.
+     */
+    ADAPTIVE
+}
@@ -0,0 +1,7 @@
+package org.resume.s3filemanager.exception;
+
+public class FileValidationException extends RuntimeException {
+    public FileValidationException(String message) {
+        super(message);
+    }
+}
@@ -9,8 +9,10 @@ import org.resume.s3filemanager.constant.ValidationMessages;
 import org.resume.s3filemanager.dto.CommonResponse;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.AuthenticationException;
@@ -108,6 +110,27 @@ public class GlobalExceptionHandler {
         return createErrorResponse(HttpStatus.FORBIDDEN, e.getMessage());
     }
 
+    @ExceptionHandler(FileValidationException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public CommonResponse<Void> handleFileValidation(FileValidationException e) {
+        log.warn("File validation failed: {}", e.getMessage());
+        return createErrorResponse(HttpStatus.BAD_REQUEST, e.getMessage());
+    }
+
+    @ExceptionHandler(UploadConflictException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public CommonResponse<Void> handleUploadConflict(UploadConflictException e) {
+        log.warn("Resumable upload conflict: {}", e.getMessage());
+        return createErrorResponse(HttpStatus.CONFLICT, e.getMessage());
+    }
+
+    @ExceptionHandler(ReconciliationInProgressException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public CommonResponse<Void> handleReconciliationInProgress(ReconciliationInProgressException e) {
+        log.warn("Reconciliation conflict: {}", e.getMessage());
+        return createErrorResponse(HttpStatus.CONFLICT, e.getMessage());
+    }
+
     // ========== TECHNICAL EXCEPTIONS  ==========
     @ExceptionHandler(FileReadException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
@@ -115,12 +138,21 @@ public class GlobalExceptionHandler {
         return createErrorResponse(HttpStatus.BAD_REQUEST, ErrorMessages.FILE_READ_ERROR);
     }
 
-    @ExceptionHandler(S3YandexException.class)
+    @ExceptionHandler({S3YandexException.class, LocalStorageException.class})
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
-    public CommonResponse<Void> handleS3Yandex() {
+    public CommonResponse<Void> handleStorage() {
         return createErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR, ErrorMessages.FILE_STORAGE_ERROR);
     }
 
+    @ExceptionHandler(StorageUnavailableException.class)
+    public ResponseEntity<CommonResponse<Void>> handleStorageUnavailable(StorageUnavailableException e) {
+        long retryAfterSeconds = Math.max(1, e.getRetryAfter().toSeconds());
+        log.warn("Storage unavailable, retry after {} s", retryAfterSeconds);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(createErrorResponse(HttpStatus.SERVICE_UNAVAILABLE, ErrorMessages.STORAGE_UNAVAILABLE));
+    }
+
     // ========== FRAMEWORK EXCEPTIONS ==========
     @ExceptionHandler(MaxUploadSizeExceededException.class)
     @ResponseStatus(HttpStatus.PAYLOAD_TOO_LARGE)
@@ -0,0 +1,13 @@
+package org.resume.s3filemanager.exception;
+
+import lombok.Getter;
+
+@Getter
+public class LocalStorageException extends RuntimeException {
+    private final String fileName;
+
+    public LocalStorageException(Throwable cause, String fileName) {
+        super(cause);
+        this.fileName = fileName;
+    }
+}
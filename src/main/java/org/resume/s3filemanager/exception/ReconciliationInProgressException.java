@@ -0,0 +1,9 @@
+package org.resume.s3filemanager.exception;
+
+import org.resume.s3filemanager.constant.ErrorMessages;
+
+public class ReconciliationInProgressException extends RuntimeException {
+    public ReconciliationInProgressException() {
+        super(ErrorMessages.RECONCILIATION_IN_PROGRESS);
+    }
+}
@@ -0,0 +1,16 @@
+package org.resume.s3filemanager.exception;
+
+import lombok.Getter;
+import org.resume.s3filemanager.constant.ErrorMessages;
+
+import java.time.Duration;
+
+@Getter
+public class StorageUnavailableException extends RuntimeException {
+    private final Duration retryAfter;
+
+    public StorageUnavailableException(Duration retryAfter) {
+        super(ErrorMessages.STORAGE_UNAVAILABLE);
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,7 @@
+package org.resume.s3filemanager.exception;
+
+public class UploadConflictException extends RuntimeException {
+    public UploadConflictException(String message) {
+        super(message);
+    }
+}
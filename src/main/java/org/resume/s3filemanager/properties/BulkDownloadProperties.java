@@ -0,0 +1,35 @@
+package org.resume.s3filemanager.properties;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.resume.s3filemanager.validation.AllowedFileType;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+import org.springframework.validation.annotation.Validated;
+
+import java.util.Set;
+
+/**
+ * Настройки скачивания нескольких файлов ZIP архивом.
+ * <p>
+ * Одновременно читается текущий файл и до {@code prefetch} следующих, на каждый
+ * выделяется буфер не больше {@code bufferSize}. Файлы типов {@code storedTypes}
+ * уже сжаты и пишутся в архив без сжатия.
+ */
+@Getter
+@Validated
+@RequiredArgsConstructor
+@ConfigurationProperties(prefix = "app.bulk-download")
+public class BulkDownloadProperties {
+
+    @PositiveOrZero
+    private final int prefetch;
+
+    @NotNull(message = "Bulk download buffer size is required")
+    private final DataSize bufferSize;
+
+    @NotNull(message = "Bulk download stored types are required")
+    private final Set<AllowedFileType> storedTypes;
+}
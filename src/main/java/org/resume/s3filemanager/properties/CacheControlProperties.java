@@ -0,0 +1,40 @@
+package org.resume.s3filemanager.properties;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.resume.s3filemanager.validation.AllowedFileType;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Настройки заголовка Cache-Control при скачивании файлов.
+ * <p>
+ * Нулевой max-age означает {@code no-cache}: браузер хранит файл,
+ * но перед использованием подтверждает его через If-None-Match.
+ */
+@Getter
+@Validated
+@RequiredArgsConstructor
+@ConfigurationProperties(prefix = "app.cache-control")
+public class CacheControlProperties {
+
+    @NotNull(message = "Default max-age is required")
+    private final Duration defaultMaxAge;
+
+    @NotNull(message = "Max-age per file type is required")
+    private final Map<AllowedFileType, Duration> maxAge;
+
+    /**
+     * Возвращает max-age для типа файла.
+     *
+     * @param type тип файла, {@code null} если тип не распознан
+     * @return max-age для типа или значение по умолчанию
+     */
+    public Duration maxAgeFor(AllowedFileType type) {
+        return type != null ? maxAge.getOrDefault(type, defaultMaxAge) : defaultMaxAge;
+    }
+}
@@ -0,0 +1,38 @@
+package org.resume.s3filemanager.properties;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.resume.s3filemanager.validation.AllowedFileType;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+import org.springframework.validation.annotation.Validated;
+
+import java.util.Set;
+
+/**
+ * Настройки сжатия файлов при сохранении в хранилище.
+ * <p>
+ * Сжимаются только файлы перечисленных типов не меньше {@code minSize};
+ * уже сохраненные файлы не пересжимаются.
+ */
+@Getter
+@Validated
+@RequiredArgsConstructor
+@ConfigurationProperties(prefix = "app.compression")
+public class CompressionProperties {
+
+    private final boolean enabled;
+
+    @NotNull(message = "Compression min size is required")
+    private final DataSize minSize;
+
+    @Min(1)
+    @Max(9)
+    private final int level;
+
+    @NotNull(message = "Compression file types are required")
+    private final Set<AllowedFileType> fileTypes;
+}
@@ -0,0 +1,34 @@
+package org.resume.s3filemanager.properties;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+import org.springframework.validation.annotation.Validated;
+
+import java.nio.file.Path;
+
+/**
+ * Настройки локального дискового кэша скачиваемых файлов.
+ * <p>
+ * Кэш локален для узла и ограничен суммарным размером файлов;
+ * объекты больше {@code maxObjectSize} всегда читаются из S3.
+ */
+@Getter
+@Validated
+@RequiredArgsConstructor
+@ConfigurationProperties(prefix = "app.cache.disk")
+public class DiskCacheProperties {
+
+    private final boolean enabled;
+
+    @NotNull(message = "Cache directory is required")
+    private final Path directory;
+
+    @NotNull(message = "Cache max size is required")
+    private final DataSize maxSize;
+
+    @NotNull(message = "Cache max object size is required")
+    private final DataSize maxObjectSize;
+}
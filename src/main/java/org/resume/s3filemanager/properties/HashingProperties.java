@@ -0,0 +1,31 @@
+package org.resume.s3filemanager.properties;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.resume.s3filemanager.enums.HashAlgorithm;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Настройки хеширования содержимого загружаемых файлов.
+ * <p>
+ * Дубликаты определяются только среди файлов, хешированных тем же алгоритмом.
+ */
+@Getter
+@Validated
+@RequiredArgsConstructor
+@ConfigurationProperties(prefix = "app.hashing")
+public class HashingProperties {
+
+    @NotNull(message = "Hash algorithm is required")
+    private final HashAlgorithm algorithm;
+
+    @NotNull(message = "Tree chunk size is required")
+    private final DataSize treeChunkSize;
+
+    @Positive
+    private final int treeMaxConcurrency;
+}
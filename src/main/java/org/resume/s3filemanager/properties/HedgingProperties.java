@@ -0,0 +1,56 @@
+package org.resume.s3filemanager.properties;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Настройки хеджирования GET запросов к S3.
+ * <p>
+ * Если ответ на запрос не пришел за {@code percentile} недавних задержек
+ * (по последним {@code windowSize} ответам, но не раньше {@code minDelay}),
+ * отправляется второй такой же запрос. Пока накоплено меньше {@code minSamples}
+ * замеров, используется {@code initialDelay}.
+ * <p>
+ * Бюджет: каждый запрос добавляет {@code budgetRatio} токена (не больше {@code maxBurst}),
+ * хедж тратит один. Доля хеджированных запросов не превышает {@code budgetRatio},
+ * поэтому при деградации хранилища нагрузка не удваивается.
+ */
+@Getter
+@Validated
+@RequiredArgsConstructor
+@ConfigurationProperties(prefix = "app.hedging")
+public class HedgingProperties {
+
+    private final boolean enabled;
+
+    @DecimalMin("0.5")
+    @DecimalMax("0.999")
+    private final double percentile;
+
+    @NotNull(message = "Hedging initial delay is required")
+    private final Duration initialDelay;
+
+    @NotNull(message = "Hedging min delay is required")
+    private final Duration minDelay;
+
+    @Positive
+    private final int windowSize;
+
+    @Positive
+    private final int minSamples;
+
+    @DecimalMin("0.0")
+    @DecimalMax("1.0")
+    private final double budgetRatio;
+
+    @Positive
+    private final int maxBurst;
+}
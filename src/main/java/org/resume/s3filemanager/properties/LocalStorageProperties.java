@@ -0,0 +1,35 @@
+package org.resume.s3filemanager.properties;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.nio.file.Path;
+
+/**
+ * Настройки хранения файлов в локальной файловой системе ({@code app.storage.backend: local}).
+ * <p>
+ * Файлы раскладываются по {@code shardDepth} уровням каталогов, названных по парам
+ * первых символов ключа: при {@code shardDepth = 2} ключ {@code 3fa85f64-...} хранится
+ * как {@code 3f/a8/3fa85f64-...}. При {@code syncOnWrite} содержимое сбрасывается
+ * на диск до переименования в итоговый путь.
+ */
+@Getter
+@Validated
+@RequiredArgsConstructor
+@ConfigurationProperties(prefix = "app.storage.local")
+public class LocalStorageProperties {
+
+    @NotNull(message = "Local storage directory is required")
+    private final Path directory;
+
+    @PositiveOrZero
+    @Max(4)
+    private final int shardDepth;
+
+    private final boolean syncOnWrite;
+}
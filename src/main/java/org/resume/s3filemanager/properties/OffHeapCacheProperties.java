@@ -0,0 +1,38 @@
+package org.resume.s3filemanager.properties;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.resume.s3filemanager.validation.AllowedFileType;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+import org.springframework.validation.annotation.Validated;
+
+import java.util.Set;
+
+/**
+ * Настройки кэша небольших файлов в памяти вне кучи.
+ * <p>
+ * Память выделяется прямыми буферами ({@code ByteBuffer.allocateDirect}) при старте,
+ * поэтому {@code capacity} должен помещаться в {@code -XX:MaxDirectMemorySize}.
+ */
+@Getter
+@Validated
+@RequiredArgsConstructor
+@ConfigurationProperties(prefix = "app.cache.memory")
+public class OffHeapCacheProperties {
+
+    private final boolean enabled;
+
+    @NotNull(message = "Memory cache capacity is required")
+    private final DataSize capacity;
+
+    @NotNull(message = "Memory cache page size is required")
+    private final DataSize pageSize;
+
+    @NotNull(message = "Memory cache max object size is required")
+    private final DataSize maxObjectSize;
+
+    @NotNull(message = "Memory cache file types are required")
+    private final Set<AllowedFileType> fileTypes;
+}
@@ -0,0 +1,37 @@
+package org.resume.s3filemanager.properties;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Настройки режима прямой передачи файлов через presigned URL.
+ * <p>
+ * Режим включается флагом {@code app.presigned.enabled}. Время жизни ссылок
+ * должно быть коротким: ссылка дает доступ к объекту без проверки прав.
+ */
+@Getter
+@Validated
+@RequiredArgsConstructor
+@ConfigurationProperties(prefix = "app.presigned")
+public class PresignedUrlProperties {
+
+    private final boolean enabled;
+
+    @NotNull(message = "Upload URL TTL is required")
+    private final Duration uploadTtl;
+
+    @NotNull(message = "Download URL TTL is required")
+    private final Duration downloadTtl;
+
+    @NotNull(message = "Confirm timeout is required")
+    private final Duration confirmTimeout;
+
+    @NotNull(message = "Max file size is required")
+    private final DataSize maxFileSize;
+}
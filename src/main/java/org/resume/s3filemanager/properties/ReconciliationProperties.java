@@ -0,0 +1,47 @@
+package org.resume.s3filemanager.properties;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Настройки сверки объектов S3 с метаданными в базе.
+ * <p>
+ * Объекты моложе {@code gracePeriod} не считаются потерянными: у них может идти
+ * регистрация (presigned или обычная загрузка). В режиме {@code dryRun} расхождения
+ * только логируются. За один проход удаляется не больше {@code maxDeletesPerRun}
+ * объектов и записей, между страницами выдерживается пауза {@code throttle}.
+ */
+@Getter
+@Validated
+@RequiredArgsConstructor
+@ConfigurationProperties(prefix = "app.reconciliation")
+public class ReconciliationProperties {
+
+    private final boolean enabled;
+
+    private final boolean dryRun;
+
+    @NotNull(message = "Reconciliation interval is required")
+    private final Duration interval;
+
+    @Positive
+    @Max(1000)
+    private final int pageSize;
+
+    @NotNull(message = "Reconciliation grace period is required")
+    private final Duration gracePeriod;
+
+    @NotNull(message = "Reconciliation throttle is required")
+    private final Duration throttle;
+
+    @PositiveOrZero
+    private final int maxDeletesPerRun;
+}
@@ -0,0 +1,35 @@
+package org.resume.s3filemanager.properties;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Настройки возобновляемой загрузки файлов по частям.
+ * <p>
+ * Сессия живет {@code sessionTtl} с момента последней принятой части; multipart upload
+ * без живой сессии старше этого срока отменяется при очередной очистке. Очистка выполняется
+ * и при выключенной возобновляемой загрузке: под нее попадают брошенные обычные multipart загрузки.
+ */
+@Getter
+@Validated
+@RequiredArgsConstructor
+@ConfigurationProperties(prefix = "app.resumable-upload")
+public class ResumableUploadProperties {
+
+    private final boolean enabled;
+
+    @NotNull(message = "Session TTL is required")
+    private final Duration sessionTtl;
+
+    @NotNull(message = "Cleanup interval is required")
+    private final Duration cleanupInterval;
+
+    @NotNull(message = "Max file size is required")
+    private final DataSize maxFileSize;
+}
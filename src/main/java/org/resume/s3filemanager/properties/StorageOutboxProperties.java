@@ -0,0 +1,45 @@
+package org.resume.s3filemanager.properties;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Настройки обработчика outbox действий с хранилищем.
+ * <p>
+ * Каждые {@code pollInterval} запускаются {@code workers} обработчиков, каждый забирает
+ * пачки по {@code batchSize} записей, пока они есть. Неудачная попытка повторяется
+ * с задержкой от {@code initialBackoff}, удваивающейся до {@code maxBackoff};
+ * после {@code maxAttempts} попыток запись остается в таблице для разбора.
+ */
+@Getter
+@Validated
+@RequiredArgsConstructor
+@ConfigurationProperties(prefix = "app.storage-outbox")
+public class StorageOutboxProperties {
+
+    @NotNull(message = "Outbox poll interval is required")
+    private final Duration pollInterval;
+
+    @Positive
+    @Max(1000)
+    private final int batchSize;
+
+    @Positive
+    private final int workers;
+
+    @Positive
+    private final int maxAttempts;
+
+    @NotNull(message = "Outbox initial backoff is required")
+    private final Duration initialBackoff;
+
+    @NotNull(message = "Outbox max backoff is required")
+    private final Duration maxBackoff;
+}
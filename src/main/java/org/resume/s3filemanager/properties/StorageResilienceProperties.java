@@ -0,0 +1,75 @@
+package org.resume.s3filemanager.properties;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Настройки защиты приложения от деградации объектного хранилища.
+ */
+@Getter
+@Validated
+@RequiredArgsConstructor
+@ConfigurationProperties(prefix = "app.storage.resilience")
+public class StorageResilienceProperties {
+
+    @Valid
+    @NotNull(message = "Circuit breaker settings are required")
+    private final CircuitBreaker circuitBreaker;
+
+    @Valid
+    @NotNull(message = "Bulkhead settings are required")
+    private final Bulkhead bulkhead;
+
+    /**
+     * Circuit breaker по последним {@code windowSize} запросам.
+     * <p>
+     * Размыкается, когда среди не менее {@code minimumCalls} запросов доля ошибок
+     * достигает {@code failureRateThreshold} или доля медленных (дольше
+     * {@code slowCallDuration}) — {@code slowCallRateThreshold}. Разомкнутый
+     * отклоняет запросы {@code openDuration}, затем пропускает {@code halfOpenCalls}
+     * пробных запросов и по их результату замыкается или размыкается снова.
+     *
+     * @param enabled выключенный breaker пропускает все запросы
+     * @param failureRateThreshold доля ошибок, размыкающая цепь (0..1)
+     * @param slowCallRateThreshold доля медленных запросов, размыкающая цепь (0..1)
+     * @param slowCallDuration порог медленного запроса; для загрузок не применяется
+     * @param windowSize число последних запросов, по которым считаются доли
+     * @param minimumCalls минимальное число запросов в окне для решения о размыкании
+     * @param openDuration время в разомкнутом состоянии, отдается клиенту в Retry-After
+     * @param halfOpenCalls число пробных запросов в полуоткрытом состоянии
+     */
+    public record CircuitBreaker(
+            boolean enabled,
+            @DecimalMin(value = "0.0", inclusive = false) @DecimalMax("1.0") double failureRateThreshold,
+            @DecimalMin(value = "0.0", inclusive = false) @DecimalMax("1.0") double slowCallRateThreshold,
+            @NotNull Duration slowCallDuration,
+            @Positive int windowSize,
+            @Positive int minimumCalls,
+            @NotNull Duration openDuration,
+            @Positive int halfOpenCalls) {
+    }
+
+    /**
+     * Раздельные лимиты одновременных загрузок и скачиваний: медленные загрузки
+     * не занимают все потоки, нужные скачиваниям, и наоборот.
+     *
+     * @param uploads максимальное число одновременных загрузок
+     * @param downloads максимальное число одновременно открытых скачиваний
+     * @param maxWait время ожидания свободного места синхронным запросом;
+     *                асинхронное открытие не ждет
+     */
+    public record Bulkhead(
+            @Positive int uploads,
+            @Positive int downloads,
+            @NotNull Duration maxWait) {
+    }
+}
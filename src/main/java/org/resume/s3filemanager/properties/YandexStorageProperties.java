@@ -1,12 +1,21 @@
 package org.resume.s3filemanager.properties;
 
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.AssertTrue;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.resume.s3filemanager.enums.StorageHttpClient;
+import org.resume.s3filemanager.enums.StorageRetryMode;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
 import org.springframework.validation.annotation.Validated;
 
+import java.time.Duration;
+
 @Slf4j
 @Getter
 @Validated
@@ -28,4 +37,142 @@ public class YandexStorageProperties {
 
     @NotBlank(message = "BucketName is required")
     private final String bucketName;
+
+    @Valid
+    @NotNull(message = "Multipart settings are required")
+    private final Multipart multipart;
+
+    @Valid
+    @NotNull(message = "Download settings are required")
+    private final Download download;
+
+    @Valid
+    @NotNull(message = "Async settings are required")
+    private final Async async;
+
+    @Valid
+    @NotNull(message = "HTTP settings are required")
+    private final Http http;
+
+    @Valid
+    @NotNull(message = "Retry settings are required")
+    private final Retry retry;
+
+    /**
+     * Настройки multipart загрузки больших файлов.
+     * <p>
+     * Часть целиком буферизуется в памяти перед отправкой, поэтому ее размер ограничен
+     * {@link #MAX_PART_SIZE}. Упавшая часть повторяется политикой повторов SDK ({@link Retry}).
+     *
+     * @param threshold размер файла, начиная с которого используется multipart загрузка
+     * @param partSize размер одной части (S3 требует не менее 5MB для всех частей, кроме последней)
+     * @param maxConcurrency максимальное число частей одного файла, загружаемых параллельно
+     */
+    public record Multipart(
+            @NotNull DataSize threshold,
+            @NotNull DataSize partSize,
+            @Positive int maxConcurrency) {
+
+        /**
+         * Минимальный размер части multipart upload в S3.
+         */
+        public static final DataSize MIN_PART_SIZE = DataSize.ofMegabytes(5);
+
+        /**
+         * Максимальный размер части: часть читается в один массив на куче.
+         */
+        public static final DataSize MAX_PART_SIZE = DataSize.ofGigabytes(1);
+
+        /**
+         * Максимальное число частей одного multipart upload в S3.
+         */
+        public static final int MAX_PARTS = 10_000;
+
+        @AssertTrue(message = "Multipart part size must be between 5MB and 1GB")
+        public boolean isPartSizeAllowed() {
+            return partSize == null
+                    || partSize.compareTo(MIN_PART_SIZE) >= 0 && partSize.compareTo(MAX_PART_SIZE) <= 0;
+        }
+
+        /**
+         * Максимальный размер объекта, который помещается в {@link #MAX_PARTS} частей.
+         *
+         * @return размер в байтах
+         */
+        public long maxObjectSize() {
+            return partSize.toBytes() * MAX_PARTS;
+        }
+    }
+
+    /**
+     * Настройки параллельного скачивания больших объектов.
+     *
+     * @param partSize размер одного ranged GET запроса; объекты больше части скачиваются параллельно
+     * @param maxConcurrency максимальное число частей одного объекта, скачиваемых заранее
+     */
+    public record Download(
+            @NotNull DataSize partSize,
+            @Positive int maxConcurrency) {
+    }
+
+    /**
+     * Настройки неблокирующего доступа через {@code S3AsyncClient}.
+     *
+     * @param openTimeout время ожидания ответа S3 (заголовков) при открытии объекта;
+     *                    по истечении запрос к S3 прерывается, клиент получает ошибку
+     */
+    public record Async(
+            @NotNull Duration openTimeout) {
+    }
+
+    /**
+     * Настройки HTTP транспорта S3 клиентов.
+     * <p>
+     * Синхронный клиент использует реализацию {@code clientType}, асинхронный — Netty.
+     * Размер пула подбирается под параллельность: каждая multipart загрузка и каждое
+     * параллельное скачивание занимают до {@code maxConcurrency} соединений.
+     *
+     * @param clientType реализация HTTP транспорта синхронного клиента
+     * @param maxConnections размер пула соединений синхронного клиента
+     * @param asyncMaxConnections размер пула соединений асинхронного клиента
+     * @param maxPendingAcquires максимальная очередь ожидающих соединения запросов асинхронного клиента
+     * @param connectionTimeout время установки TCP соединения
+     * @param socketTimeout время ожидания данных из сокета (и записи для асинхронного клиента)
+     * @param acquireTimeout время ожидания свободного соединения в пуле
+     * @param connectionMaxIdleTime время, после которого простаивающее соединение закрывается
+     * @param connectionTimeToLive максимальное время жизни соединения, 0 — без ограничения
+     * @param reapIdleConnections закрывать простаивающие соединения фоновым потоком
+     * @param tcpKeepAlive включить TCP keep-alive на соединениях
+     */
+    public record Http(
+            @NotNull StorageHttpClient clientType,
+            @Positive int maxConnections,
+            @Positive int asyncMaxConnections,
+            @Positive int maxPendingAcquires,
+            @NotNull Duration connectionTimeout,
+            @NotNull Duration socketTimeout,
+            @NotNull Duration acquireTimeout,
+            @NotNull Duration connectionMaxIdleTime,
+            @NotNull Duration connectionTimeToLive,
+            boolean reapIdleConnections,
+            boolean tcpKeepAlive) {
+    }
+
+    /**
+     * Настройки повторов запросов к S3.
+     * <p>
+     * Задержка между попытками растет экспоненциально от {@code baseDelay}
+     * до {@code maxBackoff} со случайным разбросом (full jitter).
+     *
+     * @param mode стратегия повторов
+     * @param maxAttempts максимальное число попыток, включая первую
+     * @param baseDelay базовая задержка перед повтором
+     * @param maxBackoff максимальная задержка перед повтором
+     */
+    public record Retry(
+            @NotNull StorageRetryMode mode,
+            @Positive int maxAttempts,
+            @NotNull Duration baseDelay,
+            @NotNull Duration maxBackoff) {
+    }
 }
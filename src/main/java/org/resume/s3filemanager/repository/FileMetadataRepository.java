@@ -2,21 +2,42 @@ package org.resume.s3filemanager.repository;
 
 import jakarta.transaction.Transactional;
 import org.resume.s3filemanager.entity.FileMetadata;
+import org.resume.s3filemanager.enums.HashAlgorithm;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface FileMetadataRepository extends JpaRepository<FileMetadata, Long> {
 
-    boolean existsByFileHashAndUserId(String fileHash, Long userId);
+    boolean existsByFileHashAndHashAlgorithmAndUserId(String fileHash, HashAlgorithm hashAlgorithm, Long userId);
+
+    List<FileMetadata> findAllByUserIdAndHashAlgorithmAndFileHashIn(Long userId, HashAlgorithm hashAlgorithm,
+                                                                    Collection<String> fileHashes);
 
     Optional<FileMetadata> findByUniqueName(String uniqueName);
 
+    List<FileMetadata> findAllByUniqueNameIn(Collection<String> uniqueNames);
+
+    @Query(value = """
+            SELECT unique_name FROM file_metadata
+            WHERE unique_name COLLATE "C" > :after
+            ORDER BY unique_name COLLATE "C"
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<String> findUniqueNamesAfter(@Param("after") String after, @Param("limit") int limit);
+
     @Modifying
     @Transactional
     @Query("DELETE FROM FileMetadata f WHERE f.uniqueName = :uniqueName")
     int deleteByUniqueName(@Param("uniqueName") String uniqueName);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM FileMetadata f WHERE f.uniqueName IN :uniqueNames")
+    int deleteAllByUniqueNameIn(@Param("uniqueNames") Collection<String> uniqueNames);
 }
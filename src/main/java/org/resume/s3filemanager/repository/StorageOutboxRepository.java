@@ -0,0 +1,50 @@
+package org.resume.s3filemanager.repository;
+
+import jakarta.transaction.Transactional;
+import org.resume.s3filemanager.entity.StorageOutboxEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface StorageOutboxRepository extends JpaRepository<StorageOutboxEntry, Long> {
+
+    /**
+     * Захватывает готовые к выполнению записи. Строки, захваченные другими
+     * обработчиками, пропускаются ({@code SKIP LOCKED}) до конца их транзакции.
+     */
+    @Query(value = """
+            SELECT * FROM storage_outbox
+            WHERE next_attempt_at <= :now AND attempts < :maxAttempts
+            ORDER BY id
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<StorageOutboxEntry> claimPending(@Param("now") Instant now,
+                                          @Param("maxAttempts") int maxAttempts,
+                                          @Param("limit") int limit);
+
+    /**
+     * Записывает одно действие для каждого ключа одним запросом: IDENTITY ключ
+     * не дает Hibernate объединять вставки сущностей в пачки.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+            INSERT INTO storage_outbox (action, object_key, attempts, next_attempt_at, created_at)
+            SELECT :action, object_key, 0, :now, :now
+            FROM unnest(CAST(:objectKeys AS TEXT[])) AS object_key
+            """, nativeQuery = true)
+    int insertAll(@Param("action") String action,
+                  @Param("objectKeys") String[] objectKeys,
+                  @Param("now") Instant now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM StorageOutboxEntry e WHERE e.id IN :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
+}
@@ -1,12 +1,25 @@
 package org.resume.s3filemanager.repository;
 
+import jakarta.transaction.Transactional;
 import org.resume.s3filemanager.entity.User;
+import org.resume.s3filemanager.enums.FileUploadStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String name);
 
     boolean existsByUsername(String username);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.uploadStatus = :status WHERE u.id IN :ids AND u.uploadStatus = :current")
+    int updateUploadStatuses(@Param("ids") Collection<Long> ids,
+                             @Param("current") FileUploadStatus current,
+                             @Param("status") FileUploadStatus status);
 }
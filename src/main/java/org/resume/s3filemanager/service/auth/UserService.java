@@ -15,6 +15,8 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+
 /**
  * Сервис для управления пользователями системы.
  * <p>
@@ -98,6 +100,18 @@ public class UserService {
         userRepository.save(user);
     }
 
+    /**
+     * Сбрасывает статус FILE_UPLOADED на NOT_UPLOADED одним запросом.
+     * <p>
+     * Пользователи с другими статусами (в том числе UNLIMITED) не изменяются.
+     *
+     * @param userIds идентификаторы пользователей
+     */
+    @Transactional
+    public void resetUploadStatuses(Collection<Long> userIds) {
+        userRepository.updateUploadStatuses(userIds, FileUploadStatus.FILE_UPLOADED, FileUploadStatus.NOT_UPLOADED);
+    }
+
     public Page<User> findAll(Pageable pageable) {
         return userRepository.findAll(pageable);
     }
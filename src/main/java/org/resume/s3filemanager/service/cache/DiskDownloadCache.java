@@ -0,0 +1,258 @@
+package org.resume.s3filemanager.service.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.resume.s3filemanager.properties.DiskCacheProperties;
+import org.resume.s3filemanager.service.file.StorageObject;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Локальный дисковый кэш содержимого файлов с вытеснением по LRU.
+ * <p>
+ * Ключ кэша — уникальное имя файла. Содержимое никогда не меняется по ключу,
+ * поэтому запись инвалидируется только при удалении файла.
+ * <ul>
+ *   <li>Заполнение атомарно: данные пишутся во временный файл и переименовываются
+ *   после того, как объект прочитан из S3 полностью ({@link SingleFlightFetcher})</li>
+ *   <li>Суммарный размер ограничен {@code app.cache.disk.max-size}</li>
+ *   <li>Попадания отдаются через {@link FileChannel#transferTo}</li>
+ *   <li>После рестарта уже скачанные файлы подхватываются из каталога</li>
+ * </ul>
+ * Метрики: {@code file.cache.disk.hits}, {@code .misses}, {@code .evictions}, {@code .size}.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(DiskCacheProperties.class)
+public class DiskDownloadCache {
+
+    private static final String TEMP_DIRECTORY = "tmp";
+    private static final Pattern SAFE_KEY = Pattern.compile("[A-Za-z0-9][A-Za-z0-9._-]*");
+
+    private final DiskCacheProperties properties;
+    private final Map<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    private long currentBytes;
+
+    public DiskDownloadCache(DiskCacheProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.hits = meterRegistry.counter("file.cache.disk.hits");
+        this.misses = meterRegistry.counter("file.cache.disk.misses");
+        this.evictions = meterRegistry.counter("file.cache.disk.evictions");
+        Gauge.builder("file.cache.disk.size", this, DiskDownloadCache::currentBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Удаляет временные файлы прерванных скачиваний и восстанавливает индекс кэша
+     * по файлам, оставшимся в каталоге после прошлого запуска.
+     * Временные файлы удаляются и при выключенном кэше: их могли оставить
+     * скачивания до выключения.
+     */
+    @PostConstruct
+    void loadExistingEntries() throws IOException {
+        Path directory = properties.getDirectory();
+        Path tempDirectory = directory.resolve(TEMP_DIRECTORY);
+        if (Files.isDirectory(tempDirectory)) {
+            try (Stream<Path> leftovers = Files.list(tempDirectory)) {
+                leftovers.forEach(this::deleteQuietly);
+            }
+        }
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        Files.createDirectories(tempDirectory);
+
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream.filter(Files::isRegularFile)
+                    .sorted(Comparator.comparingLong(this::lastModified))
+                    .toList();
+        }
+
+        synchronized (this) {
+            for (Path file : files) {
+                long size = file.toFile().length();
+                entries.put(file.getFileName().toString(), size);
+                currentBytes += size;
+            }
+            evictOverflow();
+        }
+        log.info("Disk cache loaded: {} files, {} bytes in {}", entries.size(), currentBytes, directory);
+    }
+
+    /**
+     * Открывает диапазон закэшированного файла.
+     *
+     * @param uniqueName уникальное имя файла
+     * @param start первый байт диапазона
+     * @param end последний байт диапазона (включительно)
+     * @return открытый диапазон или пустой Optional при промахе
+     */
+    public Optional<StorageObject> open(String uniqueName, long start, long end) {
+        if (!isCacheable(uniqueName)) {
+            return Optional.empty();
+        }
+
+        FileChannel channel;
+        synchronized (this) {
+            if (entries.get(uniqueName) == null) {
+                misses.increment();
+                return Optional.empty();
+            }
+            try {
+                channel = FileChannel.open(pathOf(uniqueName), StandardOpenOption.READ);
+            } catch (IOException e) {
+                log.warn("Cached file is unreadable, dropping entry: {}", uniqueName, e);
+                removeEntry(uniqueName);
+                misses.increment();
+                return Optional.empty();
+            }
+        }
+
+        hits.increment();
+        long length = end - start + 1;
+        return Optional.of(new StorageObject(new FileRegionInputStream(channel, start, length, true), length));
+    }
+
+    /**
+     * Проверяет, будет ли объект сохранен в кэш после полного скачивания.
+     *
+     * @param uniqueName уникальное имя файла
+     * @param size размер объекта в хранилище
+     * @return {@code true}, если кэш включен и объект не больше {@code app.cache.disk.max-object-size}
+     */
+    public boolean accepts(String uniqueName, long size) {
+        return isCacheable(uniqueName) && size <= properties.getMaxObjectSize().toBytes();
+    }
+
+    /**
+     * Создает временный файл в каталоге кэша.
+     * <p>
+     * Временный файл находится в той же файловой системе, что и кэш,
+     * поэтому его можно атомарно перенести в кэш через {@link #adopt}.
+     *
+     * @return путь к пустому временному файлу
+     * @throws IOException если файл не удалось создать
+     */
+    public Path createTempFile() throws IOException {
+        Path tempDirectory = properties.getDirectory().resolve(TEMP_DIRECTORY);
+        Files.createDirectories(tempDirectory);
+        return Files.createTempFile(tempDirectory, null, null);
+    }
+
+    /**
+     * Переносит полностью скачанный временный файл в кэш.
+     * <p>
+     * Если объект не подходит для кэширования, временный файл удаляется.
+     * Уже открытые каналы временного файла остаются валидными.
+     *
+     * @param uniqueName уникальное имя файла
+     * @param temp временный файл, созданный через {@link #createTempFile()}
+     * @param size размер файла
+     */
+    public void adopt(String uniqueName, Path temp, long size) {
+        if (accepts(uniqueName, size)) {
+            commit(uniqueName, temp, size);
+        } else {
+            deleteQuietly(temp);
+        }
+    }
+
+    private void commit(String uniqueName, Path temp, long size) {
+        try {
+            Path target = pathOf(uniqueName);
+            synchronized (this) {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                Long previous = entries.put(uniqueName, size);
+                currentBytes += size - (previous != null ? previous : 0);
+                evictOverflow();
+            }
+            log.debug("Cached file: {} ({} bytes)", uniqueName, size);
+
+        } catch (IOException e) {
+            log.warn("Unable to commit cached file: {}", uniqueName, e);
+            deleteQuietly(temp);
+        }
+    }
+
+    /**
+     * Удаляет файл из кэша.
+     *
+     * @param uniqueName уникальное имя файла
+     */
+    public synchronized void invalidate(String uniqueName) {
+        if (isCacheable(uniqueName) && entries.containsKey(uniqueName)) {
+            removeEntry(uniqueName);
+            log.debug("Cache entry invalidated: {}", uniqueName);
+        }
+    }
+
+    private boolean isCacheable(String uniqueName) {
+        return properties.isEnabled() && SAFE_KEY.matcher(uniqueName).matches();
+    }
+
+    private void evictOverflow() {
+        long maxBytes = properties.getMaxSize().toBytes();
+        Iterator<Map.Entry<String, Long>> eldest = entries.entrySet().iterator();
+
+        while (currentBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            eldest.remove();
+            currentBytes -= entry.getValue();
+            deleteQuietly(pathOf(entry.getKey()));
+            evictions.increment();
+        }
+    }
+
+    private void removeEntry(String uniqueName) {
+        Long size = entries.remove(uniqueName);
+        if (size != null) {
+            currentBytes -= size;
+        }
+        deleteQuietly(pathOf(uniqueName));
+    }
+
+    private synchronized long currentBytes() {
+        return currentBytes;
+    }
+
+    private Path pathOf(String uniqueName) {
+        return properties.getDirectory().resolve(uniqueName);
+    }
+
+    private long lastModified(Path file) {
+        return file.toFile().lastModified();
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Unable to delete cache file: {}", file, e);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package org.resume.s3filemanager.service.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Поток чтения диапазона файла из кэша или локального хранилища.
+ * <p>
+ * {@link #transferTo(OutputStream)} передает данные через {@link FileChannel#transferTo}.
+ * Поток ответа не является каналом, поэтому sendfile не используется: JDK читает файл
+ * блоками во временный буфер, а адаптер {@link Channels#newChannel(OutputStream)} копирует
+ * каждый блок в свой массив на куче и пишет его в поток. Выигрыш по сравнению с
+ * {@link #read(byte[], int, int)} — только в отсутствии собственного цикла копирования.
+ * Чтение позиционное: канал может быть общим для нескольких потоков.
+ */
+public class FileRegionInputStream extends InputStream {
+
+    private final FileChannel channel;
+    private final long end;
+    private final boolean ownsChannel;
+    private long position;
+
+    /**
+     * @param channel канал файла
+     * @param start первый байт диапазона
+     * @param length длина диапазона
+     * @param ownsChannel закрывать ли канал при закрытии потока
+     */
+    public FileRegionInputStream(FileChannel channel, long start, long length, boolean ownsChannel) {
+        this.channel = channel;
+        this.position = start;
+        this.end = start + length;
+        this.ownsChannel = ownsChannel;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (position >= end) {
+            return -1;
+        }
+
+        int toRead = (int) Math.min(length, end - position);
+        int read = channel.read(ByteBuffer.wrap(buffer, offset, toRead), position);
+        if (read < 0) {
+            return -1;
+        }
+        position += read;
+        return read;
+    }
+
+    @Override
+    public long transferTo(OutputStream out) throws IOException {
+        WritableByteChannel target = Channels.newChannel(out);
+        long transferred = 0;
+
+        while (position < end) {
+            long written = channel.transferTo(position, end - position, target);
+            if (written <= 0) {
+                break;
+            }
+            position += written;
+            transferred += written;
+        }
+        return transferred;
+    }
+
+    @Override
+    public int available() {
+        return (int) Math.min(Integer.MAX_VALUE, end - position);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (ownsChannel) {
+            channel.close();
+        }
+    }
+}
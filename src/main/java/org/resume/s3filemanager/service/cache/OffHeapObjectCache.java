@@ -0,0 +1,356 @@
+package org.resume.s3filemanager.service.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.resume.s3filemanager.exception.S3YandexException;
+import org.resume.s3filemanager.properties.OffHeapCacheProperties;
+import org.resume.s3filemanager.service.file.StorageObject;
+import org.resume.s3filemanager.validation.AllowedFileType;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Кэш содержимого небольших файлов в памяти вне кучи.
+ * <p>
+ * Память выделяется один раз при старте и делится на страницы фиксированного размера;
+ * объект занимает столько страниц, сколько нужно под его размер. Вытеснение идет по LRU
+ * до освобождения нужного числа страниц, поэтому крупные объекты вытесняют пропорционально
+ * больше; записи, которые сейчас отдаются клиентам, при вытеснении пропускаются.
+ * Страницы защищены счетчиком ссылок: пока объект отдается клиенту,
+ * его страницы не переиспользуются, даже если запись уже удалена или заменена.
+ * <p>
+ * Метрики: {@code file.cache.memory.hits}, {@code .misses}, {@code .evictions}, {@code .used}.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(OffHeapCacheProperties.class)
+public class OffHeapObjectCache {
+
+    private static final int SLAB_SIZE = 16 * 1024 * 1024;
+
+    private final OffHeapCacheProperties properties;
+    private final int pageSize;
+    private final ByteBuffer[] pages;
+    private final Deque<Integer> freePages = new ArrayDeque<>();
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public OffHeapObjectCache(OffHeapCacheProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.pageSize = (int) properties.getPageSize().toBytes();
+        this.pages = properties.isEnabled() ? allocatePages() : new ByteBuffer[0];
+        for (int i = 0; i < pages.length; i++) {
+            freePages.add(i);
+        }
+
+        this.hits = meterRegistry.counter("file.cache.memory.hits");
+        this.misses = meterRegistry.counter("file.cache.memory.misses");
+        this.evictions = meterRegistry.counter("file.cache.memory.evictions");
+        Gauge.builder("file.cache.memory.used", this, OffHeapObjectCache::usedBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Проверяет, подходит ли файл для кэширования в памяти.
+     *
+     * @param type тип файла, {@code null} если тип не распознан
+     * @param size размер файла
+     * @return true если кэш включен, тип разрешен и размер не превышает лимит объекта
+     */
+    public boolean accepts(AllowedFileType type, long size) {
+        return properties.isEnabled()
+                && type != null
+                && properties.getFileTypes().contains(type)
+                && size > 0
+                && size <= properties.getMaxObjectSize().toBytes();
+    }
+
+    /**
+     * Открывает диапазон объекта из памяти.
+     *
+     * @param uniqueName уникальное имя файла
+     * @param start первый байт диапазона
+     * @param end последний байт диапазона (включительно)
+     * @return открытый диапазон или пустой Optional при промахе
+     */
+    public Optional<StorageObject> open(String uniqueName, long start, long end) {
+        if (!properties.isEnabled()) {
+            return Optional.empty();
+        }
+
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(uniqueName);
+            if (entry == null) {
+                misses.increment();
+                return Optional.empty();
+            }
+            entry.references++;
+        }
+
+        hits.increment();
+        long length = end - start + 1;
+        return Optional.of(new StorageObject(new PagedInputStream(entry, (int) start, (int) length), length));
+    }
+
+    /**
+     * Загружает объект в память и открывает его оттуда.
+     * <p>
+     * Если свободных страниц не хватает даже после вытеснения, источник возвращается
+     * без изменений и содержимое не кэшируется.
+     *
+     * @param uniqueName уникальное имя файла
+     * @param source полное содержимое объекта
+     * @return объект, читаемый из памяти, или исходный объект
+     * @throws S3YandexException если источник не удалось прочитать
+     */
+    public StorageObject load(String uniqueName, StorageObject source) {
+        int length = (int) source.contentLength();
+        int[] allocated = allocate(length);
+        if (allocated == null) {
+            return source;
+        }
+
+        Entry entry = new Entry(allocated, length);
+        try (source) {
+            copyInto(entry, source.content());
+        } catch (IOException e) {
+            source.abort();
+            release(entry.pages);
+            throw new S3YandexException(e, uniqueName);
+        } catch (RuntimeException e) {
+            source.abort();
+            release(entry.pages);
+            throw e;
+        }
+
+        synchronized (this) {
+            Entry previous = entries.put(uniqueName, entry);
+            if (previous != null) {
+                dereference(previous);
+            }
+            entry.references++;
+        }
+        return new StorageObject(new PagedInputStream(entry, 0, length), length);
+    }
+
+    /**
+     * Удаляет объект из кэша.
+     *
+     * @param uniqueName уникальное имя файла
+     */
+    public synchronized void invalidate(String uniqueName) {
+        Entry entry = entries.remove(uniqueName);
+        if (entry != null) {
+            dereference(entry);
+        }
+    }
+
+    private ByteBuffer[] allocatePages() {
+        int pageCount = (int) (properties.getCapacity().toBytes() / pageSize);
+        int pagesPerSlab = Math.max(1, SLAB_SIZE / pageSize);
+        ByteBuffer[] allocated = new ByteBuffer[pageCount];
+
+        for (int first = 0; first < pageCount; first += pagesPerSlab) {
+            int count = Math.min(pagesPerSlab, pageCount - first);
+            ByteBuffer slab = ByteBuffer.allocateDirect(count * pageSize);
+            for (int i = 0; i < count; i++) {
+                allocated[first + i] = slab.slice(i * pageSize, pageSize);
+            }
+        }
+
+        log.info("Off-heap cache allocated: {} pages of {} bytes", pageCount, pageSize);
+        return allocated;
+    }
+
+    private void copyInto(Entry entry, InputStream content) throws IOException {
+        ReadableByteChannel channel = Channels.newChannel(content);
+        int remaining = entry.length;
+
+        for (int page : entry.pages) {
+            ByteBuffer target = pages[page].slice(0, Math.min(pageSize, remaining));
+            while (target.hasRemaining()) {
+                if (channel.read(target) < 0) {
+                    throw new IOException("Object ended before declared length");
+                }
+            }
+            remaining -= pageSize;
+        }
+
+        if (content.read() >= 0) {
+            throw new IOException("Object is longer than declared length");
+        }
+    }
+
+    /**
+     * Выделяет страницы под объект, вытесняя давно не использованные записи.
+     * <p>
+     * Вытесняются только записи, которые сейчас никто не читает: страницы читаемой
+     * записи освободятся лишь после закрытия потока, и ее вытеснение не дало бы памяти.
+     * Если даже так страниц не хватит, ничего не вытесняется.
+     *
+     * @return номера страниц или {@code null}, если памяти недостаточно
+     */
+    private synchronized int[] allocate(int length) {
+        int needed = (length + pageSize - 1) / pageSize;
+        int freeable = freePages.size();
+        for (Entry entry : entries.values()) {
+            if (freeable >= needed) {
+                break;
+            }
+            if (entry.references == 1) {
+                freeable += entry.pages.length;
+            }
+        }
+        if (freeable < needed) {
+            return null;
+        }
+
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (freePages.size() < needed) {
+            Entry entry = eldest.next();
+            if (entry.references == 1) {
+                eldest.remove();
+                dereference(entry);
+                evictions.increment();
+            }
+        }
+
+        int[] allocated = new int[needed];
+        for (int i = 0; i < needed; i++) {
+            allocated[i] = freePages.pop();
+        }
+        return allocated;
+    }
+
+    private synchronized void dereference(Entry entry) {
+        if (--entry.references == 0) {
+            release(entry.pages);
+        }
+    }
+
+    private synchronized void release(int[] released) {
+        for (int page : released) {
+            freePages.push(page);
+        }
+    }
+
+    private synchronized long usedBytes() {
+        return (long) (pages.length - freePages.size()) * pageSize;
+    }
+
+    /**
+     * Объект в кэше. Сам кэш держит одну ссылку, каждый открытый поток — еще одну.
+     */
+    private static final class Entry {
+
+        private final int[] pages;
+        private final int length;
+        private int references = 1;
+
+        private Entry(int[] pages, int length) {
+            this.pages = pages;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Поток чтения объекта из страниц.
+     * <p>
+     * Страницы читаются абсолютными операциями, поэтому один объект
+     * можно отдавать нескольким клиентам одновременно.
+     */
+    private class PagedInputStream extends InputStream {
+
+        private final Entry entry;
+        private final int end;
+        private int position;
+        private boolean closed;
+
+        PagedInputStream(Entry entry, int start, int length) {
+            this.entry = entry;
+            this.position = start;
+            this.end = start + length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            ensureOpen();
+            if (length == 0) {
+                return 0;
+            }
+            if (position >= end) {
+                return -1;
+            }
+
+            int pageOffset = position % pageSize;
+            int toRead = Math.min(length, Math.min(end - position, pageSize - pageOffset));
+            pages[entry.pages[position / pageSize]].get(pageOffset, buffer, offset, toRead);
+            position += toRead;
+            return toRead;
+        }
+
+        @Override
+        public long transferTo(OutputStream out) throws IOException {
+            ensureOpen();
+            WritableByteChannel target = Channels.newChannel(out);
+            long transferred = 0;
+
+            while (position < end) {
+                int pageOffset = position % pageSize;
+                int length = Math.min(end - position, pageSize - pageOffset);
+                ByteBuffer chunk = pages[entry.pages[position / pageSize]].slice(pageOffset, length);
+                while (chunk.hasRemaining()) {
+                    target.write(chunk);
+                }
+                position += length;
+                transferred += length;
+            }
+            return transferred;
+        }
+
+        @Override
+        public int available() {
+            return end - position;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                dereference(entry);
+            }
+        }
+
+        private void ensureOpen() throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+        }
+    }
+}
@@ -0,0 +1,404 @@
+package org.resume.s3filemanager.service.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.resume.s3filemanager.exception.S3YandexException;
+import org.resume.s3filemanager.exception.StorageUnavailableException;
+import org.resume.s3filemanager.service.file.StorageObject;
+import org.springframework.stereotype.Component;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Объединение одновременных скачиваний одного объекта из S3 (single-flight).
+ * <p>
+ * Первый запрос по ключу запускает единственное чтение из S3 в фоне и пишет содержимое
+ * во временный файл; все одновременные запросы к тому же ключу читают этот файл по мере
+ * поступления байт. После полного скачивания файл переносится в {@link DiskDownloadCache}.
+ * Используется только для объектов, которые кэш примет ({@link DiskDownloadCache#accepts}):
+ * остальные пришлось бы писать на диск лишь затем, чтобы удалить.
+ * <ul>
+ *   <li>Ошибка открытия объекта в S3 возвращается всем ожидающим одинаково — как {@link S3YandexException}</li>
+ *   <li>Ошибка посреди скачивания прерывает чтение у всех читателей</li>
+ *   <li>Если все читатели отключились до конца скачивания, запрос к S3 прерывается</li>
+ * </ul>
+ * Метрики: {@code file.fetch.single-flight.leaders}, {@code .joins}.
+ */
+@Slf4j
+@Component
+public class SingleFlightFetcher {
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final ConcurrentMap<String, Flight> flights = new ConcurrentHashMap<>();
+    private final DiskDownloadCache diskDownloadCache;
+    private final Executor storageExecutor;
+    private final Counter leaders;
+    private final Counter joins;
+
+    public SingleFlightFetcher(DiskDownloadCache diskDownloadCache, Executor storageExecutor,
+                               MeterRegistry meterRegistry) {
+        this.diskDownloadCache = diskDownloadCache;
+        this.storageExecutor = storageExecutor;
+        this.leaders = meterRegistry.counter("file.fetch.single-flight.leaders");
+        this.joins = meterRegistry.counter("file.fetch.single-flight.joins");
+    }
+
+    /**
+     * Открывает объект, присоединяясь к уже идущему скачиванию или запуская новое.
+     * <p>
+     * Метод возвращает управление, когда S3 ответил на запрос и размер объекта известен.
+     *
+     * @param uniqueName уникальное имя файла
+     * @param opener открывает полный объект в S3; вызывается один раз на скачивание
+     * @return поток, читающий общий временный файл по мере скачивания
+     * @throws S3YandexException если объект не удалось открыть в S3
+     */
+    public StorageObject fetch(String uniqueName, Supplier<StorageObject> opener) {
+        while (true) {
+            Flight created = new Flight(uniqueName);
+            Flight flight = flights.computeIfAbsent(uniqueName, key -> created);
+
+            if (!flight.join()) {
+                flights.remove(uniqueName, flight);
+                continue;
+            }
+
+            if (flight == created) {
+                leaders.increment();
+                storageExecutor.execute(() -> flight.download(opener));
+            } else {
+                joins.increment();
+                log.debug("Joined in-flight download: {}", uniqueName);
+            }
+
+            try {
+                long length = flight.awaitStarted();
+                return new StorageObject(new FlightInputStream(flight), length);
+            } catch (RuntimeException e) {
+                flight.leave();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Одно скачивание объекта во временный файл с произвольным числом читателей.
+     */
+    private final class Flight {
+
+        private final String uniqueName;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition progress = lock.newCondition();
+
+        private StorageObject source;
+        private Path temp;
+        private FileChannel channel;
+        private long length;
+        private long written;
+        private int readers;
+        private boolean started;
+        private boolean done;
+        private boolean closed;
+        private Throwable failure;
+
+        private Flight(String uniqueName) {
+            this.uniqueName = uniqueName;
+        }
+
+        /**
+         * Регистрирует читателя.
+         *
+         * @return false если скачивание уже завершилось неудачей или отменено
+         */
+        boolean join() {
+            lock.lock();
+            try {
+                if (closed || failure != null) {
+                    return false;
+                }
+                readers++;
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void leave() {
+            lock.lock();
+            try {
+                readers--;
+                if (readers > 0) {
+                    return;
+                }
+                if (!done && failure == null && !closed) {
+                    log.debug("All readers left, cancelling download: {}", uniqueName);
+                    closed = true;
+                    flights.remove(uniqueName, this);
+                    if (source != null) {
+                        source.abort();
+                    }
+                }
+                if (done || failure != null || closed) {
+                    release();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        long awaitStarted() {
+            lock.lock();
+            try {
+                while (!started && failure == null) {
+                    progress.awaitUninterruptibly();
+                }
+                if (failure instanceof StorageUnavailableException unavailable) {
+                    throw unavailable;
+                }
+                if (failure != null) {
+                    Throwable cause = failure instanceof S3YandexException && failure.getCause() != null
+                            ? failure.getCause()
+                            : failure;
+                    throw new S3YandexException(cause, uniqueName);
+                }
+                return length;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Ожидает, пока позиция не станет доступной для чтения.
+         *
+         * @return граница доступных байт или -1, если позиция за концом объекта
+         */
+        long awaitData(long position) throws IOException {
+            lock.lock();
+            try {
+                while (position >= written && !done && failure == null) {
+                    progress.await();
+                }
+                if (failure != null) {
+                    throw new IOException("Shared download failed: " + uniqueName, failure);
+                }
+                return position >= written ? -1 : written;
+
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for " + uniqueName);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void download(Supplier<StorageObject> opener) {
+            try {
+                StorageObject object = opener.get();
+                Path file;
+                FileChannel fileChannel;
+                try {
+                    file = diskDownloadCache.createTempFile();
+                    fileChannel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                } catch (IOException e) {
+                    object.abort();
+                    throw e;
+                }
+
+                lock.lock();
+                try {
+                    source = object;
+                    temp = file;
+                    channel = fileChannel;
+                    length = object.contentLength();
+                    started = true;
+                    progress.signalAll();
+                    if (closed) {
+                        object.abort();
+                        release();
+                        return;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+
+                copy(object);
+                complete();
+
+            } catch (IOException | RuntimeException e) {
+                fail(e);
+            }
+        }
+
+        private void copy(StorageObject object) throws IOException {
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+
+            try (InputStream content = object.content()) {
+                int read;
+                while ((read = content.read(buffer)) >= 0) {
+                    ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+                    long position = written;
+                    while (chunk.hasRemaining()) {
+                        position += channel.write(chunk, position);
+                    }
+
+                    lock.lock();
+                    try {
+                        written += read;
+                        progress.signalAll();
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            }
+
+            if (written != length) {
+                throw new EOFException("Object ended at " + written + " of " + length + " bytes");
+            }
+        }
+
+        private void complete() {
+            diskDownloadCache.adopt(uniqueName, temp, written);
+
+            lock.lock();
+            try {
+                done = true;
+                progress.signalAll();
+                flights.remove(uniqueName, this);
+                if (readers == 0) {
+                    release();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void fail(Throwable e) {
+            lock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                log.error("Shared download failed: {}", uniqueName, e);
+                failure = e;
+                progress.signalAll();
+                flights.remove(uniqueName, this);
+                if (readers == 0) {
+                    release();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Закрывает канал и удаляет временный файл, если он не был перенесен в кэш.
+         */
+        private void release() {
+            closed = true;
+            if (channel == null) {
+                return;
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Unable to close shared download file: {}", temp, e);
+            }
+            if (!done) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    log.warn("Unable to delete shared download file: {}", temp, e);
+                }
+            }
+            channel = null;
+        }
+    }
+
+    /**
+     * Поток одного читателя общего скачивания.
+     */
+    private static final class FlightInputStream extends InputStream {
+
+        private final Flight flight;
+        private long position;
+        private boolean closed;
+
+        private FlightInputStream(Flight flight) {
+            this.flight = flight;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            ensureOpen();
+            if (length == 0) {
+                return 0;
+            }
+
+            long limit = flight.awaitData(position);
+            if (limit < 0) {
+                return -1;
+            }
+
+            int toRead = (int) Math.min(length, limit - position);
+            int read = flight.channel.read(ByteBuffer.wrap(buffer, offset, toRead), position);
+            if (read > 0) {
+                position += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long transferTo(OutputStream out) throws IOException {
+            ensureOpen();
+            WritableByteChannel target = Channels.newChannel(out);
+            long transferred = 0;
+
+            long limit;
+            while ((limit = flight.awaitData(position)) >= 0) {
+                long sent = flight.channel.transferTo(position, limit - position, target);
+                position += sent;
+                transferred += sent;
+            }
+            return transferred;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                flight.leave();
+            }
+        }
+
+        private void ensureOpen() throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package org.resume.s3filemanager.service.compression;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Поток, отдающий gzip-сжатое содержимое исходного потока.
+ * <p>
+ * Сжатие выполняется по мере чтения: в памяти находится только входной буфер
+ * и внутреннее состояние {@link Deflater}, поэтому сжатый поток можно сразу
+ * передавать в хранилище, не зная заранее его размера.
+ */
+public class GzipCompressingInputStream extends InputStream {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int TRAILER_SIZE = 8;
+    private static final byte[] HEADER = {
+            0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff
+    };
+
+    private final InputStream in;
+    private final Deflater deflater;
+    private final CRC32 crc = new CRC32();
+    private final byte[] inputBuffer = new byte[BUFFER_SIZE];
+
+    private byte[] pending = HEADER;
+    private int pendingPosition;
+    private boolean trailerWritten;
+    private long compressedSize;
+
+    /**
+     * @param in исходный поток
+     * @param level уровень сжатия от 1 (быстро) до 9 (плотно)
+     */
+    public GzipCompressingInputStream(InputStream in, int level) {
+        this.in = in;
+        this.deflater = new Deflater(level, true);
+    }
+
+    /**
+     * @return число уже отданных сжатых байт; после чтения до конца — полный размер сжатого потока
+     */
+    public long getCompressedSize() {
+        return compressedSize;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+
+        while (true) {
+            if (pendingPosition < pending.length) {
+                int copied = Math.min(length, pending.length - pendingPosition);
+                System.arraycopy(pending, pendingPosition, buffer, offset, copied);
+                pendingPosition += copied;
+                compressedSize += copied;
+                return copied;
+            }
+
+            if (!deflater.finished()) {
+                int deflated = deflater.deflate(buffer, offset, length);
+                if (deflated > 0) {
+                    compressedSize += deflated;
+                    return deflated;
+                }
+                if (deflater.needsInput()) {
+                    fillInput();
+                }
+                continue;
+            }
+
+            if (trailerWritten) {
+                return -1;
+            }
+            pending = trailer();
+            pendingPosition = 0;
+            trailerWritten = true;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        deflater.end();
+        in.close();
+    }
+
+    private void fillInput() throws IOException {
+        int read = in.read(inputBuffer);
+        if (read < 0) {
+            deflater.finish();
+        } else if (read > 0) {
+            crc.update(inputBuffer, 0, read);
+            deflater.setInput(inputBuffer, 0, read);
+        }
+    }
+
+    private byte[] trailer() {
+        byte[] trailer = new byte[TRAILER_SIZE];
+        writeInt(trailer, 0, crc.getValue());
+        writeInt(trailer, 4, deflater.getBytesRead());
+        return trailer;
+    }
+
+    private static void writeInt(byte[] target, int offset, long value) {
+        for (int i = 0; i < 4; i++) {
+            target[offset + i] = (byte) (value >>> (8 * i));
+        }
+    }
+}
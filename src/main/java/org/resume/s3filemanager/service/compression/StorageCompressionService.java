@@ -0,0 +1,136 @@
+package org.resume.s3filemanager.service.compression;
+
+import lombok.RequiredArgsConstructor;
+import org.resume.s3filemanager.exception.S3YandexException;
+import org.resume.s3filemanager.properties.CompressionProperties;
+import org.resume.s3filemanager.service.file.StorageObject;
+import org.resume.s3filemanager.validation.AllowedFileType;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import software.amazon.awssdk.http.Abortable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Сервис сжатия содержимого файлов в хранилище.
+ * <p>
+ * Текстовые файлы сохраняются в S3 в gzip, кодировка записывается в метаданные файла.
+ * При скачивании сжатое содержимое отдается как есть с {@code Content-Encoding: gzip},
+ * если клиент его принимает, иначе распаковывается на лету. Сжатие и распаковка
+ * потоковые, файл целиком в памяти не собирается.
+ */
+@Service
+@RequiredArgsConstructor
+@EnableConfigurationProperties(CompressionProperties.class)
+public class StorageCompressionService {
+
+    public static final String GZIP = "gzip";
+
+    private static final int DECODE_BUFFER_SIZE = 64 * 1024;
+
+    private final CompressionProperties properties;
+
+    /**
+     * Выбирает кодировку для сохранения файла.
+     *
+     * @param fileName оригинальное имя файла
+     * @param contentType MIME-тип файла
+     * @param size размер файла
+     * @return кодировка или {@code null}, если файл сохраняется без сжатия
+     */
+    public String encodingFor(String fileName, String contentType, long size) {
+        if (!properties.isEnabled() || size < properties.getMinSize().toBytes()) {
+            return null;
+        }
+
+        return AllowedFileType.find(StringUtils.getFilenameExtension(fileName), contentType)
+                .filter(properties.getFileTypes()::contains)
+                .map(type -> GZIP)
+                .orElse(null);
+    }
+
+    /**
+     * Оборачивает поток в сжимающий.
+     *
+     * @param content исходное содержимое
+     * @return поток сжатого содержимого
+     */
+    public GzipCompressingInputStream compress(InputStream content) {
+        return new GzipCompressingInputStream(content, properties.getLevel());
+    }
+
+    /**
+     * Проверяет, принимает ли клиент кодировку, по заголовкам {@code Accept-Encoding}.
+     *
+     * @param acceptEncoding значения заголовков {@code Accept-Encoding}
+     * @param encoding кодировка содержимого
+     * @return true если кодировка явно или через {@code *} разрешена с ненулевым весом
+     */
+    public boolean accepts(List<String> acceptEncoding, String encoding) {
+        for (String header : acceptEncoding) {
+            for (String token : header.split(",")) {
+                String[] parts = token.trim().split(";");
+                String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+                if ((coding.equals(encoding) || coding.equals("*")) && !hasZeroWeight(parts)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Открывает распакованное содержимое сохраненного объекта.
+     *
+     * @param stored объект в кодировке хранения
+     * @param uniqueName уникальное имя файла
+     * @param decodedLength размер исходного файла
+     * @return объект с распакованным содержимым; прерывание прерывает чтение исходного объекта
+     * @throws S3YandexException если заголовок gzip не удалось прочитать
+     */
+    public StorageObject decode(StorageObject stored, String uniqueName, long decodedLength) {
+        try {
+            return new StorageObject(new DecodingInputStream(stored), decodedLength);
+        } catch (IOException e) {
+            stored.abort();
+            throw new S3YandexException(e, uniqueName);
+        }
+    }
+
+    private boolean hasZeroWeight(String[] parameters) {
+        for (int i = 1; i < parameters.length; i++) {
+            String parameter = parameters[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2)) == 0;
+                } catch (NumberFormatException e) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Распаковывающий поток, который при прерывании прерывает чтение из хранилища.
+     */
+    private static final class DecodingInputStream extends GZIPInputStream implements Abortable {
+
+        private final StorageObject source;
+
+        private DecodingInputStream(StorageObject source) throws IOException {
+            super(source.content(), DECODE_BUFFER_SIZE);
+            this.source = source;
+        }
+
+        @Override
+        public void abort() {
+            source.abort();
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package org.resume.s3filemanager.service.file;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.resume.s3filemanager.dto.FileDownloadResponse;
+import org.resume.s3filemanager.exception.S3YandexException;
+import org.resume.s3filemanager.service.cache.DiskDownloadCache;
+import org.resume.s3filemanager.service.cache.OffHeapObjectCache;
+import org.resume.s3filemanager.service.cache.SingleFlightFetcher;
+import org.resume.s3filemanager.service.storage.StorageBackend;
+import org.resume.s3filemanager.validation.AllowedFileType;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Сервис чтения содержимого файлов с локальным кэшированием.
+ * <p>
+ * Порядок чтения:
+ * <ul>
+ *   <li>Кэш небольших файлов в памяти вне кучи ({@link OffHeapObjectCache})</li>
+ *   <li>Дисковый кэш узла ({@link DiskDownloadCache})</li>
+ *   <li>Хранилище ({@link StorageBackend}), с заполнением кэшей при полном скачивании;
+ *   одновременные скачивания файла, который примет дисковый кэш, объединяются в один запрос
+ *   ({@link SingleFlightFetcher})</li>
+ * </ul>
+ * Диапазоны при промахе запрашиваются из хранилища напрямую и кэши не заполняют.
+ * Хранилище на локальном диске ({@link StorageBackend#isLocalFilesystem()}) читается напрямую,
+ * минуя кэши.
+ * <p>
+ * Асинхронные варианты ({@code openAsync}, {@code openRangeAsync}) не занимают
+ * поток запроса на время ожидания ответа S3.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FileContentService {
+
+    private final StorageBackend storageBackend;
+    private final DiskDownloadCache diskDownloadCache;
+    private final OffHeapObjectCache offHeapObjectCache;
+    private final SingleFlightFetcher singleFlightFetcher;
+    private final Executor storageExecutor;
+
+    /**
+     * Открывает файл целиком в том виде, в котором он хранится в S3
+     * (сжатые файлы возвращаются без распаковки).
+     *
+     * @param file метаданные файла
+     * @return открытый объект
+     * @throws S3YandexException при ошибке взаимодействия с S3
+     */
+    public StorageObject open(FileDownloadResponse file) {
+        String uniqueName = file.getUniqueName();
+        if (storageBackend.isLocalFilesystem()) {
+            return storageBackend.get(uniqueName);
+        }
+
+        long lastByte = file.getStoredSize() - 1;
+        boolean memoryCacheable = isMemoryCacheable(file);
+
+        return openFromMemory(file, memoryCacheable, 0, lastByte)
+                .orElseGet(() -> {
+                    StorageObject source = diskDownloadCache.open(uniqueName, 0, lastByte)
+                            .orElseGet(() -> fetch(file, () -> storageBackend.get(uniqueName)));
+
+                    return memoryCacheable ? offHeapObjectCache.load(uniqueName, source) : source;
+                });
+    }
+
+    /**
+     * Открывает диапазон байт файла.
+     *
+     * @param file метаданные файла
+     * @param start первый байт диапазона
+     * @param end последний байт диапазона (включительно)
+     * @return открытый диапазон
+     * @throws S3YandexException при ошибке взаимодействия с S3
+     */
+    public StorageObject openRange(FileDownloadResponse file, long start, long end) {
+        String uniqueName = file.getUniqueName();
+        if (storageBackend.isLocalFilesystem()) {
+            return storageBackend.getRange(uniqueName, start, end);
+        }
+
+        return openFromMemory(file, isMemoryCacheable(file), start, end)
+                .or(() -> diskDownloadCache.open(uniqueName, start, end))
+                .orElseGet(() -> storageBackend.getRange(uniqueName, start, end));
+    }
+
+    /**
+     * Асинхронный вариант {@link #open(FileDownloadResponse)}.
+     * <p>
+     * Попадание в кэш возвращает завершенный future. При промахе объект открывается
+     * через {@link StorageBackend#getAsync} в фоне, вызывающий поток не блокируется;
+     * одновременные скачивания кэшируемых объектов объединяются {@link SingleFlightFetcher}.
+     * Общий запрос к S3 при отмене future не прерывается (его могут ждать другие читатели):
+     * открытый объект закрывается, и {@link SingleFlightFetcher} прерывает скачивание,
+     * если читателей не осталось.
+     *
+     * @param file метаданные файла
+     * @return future открытого объекта; завершается {@link S3YandexException} при ошибке S3
+     */
+    public CompletableFuture<StorageObject> openAsync(FileDownloadResponse file) {
+        String uniqueName = file.getUniqueName();
+        if (storageBackend.isLocalFilesystem()) {
+            return storageBackend.getAsync(uniqueName);
+        }
+
+        long lastByte = file.getStoredSize() - 1;
+        boolean memoryCacheable = isMemoryCacheable(file);
+
+        Optional<StorageObject> cached = openFromMemory(file, memoryCacheable, 0, lastByte)
+                .or(() -> diskDownloadCache.open(uniqueName, 0, lastByte)
+                        .map(source -> memoryCacheable ? offHeapObjectCache.load(uniqueName, source) : source));
+        if (cached.isPresent()) {
+            return CompletableFuture.completedFuture(cached.get());
+        }
+        if (!memoryCacheable && !diskDownloadCache.accepts(uniqueName, file.getStoredSize())) {
+            return storageBackend.getAsync(uniqueName);
+        }
+
+        CompletableFuture<StorageObject> result = new CompletableFuture<>();
+        storageExecutor.execute(() -> {
+            try {
+                StorageObject source = fetch(file, () -> await(storageBackend.getAsync(uniqueName)));
+                StorageObject content = memoryCacheable ? offHeapObjectCache.load(uniqueName, source) : source;
+                if (!result.complete(content)) {
+                    content.abort();
+                }
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Асинхронный вариант {@link #openRange(FileDownloadResponse, long, long)}.
+     *
+     * @param file метаданные файла
+     * @param start первый байт диапазона
+     * @param end последний байт диапазона (включительно)
+     * @return future открытого диапазона; завершается {@link S3YandexException} при ошибке S3
+     */
+    public CompletableFuture<StorageObject> openRangeAsync(FileDownloadResponse file, long start, long end) {
+        String uniqueName = file.getUniqueName();
+        if (storageBackend.isLocalFilesystem()) {
+            return storageBackend.getRangeAsync(uniqueName, start, end);
+        }
+
+        return openFromMemory(file, isMemoryCacheable(file), start, end)
+                .or(() -> diskDownloadCache.open(uniqueName, start, end))
+                .map(CompletableFuture::completedFuture)
+                .orElseGet(() -> storageBackend.getRangeAsync(uniqueName, start, end));
+    }
+
+    /**
+     * Удаляет файл из локальных кэшей.
+     *
+     * @param uniqueName уникальное имя файла
+     */
+    public void invalidate(String uniqueName) {
+        offHeapObjectCache.invalidate(uniqueName);
+        diskDownloadCache.invalidate(uniqueName);
+    }
+
+    /**
+     * Открывает объект при промахе кэша. Через {@link SingleFlightFetcher} идут только
+     * объекты, которые примет дисковый кэш: объединение стоит записи всего объекта
+     * во временный файл, и для остальных она была бы лишней.
+     */
+    private StorageObject fetch(FileDownloadResponse file, Supplier<StorageObject> opener) {
+        String uniqueName = file.getUniqueName();
+        return diskDownloadCache.accepts(uniqueName, file.getStoredSize())
+                ? singleFlightFetcher.fetch(uniqueName, opener)
+                : opener.get();
+    }
+
+    /**
+     * Ожидает открытия объекта, пробрасывая ошибку S3 как есть.
+     */
+    private static StorageObject await(CompletableFuture<StorageObject> opening) {
+        try {
+            return opening.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private Optional<StorageObject> openFromMemory(FileDownloadResponse file, boolean memoryCacheable,
+                                                   long start, long end) {
+        return memoryCacheable
+                ? offHeapObjectCache.open(file.getUniqueName(), start, end)
+                : Optional.empty();
+    }
+
+    private boolean isMemoryCacheable(FileDownloadResponse file) {
+        AllowedFileType type = AllowedFileType.find(
+                StringUtils.getFilenameExtension(file.getUniqueName()),
+                file.getContentType()
+        ).orElse(null);
+        return offHeapObjectCache.accepts(type, file.getStoredSize());
+    }
+}
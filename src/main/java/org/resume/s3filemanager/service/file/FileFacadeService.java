@@ -8,26 +8,47 @@ import org.resume.s3filemanager.audit.ResourceType;
 import org.resume.s3filemanager.constant.ErrorMessages;
 import org.resume.s3filemanager.constant.SuccessMessages;
 import org.resume.s3filemanager.constant.ValidationMessages;
+import org.resume.s3filemanager.dto.BulkDeleteResponse;
 import org.resume.s3filemanager.dto.FileDownloadResponse;
+import org.resume.s3filemanager.dto.HashCheckRequest;
+import org.resume.s3filemanager.dto.HashCheckResponse;
 import org.resume.s3filemanager.dto.MultipleUploadResponse;
 import org.resume.s3filemanager.entity.FileMetadata;
 import org.resume.s3filemanager.entity.User;
 import org.resume.s3filemanager.enums.CommonResponseStatus;
 import org.resume.s3filemanager.exception.*;
 import org.resume.s3filemanager.properties.FileUploadProperties;
+import org.resume.s3filemanager.service.compression.GzipCompressingInputStream;
+import org.resume.s3filemanager.service.compression.StorageCompressionService;
+import org.resume.s3filemanager.service.hash.HashingInputStream;
+import org.resume.s3filemanager.service.outbox.StorageOutboxService;
+import org.resume.s3filemanager.service.storage.StorageBackend;
+import org.resume.s3filemanager.service.hash.IncrementalHash;
 import org.resume.s3filemanager.validation.FileValidator;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
 
 /**
  * Фасадный сервис для работы с файлами.
@@ -42,11 +63,16 @@ import java.util.UUID;
 public class FileFacadeService {
 
     private final FileHashService fileHashService;
-    private final YandexStorageService fileStorageService;
+    private final StorageOutboxService storageOutboxService;
+    private final StorageCompressionService storageCompressionService;
+    private final StorageBackend storageBackend;
+    private final FileContentService fileContentService;
+    private final FileStreamingService fileStreamingService;
     private final FileMetadataService fileMetadataService;
     private final FilePermissionService filePermissionService;
     private final FileValidator fileValidator;
     private final FileUploadProperties fileUploadProperties;
+    private final Executor storageExecutor;
 
 
     /**
@@ -72,12 +98,29 @@ public class FileFacadeService {
         uploadFileInternal(file, user);
     }
 
+    /**
+     * Проверяет, какое содержимое уже загружено текущим пользователем.
+     * <p>
+     * Позволяет клиенту не передавать файлы, которые уже есть на сервере:
+     * ответ строится по хешам без чтения содержимого.
+     *
+     * @param request хеши и размеры файлов
+     * @return результат для каждого хеша в порядке запроса
+     */
+    public HashCheckResponse checkExistingHashes(HashCheckRequest request) {
+        User user = filePermissionService.getCurrentUser();
+        return fileHashService.findExisting(request.algorithm(), request.files(), user.getId());
+    }
+
     /**
      * Множественная загрузка файлов (только для администратора).
      * <p>
      * Реализует паттерн частичного успеха: валидные файлы загружаются, в то время как
      * невалидные отклоняются с конкретными сообщениями об ошибках. Хотя бы один файл
      * должен быть успешно загружен.
+     * <p>
+     * Файлы обрабатываются параллельно на виртуальных потоках, одновременно не более
+     * {@code app.multiple-upload.max-concurrency}; порядок результатов совпадает с порядком файлов.
      *
      * @param files массив загружаемых файлов (максимум 5)
      * @return список результатов загрузки для каждого файла со статусом и сообщением
@@ -88,17 +131,23 @@ public class FileFacadeService {
         validateBatchUpload(files);
         User admin = filePermissionService.checkUploadPermission();
 
-        List<MultipleUploadResponse> results = new ArrayList<>();
-        int successCount = 0;
+        Executor executor = new DelegatingSecurityContextExecutor(storageExecutor);
+        Semaphore permits = new Semaphore(fileUploadProperties.getMaxConcurrency());
 
-        for (MultipartFile file : files) {
-            MultipleUploadResponse response = processSingleFile(file, admin);
-            results.add(response);
+        List<CompletableFuture<MultipleUploadResponse>> futures = Arrays.stream(files)
+                .map(file -> CompletableFuture.supplyAsync(
+                        () -> processSingleFileWithPermit(file, admin, permits),
+                        executor
+                ))
+                .toList();
 
-            if (response.status() == CommonResponseStatus.SUCCESS) {
-                successCount++;
-            }
-        }
+        List<MultipleUploadResponse> results = futures.stream()
+                .map(CompletableFuture::join)
+                .toList();
+
+        long successCount = results.stream()
+                .filter(response -> response.status() == CommonResponseStatus.SUCCESS)
+                .count();
 
         if (successCount == 0) {
             throw new MultipleFileUploadException(results);
@@ -110,27 +159,77 @@ public class FileFacadeService {
 
     /**
      * Скачивает файл по уникальному имени
+     * <p>
+     * Возвращает только метаданные для отдачи файла; содержимое читается из S3
+     * потоком в {@link FileStreamingService} с учетом запрошенных диапазонов.
      *
      * @param uniqueName the UUID-based unique filename
-     * @return file download response with content and metadata
+     * @return file download response with metadata and ETag
      * @throws FileNotFoundException if file metadata not found in database
-     * @throws S3YandexException if S3 download fails
      */
     @Auditable(operation = AuditOperation.FILE_DOWNLOAD, resourceType = ResourceType.FILE)
     public FileDownloadResponse downloadFile(String uniqueName) {
-        byte[] data = fileStorageService.downloadFileYandexS3(uniqueName);
-        FileMetadata metadata = fileMetadataService.findByUniqueName(uniqueName);
+        return toDownloadResponse(fileMetadataService.findByUniqueName(uniqueName));
+    }
+
+    /**
+     * Возвращает метаданные файла для условного запроса без записи в аудит.
+     * <p>
+     * Ответ 304 на повторную проверку кэша клиентом не является скачиванием;
+     * скачивание фиксируется в {@link #streamFile}, когда отдается содержимое.
+     *
+     * @param uniqueName уникальное имя файла
+     * @return метаданные файла и ETag
+     * @throws FileNotFoundException если метаданные файла не найдены
+     */
+    public FileDownloadResponse findDownload(String uniqueName) {
+        return toDownloadResponse(fileMetadataService.findByUniqueName(uniqueName));
+    }
+
+    /**
+     * Отдает содержимое файла с учетом запрошенных диапазонов.
+     *
+     * @param file метаданные файла из {@link #findDownload}
+     * @param requestHeaders заголовки HTTP запроса
+     * @return future потокового ответа, см. {@link FileStreamingService#stream}
+     */
+    @Auditable(operation = AuditOperation.FILE_DOWNLOAD, resourceType = ResourceType.FILE)
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> streamFile(FileDownloadResponse file,
+                                                                             HttpHeaders requestHeaders) {
+        return fileStreamingService.stream(file, requestHeaders);
+    }
+
+    /**
+     * Возвращает метаданные нескольких файлов для скачивания архивом.
+     * <p>
+     * Повторяющиеся имена учитываются один раз, порядок сохраняется.
+     *
+     * @param uniqueNames уникальные имена файлов
+     * @return метаданные файлов в порядке запроса
+     * @throws FileNotFoundException если хотя бы один файл не найден
+     */
+    @Auditable(operation = AuditOperation.FILE_DOWNLOAD, resourceType = ResourceType.FILE)
+    public List<FileDownloadResponse> downloadFiles(List<String> uniqueNames) {
+        return fileMetadataService.findAllByUniqueNames(uniqueNames).stream()
+                .map(this::toDownloadResponse)
+                .toList();
+    }
 
+    private FileDownloadResponse toDownloadResponse(FileMetadata metadata) {
         String encodedFileName = URLEncoder.encode(
                 metadata.getOriginalName(),
                 StandardCharsets.UTF_8
         ).replace("+", "%20");
 
         return FileDownloadResponse.builder()
-                .content(data)
+                .uniqueName(metadata.getUniqueName())
                 .fileName(encodedFileName)
+                .originalName(metadata.getOriginalName())
                 .contentType(metadata.getType())
-                .size(data.length)
+                .size(metadata.getSize())
+                .eTag("\"" + metadata.getFileHash() + "\"")
+                .contentEncoding(metadata.getContentEncoding())
+                .storedSize(metadata.getStoredSize() != null ? metadata.getStoredSize() : metadata.getSize())
                 .build();
     }
 
@@ -139,6 +238,7 @@ public class FileFacadeService {
      * <p>
      * Пользователи могут удалять только свои файлы. Администраторы могут удалять любые файлы.
      * Сбрасывает статус загрузки пользователя на NOT_UPLOADED, если владелец удаляет файл.
+     * Объект удаляется из S3 в фоне через outbox.
      *
      * @param uniqueName уникальное имя файла на основе UUID
      * @throws FileNotFoundException если файл не найден
@@ -150,17 +250,61 @@ public class FileFacadeService {
         FileMetadata file = fileMetadataService.findByUniqueName(uniqueName);
         filePermissionService.checkDeletePermission(currentUser, file);
 
-        fileStorageService.deleteFileYandexS3(uniqueName);
         fileMetadataService.deleteFileAndUpdateUserStatus(file);
+        fileContentService.invalidate(uniqueName);
 
         log.info("File deleted successfully: {}", uniqueName);
     }
 
+    /**
+     * Удаляет несколько файлов с проверкой прав владения.
+     * <p>
+     * Метаданные всех файлов читаются и удаляются одним запросом, удаление объектов
+     * записывается в outbox в той же транзакции и выполняется в фоне пачками DeleteObjects.
+     * Результат возвращается для каждого имени: ненайденные и чужие файлы
+     * отмечаются ошибкой и не мешают удалению остальных.
+     *
+     * @param uniqueNames уникальные имена файлов
+     * @return результаты удаления в порядке запроса (повторы учитываются один раз)
+     */
+    @Auditable(operation = AuditOperation.FILE_DELETE, resourceType = ResourceType.FILE)
+    public List<BulkDeleteResponse> deleteFiles(List<String> uniqueNames) {
+        User currentUser = filePermissionService.getCurrentUser();
+        List<String> requested = uniqueNames.stream().distinct().toList();
+        Map<String, FileMetadata> found = fileMetadataService.findExistingByUniqueNames(requested);
+
+        Map<String, String> errors = new HashMap<>();
+        List<FileMetadata> permitted = new ArrayList<>();
+        for (String uniqueName : requested) {
+            FileMetadata file = found.get(uniqueName);
+            if (file == null) {
+                errors.put(uniqueName, ErrorMessages.FILE_NOT_FOUND);
+            } else if (!filePermissionService.canDelete(currentUser, file)) {
+                errors.put(uniqueName, ErrorMessages.ACCESS_DENIED_DELETE_FILE);
+            } else {
+                permitted.add(file);
+            }
+        }
+
+        fileMetadataService.deleteFilesWithObjects(permitted);
+        permitted.forEach(file -> fileContentService.invalidate(file.getUniqueName()));
+
+        log.info("Bulk delete completed: {}/{} deleted", permitted.size(), requested.size());
+        return requested.stream()
+                .map(uniqueName -> errors.containsKey(uniqueName)
+                        ? new BulkDeleteResponse(CommonResponseStatus.ERROR, uniqueName, errors.get(uniqueName))
+                        : new BulkDeleteResponse(CommonResponseStatus.SUCCESS, uniqueName, null))
+                .toList();
+    }
+
     /**
      * Основная логика загрузки файла без проверки прав.
      * <p>
-     * Реализует паттерн Saga: при ошибке сохранения метаданных
-     * выполняется компенсирующая транзакция (удаление из S3).
+     * Файл передается в S3 одним потоковым проходом, хеш вычисляется
+     * параллельно с отправкой. Текстовые файлы по пути сжимаются, хеш при этом
+     * считается по исходному содержимому. Реализует паттерн Saga: при обнаружении дубликата
+     * или ошибке сохранения метаданных выполняется компенсирующая транзакция
+     * (удаление из S3 записывается в outbox и выполняется в фоне).
      *
      * @param file загружаемый файл
      * @param user пользователь-владелец файла
@@ -168,18 +312,15 @@ public class FileFacadeService {
      */
     private String uploadFileInternal(MultipartFile file, User user) {
         String uniqueFileName = generateUniqueFileName(file.getOriginalFilename());
-        byte[] fileBytes = readFileBytes(file);
-        String fileHash = fileHashService.calculateMD5(fileBytes);
-
-        fileHashService.checkDuplicateInDatabase(fileHash, user.getId());
-        fileStorageService.uploadFileYandexS3(uniqueFileName, fileBytes, file.getContentType());
+        StoredContent stored = uploadAndHash(file, uniqueFileName);
 
         try {
-            fileMetadataService.saveFileWithPermission(file, uniqueFileName, fileHash, user);
+            fileHashService.checkDuplicateInDatabase(stored.hash(), user.getId());
+            fileMetadataService.saveFileWithPermission(file, uniqueFileName, stored, user);
             log.info("File uploaded successfully: {}", uniqueFileName);
             return uniqueFileName;
         } catch (Exception e) {
-            log.warn("DB save failed, rolling back S3 upload: {}", uniqueFileName);
+            log.warn("File registration failed, rolling back S3 upload: {}", uniqueFileName);
             compensateS3Upload(uniqueFileName);
             throw e;
         }
@@ -207,6 +348,21 @@ public class FileFacadeService {
         }
     }
 
+    private MultipleUploadResponse processSingleFileWithPermit(MultipartFile file, User admin, Semaphore permits) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return createExceptionErrorResponse(file, e);
+        }
+
+        try {
+            return processSingleFile(file, admin);
+        } finally {
+            permits.release();
+        }
+    }
+
     private void validateBatchUpload(MultipartFile[] files) {
         if (files == null || files.length == 0) {
             throw new IllegalArgumentException(ValidationMessages.FILE_EMPTY);
@@ -246,10 +402,22 @@ public class FileFacadeService {
                 log.error("File read error: {}", file.getOriginalFilename(), e);
                 yield ErrorMessages.FILE_READ_ERROR;
             }
+            case DataIntegrityViolationException ignored -> {
+                log.warn("Concurrent duplicate file: {}", file.getOriginalFilename());
+                yield ErrorMessages.FILE_ALREADY_BEEN_UPLOADED;
+            }
             case S3YandexException ignored -> {
                 log.error("S3 storage error: {}", file.getOriginalFilename(), e);
                 yield ErrorMessages.FILE_STORAGE_ERROR;
             }
+            case LocalStorageException ignored -> {
+                log.error("Local storage error: {}", file.getOriginalFilename(), e);
+                yield ErrorMessages.FILE_STORAGE_ERROR;
+            }
+            case StorageUnavailableException ignored -> {
+                log.warn("Storage unavailable: {}", file.getOriginalFilename());
+                yield ErrorMessages.STORAGE_UNAVAILABLE;
+            }
             default -> {
                 log.error("Unexpected error uploading file: {}", file.getOriginalFilename(), e);
                 yield ErrorMessages.UNEXPECTED_ERROR;
@@ -265,25 +433,34 @@ public class FileFacadeService {
     }
 
     // Helper methods
-    private byte[] readFileBytes(MultipartFile file) {
-        try {
-            return file.getBytes();
+    private StoredContent uploadAndHash(MultipartFile file, String uniqueFileName) {
+        IncrementalHash hash = fileHashService.newHash();
+        String encoding = storageCompressionService.encodingFor(
+                file.getOriginalFilename(), file.getContentType(), file.getSize());
+        long storedSize = file.getSize();
+
+        try (InputStream content = new HashingInputStream(file.getInputStream(), hash)) {
+            if (encoding == null) {
+                storageBackend.put(uniqueFileName, content, file.getSize(), file.getContentType(), null);
+            } else {
+                GzipCompressingInputStream compressed = storageCompressionService.compress(content);
+                storageBackend.put(uniqueFileName, compressed, -1, file.getContentType(), encoding);
+                storedSize = compressed.getCompressedSize();
+                log.debug("File stored compressed: {} ({} -> {} bytes)", uniqueFileName, file.getSize(), storedSize);
+            }
         } catch (IOException ex) {
             log.error("Failed to read file: {}", file.getOriginalFilename(), ex);
             throw new FileReadException(ex, file.getOriginalFilename());
         }
+
+        return new StoredContent(fileHashService.complete(hash), encoding, storedSize);
     }
 
     private void compensateS3Upload(String fileName) {
-        try {
-            fileStorageService.deleteFileYandexS3(fileName);
-            log.info("Successfully rolled back S3 upload: {}", fileName);
-        } catch (Exception ex) {
-            log.error("Failed to rollback S3 upload: {}", fileName, ex);
-        }
+        storageOutboxService.enqueueCompensation(fileName);
     }
 
-    private String generateUniqueFileName(String originalFilename) {
+    static String generateUniqueFileName(String originalFilename) {
         String extension = StringUtils.getFilenameExtension(originalFilename);
         extension = (extension != null && !extension.isBlank()) ? extension : "tmp";
         return UUID.randomUUID() + "." + extension;
@@ -1,46 +1,202 @@
 package org.resume.s3filemanager.service.file;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.util.DigestUtils;
+import org.resume.s3filemanager.dto.HashCheckRequest;
+import org.resume.s3filemanager.dto.HashCheckResponse;
+import org.resume.s3filemanager.entity.FileMetadata;
+import org.resume.s3filemanager.enums.HashAlgorithm;
 import org.resume.s3filemanager.exception.DuplicateFileException;
+import org.resume.s3filemanager.properties.HashingProperties;
 import org.resume.s3filemanager.repository.FileMetadataRepository;
+import org.resume.s3filemanager.service.hash.ContentHash;
+import org.resume.s3filemanager.service.hash.HashingInputStream;
+import org.resume.s3filemanager.service.hash.HashingStrategy;
+import org.resume.s3filemanager.service.hash.IncrementalHash;
+import org.resume.s3filemanager.service.hash.MessageDigestHashingStrategy;
+import org.resume.s3filemanager.service.hash.TreeHashingStrategy;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 /**
  * Сервис для вычисления хеша файлов и обнаружения дубликатов.
  * <p>
- * Использует MD5 хеширование для идентификации дубликатов файлов
- * в рамках каждого пользователя отдельно.
+ * Хеш вычисляется инкрементально, пока содержимое файла передается в хранилище.
+ * Алгоритм задается {@code app.hashing.algorithm} и сохраняется рядом с хешем;
+ * дубликаты ищутся в рамках каждого пользователя отдельно.
+ * <p>
+ * Файл, принятый по частям на разных запросах, можно хешировать по частям только
+ * деревом SHA-256: состояние последовательного хеша нельзя передать между запросами и узлами.
+ *
+ * @see HashingStrategy
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
+@EnableConfigurationProperties(HashingProperties.class)
 public class FileHashService {
 
     private final FileMetadataRepository fileMetadataRepository;
+    private final HashingStrategy hashingStrategy;
+
+    public FileHashService(FileMetadataRepository fileMetadataRepository, HashingProperties properties,
+                           Executor storageExecutor) {
+        this.fileMetadataRepository = fileMetadataRepository;
+        this.hashingStrategy = createStrategy(properties, storageExecutor);
+        log.info("Content hashing algorithm: {}", hashingStrategy.algorithm());
+    }
+
+    /**
+     * Создает новый хеш для инкрементального хеширования потока.
+     *
+     * @return новый экземпляр {@link IncrementalHash} настроенного алгоритма
+     */
+    public IncrementalHash newHash() {
+        return hashingStrategy.newHash();
+    }
+
+    /**
+     * Возвращает алгоритм, которым хешируются новые файлы.
+     *
+     * @return настроенный алгоритм
+     */
+    public HashAlgorithm getAlgorithm() {
+        return hashingStrategy.algorithm();
+    }
+
+    /**
+     * Завершает вычисление хеша.
+     *
+     * @param hash хеш, через который прошло все содержимое файла
+     * @return хеш вместе с алгоритмом
+     */
+    public ContentHash complete(IncrementalHash hash) {
+        return new ContentHash(hashingStrategy.algorithm(), hash.finish());
+    }
+
+    /**
+     * Можно ли хешировать файл частями заданного размера.
+     *
+     * @param partSize размер каждой части файла, кроме последней
+     * @return {@code true}, если настроен {@link HashAlgorithm#SHA256_TREE}
+     *         и размер кратен {@code app.hashing.tree-chunk-size}
+     */
+    public boolean supportsParts(long partSize) {
+        return hashingStrategy instanceof TreeHashingStrategy tree && tree.supportsParts(partSize);
+    }
 
     /**
-     * Вычисляет MD5 хеш содержимого файла.
+     * Создает хеш одной части файла, принимаемого по частям.
      *
-     * @param fileBytes содержимое файла в виде массива байт
-     * @return MD5 хеш в виде шестнадцатеричной строки
+     * @return новый хеш части; {@link IncrementalHash#finish()} возвращает промежуточный результат
+     * @throws IllegalStateException если настроенный алгоритм не поддерживает хеширование по частям
      */
-    public String calculateMD5(byte[] fileBytes) {
-        return DigestUtils.md5DigestAsHex(fileBytes);
+    public IncrementalHash newPartHash() {
+        return treeStrategy().newPartHash();
+    }
+
+    /**
+     * Собирает хеш файла из хешей его частей.
+     *
+     * @param partHashes результаты {@link #newPartHash()} в порядке частей
+     * @return хеш вместе с алгоритмом
+     * @throws IllegalStateException если настроенный алгоритм не поддерживает хеширование по частям
+     */
+    public ContentHash combineParts(List<String> partHashes) {
+        TreeHashingStrategy tree = treeStrategy();
+        return new ContentHash(tree.algorithm(), tree.combineParts(partHashes));
+    }
+
+    /**
+     * Хеширует содержимое потока целиком.
+     *
+     * @param content поток с содержимым файла; не закрывается
+     * @return хеш вместе с алгоритмом
+     * @throws IOException при ошибке чтения потока
+     */
+    public ContentHash hash(InputStream content) throws IOException {
+        IncrementalHash hash = newHash();
+        new HashingInputStream(content, hash).transferTo(OutputStream.nullOutputStream());
+        return complete(hash);
     }
 
     /**
      * Проверяет наличие файла с заданным хешем у пользователя.
      *
-     * @param fileHash MD5 хеш файла
+     * @param fileHash хеш файла
      * @param userId идентификатор пользователя для проверки дубликатов
      * @throws DuplicateFileException если дубликат найден у данного пользователя
      */
-    public void checkDuplicateInDatabase(String fileHash, Long userId) {
-        if (fileMetadataRepository.existsByFileHashAndUserId(fileHash, userId)) {
-            log.warn("Duplicate file detected with hash: {} for user: {}", fileHash, userId);
+    public void checkDuplicateInDatabase(ContentHash fileHash, Long userId) {
+        if (fileMetadataRepository.existsByFileHashAndHashAlgorithmAndUserId(
+                fileHash.value(), fileHash.algorithm(), userId)) {
+            log.warn("Duplicate file detected with hash: {} for user: {}", fileHash.value(), userId);
             throw new DuplicateFileException();
         }
     }
+
+    /**
+     * Ищет среди файлов пользователя содержимое с указанными хешами.
+     * <p>
+     * Выполняется одним запросом по индексу {@code (file_hash, user_id)};
+     * файл считается найденным, только если совпадает и размер.
+     *
+     * @param algorithm алгоритм хешей; {@code null} — алгоритм сервера
+     * @param files хеши и размеры файлов
+     * @param userId идентификатор пользователя
+     * @return результат для каждого хеша в порядке запроса
+     */
+    public HashCheckResponse findExisting(HashAlgorithm algorithm, List<HashCheckRequest.Item> files, Long userId) {
+        HashAlgorithm effectiveAlgorithm = algorithm != null ? algorithm : getAlgorithm();
+        Set<String> hashes = files.stream()
+                .map(file -> file.hash().toLowerCase(Locale.ROOT))
+                .collect(Collectors.toSet());
+
+        Map<String, FileMetadata> existing = fileMetadataRepository
+                .findAllByUserIdAndHashAlgorithmAndFileHashIn(userId, effectiveAlgorithm, hashes)
+                .stream()
+                .collect(Collectors.toMap(FileMetadata::getFileHash, Function.identity(), (first, second) -> first));
+
+        List<HashCheckResponse.Result> results = files.stream()
+                .map(file -> {
+                    String hash = file.hash().toLowerCase(Locale.ROOT);
+                    FileMetadata metadata = existing.get(hash);
+                    boolean exists = metadata != null && metadata.getSize() == file.size();
+                    return new HashCheckResponse.Result(hash, file.size(), exists,
+                            exists ? metadata.getUniqueName() : null);
+                })
+                .toList();
+
+        log.debug("Hash check for user {}: {} of {} known", userId, existing.size(), hashes.size());
+        return new HashCheckResponse(effectiveAlgorithm, results);
+    }
+
+    private static HashingStrategy createStrategy(HashingProperties properties, Executor executor) {
+        return switch (properties.getAlgorithm()) {
+            case MD5 -> new MessageDigestHashingStrategy(HashAlgorithm.MD5, "MD5");
+            case SHA256 -> new MessageDigestHashingStrategy(HashAlgorithm.SHA256, "SHA-256");
+            case SHA256_TREE -> new TreeHashingStrategy(
+                    (int) properties.getTreeChunkSize().toBytes(),
+                    properties.getTreeMaxConcurrency(),
+                    executor
+            );
+        };
+    }
+
+    private TreeHashingStrategy treeStrategy() {
+        if (hashingStrategy instanceof TreeHashingStrategy tree) {
+            return tree;
+        }
+        throw new IllegalStateException("Part hashing requires " + HashAlgorithm.SHA256_TREE
+                + ", configured: " + hashingStrategy.algorithm());
+    }
 }
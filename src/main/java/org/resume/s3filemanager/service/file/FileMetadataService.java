@@ -9,9 +9,20 @@ import org.resume.s3filemanager.enums.FileUploadStatus;
 import org.resume.s3filemanager.exception.FileNotFoundException;
 import org.resume.s3filemanager.repository.FileMetadataRepository;
 import org.resume.s3filemanager.service.auth.UserService;
+import org.resume.s3filemanager.service.hash.ContentHash;
+import org.resume.s3filemanager.service.outbox.StorageOutboxService;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 /**
  * Сервис для управления метаданными файлов в базе данных.
  * <p>
@@ -26,6 +37,7 @@ public class FileMetadataService {
     private final FileMetadataRepository fileMetadataRepository;
     private final FilePermissionService fileUploadPermissionService;
     private final UserService userService;
+    private final StorageOutboxService storageOutboxService;
 
     /**
      * Сохраняет метаданные файла в базу данных с привязкой к пользователю.
@@ -34,17 +46,46 @@ public class FileMetadataService {
      *
      * @param file загруженный файл
      * @param uniqueFileName сгенерированное уникальное имя файла (на основе UUID)
-     * @param fileHash MD5 хеш содержимого файла
+     * @param stored хеш содержимого и параметры объекта в хранилище
      * @param user пользователь, загрузивший файл
      */
     public void saveDatabaseMetadata(MultipartFile file, String uniqueFileName,
-                                     String fileHash, User user) {
+                                     StoredContent stored, User user) {
         FileMetadata metadata = FileMetadata.builder()
                 .uniqueName(uniqueFileName)
                 .originalName(file.getOriginalFilename())
                 .type(file.getContentType())
                 .size(file.getSize())
-                .fileHash(fileHash)
+                .fileHash(stored.hash().value())
+                .hashAlgorithm(stored.hash().algorithm())
+                .contentEncoding(stored.contentEncoding())
+                .storedSize(stored.storedSize())
+                .user(user)
+                .build();
+
+        fileMetadataRepository.save(metadata);
+    }
+
+    /**
+     * Сохраняет метаданные файла, загруженного в хранилище минуя приложение.
+     *
+     * @param originalName оригинальное имя файла
+     * @param contentType MIME-тип файла
+     * @param size размер файла в байтах
+     * @param uniqueFileName уникальное имя файла (ключ объекта в S3)
+     * @param fileHash хеш содержимого файла
+     * @param user пользователь, загрузивший файл
+     */
+    public void saveDatabaseMetadata(String originalName, String contentType, long size,
+                                     String uniqueFileName, ContentHash fileHash, User user) {
+        FileMetadata metadata = FileMetadata.builder()
+                .uniqueName(uniqueFileName)
+                .originalName(originalName)
+                .type(contentType)
+                .size(size)
+                .fileHash(fileHash.value())
+                .hashAlgorithm(fileHash.algorithm())
+                .storedSize(size)
                 .user(user)
                 .build();
 
@@ -55,6 +96,7 @@ public class FileMetadataService {
      * Удаляет метаданные файла и обновляет статус загрузки пользователя.
      * <p>
      * Сбрасывает статус пользователя на NOT_UPLOADED, позволяя загружать новые файлы.
+     * Удаление объекта из S3 записывается в outbox в той же транзакции.
      *
      * @param file метаданные файла для удаления
      */
@@ -62,11 +104,55 @@ public class FileMetadataService {
     public void deleteFileAndUpdateUserStatus(FileMetadata file) {
         deleteDatabaseMetadata(file.getUniqueName());
         userService.updateUploadStatus(file.getUser(), FileUploadStatus.NOT_UPLOADED);
+        storageOutboxService.enqueueDelete(file.getUniqueName());
     }
 
+    /**
+     * Удаляет метаданные нескольких файлов вместе с объектами.
+     * <p>
+     * Удаление объектов из S3 записывается в outbox в той же транзакции.
+     *
+     * @param files метаданные удаляемых файлов
+     * @return число удаленных записей
+     */
+    @Transactional
+    public int deleteFilesWithObjects(Collection<FileMetadata> files) {
+        int deleted = deleteFilesAndUpdateUserStatuses(files);
+        storageOutboxService.enqueueDeletes(files.stream().map(FileMetadata::getUniqueName).toList());
+        return deleted;
+    }
+
+    /**
+     * Удаляет метаданные нескольких файлов одним запросом и сбрасывает статус загрузки
+     * их владельцев, у которых он был FILE_UPLOADED.
+     *
+     * @param files метаданные удаляемых файлов
+     * @return число удаленных записей
+     */
     @Transactional
-    public void saveFileWithPermission(MultipartFile file, String uniqueFileName, String fileHash, User user) {
-        saveDatabaseMetadata(file, uniqueFileName, fileHash, user);
+    public int deleteFilesAndUpdateUserStatuses(Collection<FileMetadata> files) {
+        if (files.isEmpty()) {
+            return 0;
+        }
+
+        Set<String> uniqueNames = files.stream().map(FileMetadata::getUniqueName).collect(Collectors.toSet());
+        Set<Long> ownerIds = files.stream().map(file -> file.getUser().getId()).collect(Collectors.toSet());
+
+        int deleted = fileMetadataRepository.deleteAllByUniqueNameIn(uniqueNames);
+        userService.resetUploadStatuses(ownerIds);
+        return deleted;
+    }
+
+    @Transactional
+    public void saveFileWithPermission(MultipartFile file, String uniqueFileName, StoredContent stored, User user) {
+        saveDatabaseMetadata(file, uniqueFileName, stored, user);
+        fileUploadPermissionService.markFileUploaded();
+    }
+
+    @Transactional
+    public void saveFileWithPermission(String originalName, String contentType, long size,
+                                       String uniqueFileName, ContentHash fileHash, User user) {
+        saveDatabaseMetadata(originalName, contentType, size, uniqueFileName, fileHash, user);
         fileUploadPermissionService.markFileUploaded();
     }
 
@@ -79,6 +165,40 @@ public class FileMetadataService {
         }
     }
 
+    /**
+     * Находит метаданные нескольких файлов одним запросом.
+     *
+     * @param uniqueFileNames уникальные имена файлов
+     * @return метаданные без повторов в порядке первого вхождения имени
+     * @throws FileNotFoundException если хотя бы один файл не найден
+     */
+    public List<FileMetadata> findAllByUniqueNames(Collection<String> uniqueFileNames) {
+        Set<String> names = new LinkedHashSet<>(uniqueFileNames);
+        Map<String, FileMetadata> found = findExistingByUniqueNames(names);
+
+        List<FileMetadata> result = new ArrayList<>(names.size());
+        for (String name : names) {
+            FileMetadata metadata = found.get(name);
+            if (metadata == null) {
+                log.warn("File not found: {}", name);
+                throw new FileNotFoundException(name);
+            }
+            result.add(metadata);
+        }
+        return result;
+    }
+
+    /**
+     * Находит метаданные тех файлов из набора, которые существуют.
+     *
+     * @param uniqueFileNames уникальные имена файлов
+     * @return найденные метаданные по уникальному имени
+     */
+    public Map<String, FileMetadata> findExistingByUniqueNames(Collection<String> uniqueFileNames) {
+        return fileMetadataRepository.findAllByUniqueNameIn(uniqueFileNames).stream()
+                .collect(Collectors.toMap(FileMetadata::getUniqueName, Function.identity()));
+    }
+
     public FileMetadata findByUniqueName(String uniqueFileName) {
         return fileMetadataRepository.findByUniqueName(uniqueFileName)
                 .orElseThrow(() -> {
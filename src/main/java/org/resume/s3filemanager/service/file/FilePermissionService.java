@@ -64,14 +64,24 @@ public class FilePermissionService {
      * @throws FileAccessDeniedException если пользователь пытается удалить чужой файл
      */
     public void checkDeletePermission(User currentUser, FileMetadata file) {
-        boolean isAdmin = currentUser.getRole() == UserRole.ADMIN;
-        boolean isOwner = file.getUser().getId().equals(currentUser.getId());
-
-        if (!isAdmin && !isOwner) {
+        if (!canDelete(currentUser, file)) {
             throw new FileAccessDeniedException();
         }
     }
 
+    /**
+     * Проверяет право удаления файла без исключения.
+     *
+     * @param currentUser текущий пользователь
+     * @param file метаданные файла
+     * @return true если пользователь — администратор или владелец файла
+     */
+    public boolean canDelete(User currentUser, FileMetadata file) {
+        boolean isAdmin = currentUser.getRole() == UserRole.ADMIN;
+        boolean isOwner = file.getUser().getId().equals(currentUser.getId());
+        return isAdmin || isOwner;
+    }
+
 
     /**
      * Помечает файл как загруженный для текущего пользователя.
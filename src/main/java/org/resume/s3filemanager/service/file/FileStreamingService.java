@@ -0,0 +1,350 @@
+package org.resume.s3filemanager.service.file;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.resume.s3filemanager.dto.FileDownloadResponse;
+import org.resume.s3filemanager.exception.S3YandexException;
+import org.resume.s3filemanager.properties.CacheControlProperties;
+import org.resume.s3filemanager.service.compression.StorageCompressionService;
+import org.resume.s3filemanager.validation.AllowedFileType;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Сервис потоковой отдачи содержимого файлов клиенту.
+ * <p>
+ * Поддерживает запросы диапазонов (RFC 9110): заголовок {@code Range} превращается
+ * в чтение диапазона из локального кэша или ranged GET запрос к S3, поэтому перемотка
+ * медиафайлов и докачка стоят ровно столько байт, сколько запрошено. Заголовок {@code If-Range} сравнивается
+ * с ETag файла; при несовпадении отдается файл целиком.
+ * <p>
+ * ETag строится по хешу содержимого. Если клиент прислал совпадающий {@code If-None-Match},
+ * ответ 304 формируется по метаданным без обращения к S3. Cache-Control задается
+ * для каждого {@link AllowedFileType} через {@link CacheControlProperties}.
+ * <ul>
+ *   <li>Совпадающий If-None-Match — 304 без тела</li>
+ *   <li>Без диапазона — 200 и весь объект</li>
+ *   <li>Один диапазон — 206 с {@code Content-Range}</li>
+ *   <li>Несколько диапазонов — 206 с {@code multipart/byteranges}</li>
+ *   <li>Недопустимый диапазон — 416 с {@code Content-Range: bytes *}{@code /size}</li>
+ *   <li>Сжатый в хранилище файл — 200 целиком, с {@code Content-Encoding} или распакованный</li>
+ * </ul>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@EnableConfigurationProperties(CacheControlProperties.class)
+public class FileStreamingService {
+
+    private static final String BYTES_UNIT = "bytes";
+    private static final String CRLF = "\r\n";
+    private static final String WEAK_ETAG_PREFIX = "W/";
+
+    private final FileContentService fileContentService;
+    private final StorageCompressionService storageCompressionService;
+    private final CacheControlProperties cacheControlProperties;
+
+    /**
+     * Формирует потоковый ответ с содержимым файла с учетом заголовков запроса.
+     *
+     * @param file метаданные скачиваемого файла
+     * @param requestHeaders заголовки HTTP запроса ({@code If-None-Match}, {@code Range}, {@code If-Range})
+     * @return future ответа с потоковым телом; завершается, когда объект открыт в хранилище,
+     *         и завершается {@link S3YandexException} при ошибке открытия объекта в S3.
+     *         Отмена future прерывает открытие объекта
+     */
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> stream(FileDownloadResponse file,
+                                                                         HttpHeaders requestHeaders) {
+        Optional<ResponseEntity<StreamingResponseBody>> notModified = notModified(file, requestHeaders);
+        if (notModified.isPresent()) {
+            return CompletableFuture.completedFuture(notModified.get());
+        }
+        if (file.getContentEncoding() != null) {
+            return encodedContent(file, requestHeaders);
+        }
+
+        List<HttpRange> ranges;
+        try {
+            ranges = resolveRanges(file, requestHeaders);
+        } catch (IllegalArgumentException e) {
+            log.debug("Unsatisfiable range for {}: {}", file.getUniqueName(), e.getMessage());
+            return CompletableFuture.completedFuture(ResponseEntity
+                    .status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header(HttpHeaders.CONTENT_RANGE, BYTES_UNIT + " */" + file.getSize())
+                    .build());
+        }
+
+        if (ranges.isEmpty()) {
+            return fullContent(file);
+        }
+        if (ranges.size() == 1) {
+            return singleRange(file, ranges.getFirst());
+        }
+        return CompletableFuture.completedFuture(multipleRanges(file, ranges));
+    }
+
+    /**
+     * Формирует ответ 304, если клиент прислал {@code If-None-Match}, совпадающий
+     * с ETag отдаваемого представления. Решение принимается по метаданным, без обращения к хранилищу.
+     *
+     * @param file метаданные файла
+     * @param requestHeaders заголовки HTTP запроса ({@code If-None-Match}, {@code Accept-Encoding})
+     * @return ответ 304 или пустой Optional, если клиенту нужно отдать содержимое
+     */
+    public Optional<ResponseEntity<StreamingResponseBody>> notModified(FileDownloadResponse file,
+                                                                       HttpHeaders requestHeaders) {
+        if (file.getContentEncoding() != null) {
+            HttpHeaders headers = encodedHeaders(file, acceptsStoredEncoding(file, requestHeaders));
+            if (!matchesIfNoneMatch(headers.getETag(), requestHeaders.getIfNoneMatch())) {
+                return Optional.empty();
+            }
+            return Optional.of(ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .headers(headers)
+                    .build());
+        }
+        if (!matchesIfNoneMatch(file.getETag(), requestHeaders.getIfNoneMatch())) {
+            return Optional.empty();
+        }
+        return Optional.of(ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(file.getETag())
+                .cacheControl(cacheControlFor(file))
+                .build());
+    }
+
+    private CompletableFuture<ResponseEntity<StreamingResponseBody>> fullContent(FileDownloadResponse file) {
+        return cancellable(fileContentService.openAsync(file), content -> ResponseEntity.ok()
+                .headers(commonHeaders(file))
+                .contentLength(content.contentLength())
+                .header(HttpHeaders.CONTENT_TYPE, file.getContentType())
+                .body(new StorageResponseBody(content)));
+    }
+
+    /**
+     * Отдает файл, сохраненный в хранилище сжатым.
+     * <p>
+     * Если клиент принимает кодировку хранения, объект отдается как есть с {@code Content-Encoding},
+     * иначе распаковывается на лету. Представления различаются ETag (суффикс кодировки)
+     * и заголовком {@code Vary}. Диапазоны для таких файлов не поддерживаются,
+     * заголовок {@code Range} игнорируется и отдается файл целиком.
+     */
+    private CompletableFuture<ResponseEntity<StreamingResponseBody>> encodedContent(FileDownloadResponse file,
+                                                                                    HttpHeaders requestHeaders) {
+        boolean passthrough = acceptsStoredEncoding(file, requestHeaders);
+        HttpHeaders headers = encodedHeaders(file, passthrough);
+        if (passthrough) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, file.getContentEncoding());
+        }
+        return cancellable(fileContentService.openAsync(file), stored -> {
+            StorageObject content = passthrough
+                    ? stored
+                    : storageCompressionService.decode(stored, file.getUniqueName(), file.getSize());
+            return ResponseEntity.ok()
+                    .headers(headers)
+                    .contentLength(content.contentLength())
+                    .header(HttpHeaders.CONTENT_TYPE, file.getContentType())
+                    .body(new StorageResponseBody(content));
+        });
+    }
+
+    private boolean acceptsStoredEncoding(FileDownloadResponse file, HttpHeaders requestHeaders) {
+        return storageCompressionService.accepts(
+                requestHeaders.getOrEmpty(HttpHeaders.ACCEPT_ENCODING), file.getContentEncoding());
+    }
+
+    /**
+     * Заголовки представления сжатого файла: ETag с суффиксом кодировки при отдаче как есть,
+     * {@code Vary: Accept-Encoding}, диапазоны не поддерживаются.
+     */
+    private HttpHeaders encodedHeaders(FileDownloadResponse file, boolean passthrough) {
+        HttpHeaders headers = commonHeaders(file);
+        headers.set(HttpHeaders.ACCEPT_RANGES, "none");
+        headers.setETag(passthrough ? encodedETag(file.getETag(), file.getContentEncoding()) : file.getETag());
+        headers.setVary(List.of(HttpHeaders.ACCEPT_ENCODING));
+        return headers;
+    }
+
+    private CompletableFuture<ResponseEntity<StreamingResponseBody>> singleRange(FileDownloadResponse file,
+                                                                                 HttpRange range) {
+        long start = range.getRangeStart(file.getSize());
+        long end = range.getRangeEnd(file.getSize());
+
+        return cancellable(fileContentService.openRangeAsync(file, start, end), content -> ResponseEntity
+                .status(HttpStatus.PARTIAL_CONTENT)
+                .headers(commonHeaders(file))
+                .contentLength(content.contentLength())
+                .header(HttpHeaders.CONTENT_TYPE, file.getContentType())
+                .header(HttpHeaders.CONTENT_RANGE, contentRange(start, end, file.getSize()))
+                .body(new StorageResponseBody(content)));
+    }
+
+    /**
+     * Строит ответ по открытому объекту. Отмена результата передается в открытие объекта;
+     * если ответ построить не удалось или он уже не нужен, объект прерывается.
+     */
+    private CompletableFuture<ResponseEntity<StreamingResponseBody>> cancellable(
+            CompletableFuture<StorageObject> opening,
+            Function<StorageObject, ResponseEntity<StreamingResponseBody>> response) {
+        CompletableFuture<ResponseEntity<StreamingResponseBody>> result = opening.thenApply(content -> {
+            try {
+                return response.apply(content);
+            } catch (RuntimeException e) {
+                content.abort();
+                throw e;
+            }
+        });
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                opening.cancel(true);
+                opening.thenAccept(StorageObject::abort);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Отдает несколько диапазонов в формате {@code multipart/byteranges}.
+     * <p>
+     * Диапазоны открываются в S3 последовательно по мере записи ответа (в потоке
+     * записи тела, а не запроса), одновременно открыт только один из них.
+     */
+    private ResponseEntity<StreamingResponseBody> multipleRanges(FileDownloadResponse file, List<HttpRange> ranges) {
+        String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+        String partContentType = file.getContentType() != null
+                ? file.getContentType()
+                : MediaType.APPLICATION_OCTET_STREAM_VALUE;
+
+        List<byte[]> partHeaders = new ArrayList<>(ranges.size());
+        long contentLength = 0;
+        for (HttpRange range : ranges) {
+            long start = range.getRangeStart(file.getSize());
+            long end = range.getRangeEnd(file.getSize());
+            byte[] header = (CRLF + "--" + boundary + CRLF
+                    + HttpHeaders.CONTENT_TYPE + ": " + partContentType + CRLF
+                    + HttpHeaders.CONTENT_RANGE + ": " + contentRange(start, end, file.getSize()) + CRLF
+                    + CRLF).getBytes(StandardCharsets.US_ASCII);
+            partHeaders.add(header);
+            contentLength += header.length + (end - start + 1);
+        }
+        byte[] closingBoundary = (CRLF + "--" + boundary + "--" + CRLF).getBytes(StandardCharsets.US_ASCII);
+        contentLength += closingBoundary.length;
+
+        StreamingResponseBody body = outputStream -> {
+            for (int i = 0; i < ranges.size(); i++) {
+                HttpRange range = ranges.get(i);
+                outputStream.write(partHeaders.get(i));
+                fileContentService.openRange(
+                        file,
+                        range.getRangeStart(file.getSize()),
+                        range.getRangeEnd(file.getSize())
+                ).transferTo(outputStream);
+            }
+            outputStream.write(closingBoundary);
+        };
+
+        return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                .headers(commonHeaders(file))
+                .contentLength(contentLength)
+                .header(HttpHeaders.CONTENT_TYPE, "multipart/byteranges; boundary=" + boundary)
+                .body(body);
+    }
+
+    /**
+     * Разбирает заголовок {@code Range} с учетом {@code If-Range}.
+     *
+     * {@link HttpRange#getRangeStart} не проверяет начало диапазона, поэтому диапазон,
+     * начинающийся за концом файла, и любой диапазон пустого файла отклоняются здесь.
+     *
+     * @return пустой список, если нужно отдать файл целиком
+     * @throws IllegalArgumentException если диапазон некорректен или не пересекается с файлом
+     */
+    private List<HttpRange> resolveRanges(FileDownloadResponse file, HttpHeaders requestHeaders) {
+        String rangeHeader = requestHeaders.getFirst(HttpHeaders.RANGE);
+        if (rangeHeader == null || !matchesIfRange(file, requestHeaders.getFirst(HttpHeaders.IF_RANGE))) {
+            return List.of();
+        }
+
+        List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+        long size = file.getSize();
+        long requestedBytes = 0;
+        for (HttpRange range : ranges) {
+            long start = range.getRangeStart(size);
+            if (size == 0 || start >= size) {
+                throw new IllegalArgumentException("Range starts beyond content length: " + start);
+            }
+            requestedBytes += range.getRangeEnd(size) - start + 1;
+        }
+        if (ranges.size() > 1 && requestedBytes > size) {
+            throw new IllegalArgumentException("Requested ranges exceed content length");
+        }
+        return ranges;
+    }
+
+    /**
+     * Проверяет условие {@code If-Range}: диапазон применяется только при строгом
+     * совпадении ETag. Дата в {@code If-Range} не поддерживается и приводит к отдаче файла целиком.
+     */
+    private boolean matchesIfRange(FileDownloadResponse file, String ifRange) {
+        return ifRange == null || ifRange.equals(file.getETag());
+    }
+
+    /**
+     * Проверяет условие {@code If-None-Match} слабым сравнением ETag (RFC 9110, 13.1.2).
+     */
+    private boolean matchesIfNoneMatch(String currentETag, List<String> ifNoneMatch) {
+        for (String eTag : ifNoneMatch) {
+            if ("*".equals(eTag) || stripWeakPrefix(eTag).equals(currentETag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String encodedETag(String eTag, String encoding) {
+        return eTag.substring(0, eTag.length() - 1) + "-" + encoding + "\"";
+    }
+
+    private String stripWeakPrefix(String eTag) {
+        return eTag.startsWith(WEAK_ETAG_PREFIX) ? eTag.substring(WEAK_ETAG_PREFIX.length()) : eTag;
+    }
+
+    private CacheControl cacheControlFor(FileDownloadResponse file) {
+        AllowedFileType type = AllowedFileType.find(
+                StringUtils.getFilenameExtension(file.getUniqueName()),
+                file.getContentType()
+        ).orElse(null);
+
+        Duration maxAge = cacheControlProperties.maxAgeFor(type);
+        CacheControl cacheControl = maxAge.isZero() ? CacheControl.noCache() : CacheControl.maxAge(maxAge);
+        return cacheControl.cachePrivate();
+    }
+
+    private HttpHeaders commonHeaders(FileDownloadResponse file) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT_RANGES, BYTES_UNIT);
+        headers.setETag(file.getETag());
+        headers.setCacheControl(cacheControlFor(file));
+        headers.set(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename*=UTF-8''" + file.getFileName());
+        return headers;
+    }
+
+    private String contentRange(long start, long end, long size) {
+        return BYTES_UNIT + " " + start + "-" + end + "/" + size;
+    }
+}
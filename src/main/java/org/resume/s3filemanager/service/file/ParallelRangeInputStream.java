@@ -0,0 +1,215 @@
+package org.resume.s3filemanager.service.file;
+
+import software.amazon.awssdk.http.Abortable;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Поток, собирающий объект из нескольких параллельных ranged GET запросов.
+ * <p>
+ * Первая часть объекта читается напрямую из уже открытого ответа S3, следующие части
+ * скачиваются заранее в пределах окна из {@code maxConcurrency} частей и отдаются
+ * строго по порядку. Одновременно в памяти находится не более окна частей.
+ * <p>
+ * При закрытии или прерывании потока запросы окна прерываются: уже открытые ответы
+ * прерываются через {@link Abortable}, а еще не начатые не отправляются.
+ */
+class ParallelRangeInputStream extends InputStream implements Abortable {
+
+    /**
+     * Загрузчик диапазона байт объекта (границы включительно).
+     * Возвращаемый поток должен реализовывать {@link Abortable}, чтобы загрузку можно было прервать.
+     */
+    @FunctionalInterface
+    interface RangeFetcher {
+        InputStream open(long start, long end);
+    }
+
+    private final long totalLength;
+    private final long partSize;
+    private final int maxConcurrency;
+    private final RangeFetcher fetcher;
+    private final Executor executor;
+    private final Deque<RangePart> window = new ArrayDeque<>();
+
+    private InputStream current;
+    private long nextRangeStart;
+    private boolean closed;
+
+    ParallelRangeInputStream(InputStream firstPart, long totalLength, long partSize,
+                             int maxConcurrency, RangeFetcher fetcher, Executor executor) {
+        this.current = firstPart;
+        this.totalLength = totalLength;
+        this.partSize = partSize;
+        this.maxConcurrency = maxConcurrency;
+        this.fetcher = fetcher;
+        this.executor = executor;
+        this.nextRangeStart = partSize;
+        fillWindow();
+    }
+
+    @Override
+    public int read() throws IOException {
+        ensureOpen();
+        while (true) {
+            int value = current.read();
+            if (value >= 0) {
+                return value;
+            }
+            if (!advance()) {
+                return -1;
+            }
+        }
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        ensureOpen();
+        if (length == 0) {
+            return 0;
+        }
+        while (true) {
+            int read = current.read(buffer, offset, length);
+            if (read >= 0) {
+                return read;
+            }
+            if (!advance()) {
+                return -1;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        cancelWindow();
+        current.close();
+    }
+
+    @Override
+    public void abort() {
+        closed = true;
+        cancelWindow();
+        if (current instanceof Abortable abortable) {
+            abortable.abort();
+        }
+    }
+
+    private boolean advance() throws IOException {
+        current.close();
+
+        RangePart next = window.pollFirst();
+        if (next == null) {
+            return false;
+        }
+
+        current = new ByteArrayInputStream(await(next.result));
+        fillWindow();
+        return true;
+    }
+
+    private void fillWindow() {
+        while (window.size() < maxConcurrency && nextRangeStart < totalLength) {
+            long start = nextRangeStart;
+            long end = Math.min(start + partSize, totalLength) - 1;
+            window.addLast(new RangePart(start, end));
+            nextRangeStart = end + 1;
+        }
+    }
+
+    private byte[] await(CompletableFuture<byte[]> part) throws IOException {
+        try {
+            return part.join();
+        } catch (CompletionException | CancellationException e) {
+            cancelWindow();
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            throw new IOException("Failed to fetch object range", cause);
+        }
+    }
+
+    private void cancelWindow() {
+        window.forEach(RangePart::cancel);
+        window.clear();
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+
+    private static void abortQuietly(InputStream content) {
+        if (content instanceof Abortable abortable) {
+            abortable.abort();
+        }
+        try {
+            content.close();
+        } catch (IOException ignored) {
+            // соединение уже прервано
+        }
+    }
+
+    /**
+     * Загрузка одной части окна.
+     * <p>
+     * Отмена future сама по себе не останавливает чтение в пуле потоков,
+     * поэтому {@link #cancel()} прерывает открытый ответ хранилища.
+     */
+    private final class RangePart {
+
+        private final CompletableFuture<byte[]> result;
+        private InputStream response;
+        private boolean cancelled;
+
+        RangePart(long start, long end) {
+            this.result = CompletableFuture.supplyAsync(() -> download(start, end), executor);
+        }
+
+        private byte[] download(long start, long end) {
+            synchronized (this) {
+                if (cancelled) {
+                    throw new CancellationException();
+                }
+            }
+            InputStream content = fetcher.open(start, end);
+            synchronized (this) {
+                if (cancelled) {
+                    abortQuietly(content);
+                    throw new CancellationException();
+                }
+                response = content;
+            }
+            try (content) {
+                return content.readAllBytes();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                synchronized (this) {
+                    response = null;
+                }
+            }
+        }
+
+        void cancel() {
+            synchronized (this) {
+                cancelled = true;
+                if (response != null) {
+                    abortQuietly(response);
+                }
+            }
+            result.cancel(false);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package org.resume.s3filemanager.service.file;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Содержимое файла, заранее читаемое из хранилища в фоне в ограниченный буфер.
+ * <p>
+ * Фоновая задача ({@link #fill}) читает объект частями и кладет их в очередь;
+ * когда очередь заполнена, чтение из хранилища приостанавливается до того,
+ * как потребитель заберет данные. Закрытие потока отменяет чтение.
+ */
+final class PrefetchedContent extends InputStream {
+
+    private static final byte[] END = new byte[0];
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+    private final BlockingQueue<byte[]> chunks;
+    private final int chunkSize;
+
+    private volatile boolean cancelled;
+    private volatile Throwable failure;
+
+    private byte[] current;
+    private int position;
+    private boolean finished;
+
+    /**
+     * @param bufferSize максимальный объем прочитанных, но не отданных данных
+     * @param chunkSize размер одной части
+     */
+    PrefetchedContent(int bufferSize, int chunkSize) {
+        this.chunks = new ArrayBlockingQueue<>(Math.max(1, bufferSize / chunkSize));
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Читает объект в буфер до конца, ошибки или отмены. Выполняется в фоновом потоке.
+     *
+     * @param opener открывает объект в хранилище
+     */
+    void fill(Supplier<StorageObject> opener) {
+        StorageObject object = null;
+        try {
+            object = opener.get();
+            InputStream content = object.content();
+            byte[] chunk;
+            do {
+                chunk = content.readNBytes(chunkSize);
+                if (chunk.length > 0) {
+                    put(chunk);
+                }
+            } while (chunk.length == chunkSize && !cancelled);
+
+            if (cancelled) {
+                object.abort();
+            } else {
+                object.close();
+            }
+
+        } catch (IOException | RuntimeException e) {
+            failure = e;
+            if (object != null) {
+                object.abort();
+            }
+        }
+        put(END);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureChunk()) {
+            return -1;
+        }
+        return current[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!ensureChunk()) {
+            return -1;
+        }
+
+        int read = Math.min(length, current.length - position);
+        System.arraycopy(current, position, buffer, offset, read);
+        position += read;
+        return read;
+    }
+
+    @Override
+    public void close() {
+        cancelled = true;
+        chunks.clear();
+    }
+
+    private boolean ensureChunk() throws IOException {
+        if (cancelled) {
+            throw new IOException("Stream closed");
+        }
+        if (current != null && position < current.length) {
+            return true;
+        }
+        if (finished) {
+            return false;
+        }
+
+        try {
+            current = chunks.take();
+            position = 0;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for prefetched content");
+        }
+
+        if (current == END) {
+            finished = true;
+            if (failure != null) {
+                throw new IOException("Prefetch failed", failure);
+            }
+            return false;
+        }
+        return true;
+    }
+
+    private void put(byte[] chunk) {
+        try {
+            while (!cancelled && !chunks.offer(chunk, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                // потребитель еще не забрал данные
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancelled = true;
+        }
+    }
+}
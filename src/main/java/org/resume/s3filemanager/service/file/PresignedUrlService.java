@@ -0,0 +1,290 @@
+package org.resume.s3filemanager.service.file;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.redisson.codec.TypedJsonJacksonCodec;
+import org.resume.s3filemanager.audit.AuditOperation;
+import org.resume.s3filemanager.audit.Auditable;
+import org.resume.s3filemanager.audit.ResourceType;
+import org.resume.s3filemanager.constant.ErrorMessages;
+import org.resume.s3filemanager.dto.FileDownloadResponse;
+import org.resume.s3filemanager.dto.PresignedUploadRequest;
+import org.resume.s3filemanager.dto.PresignedUrlResponse;
+import org.resume.s3filemanager.entity.User;
+import org.resume.s3filemanager.enums.HashAlgorithm;
+import org.resume.s3filemanager.exception.*;
+import org.resume.s3filemanager.properties.PresignedUrlProperties;
+import org.resume.s3filemanager.properties.YandexStorageProperties;
+import org.resume.s3filemanager.service.hash.ContentHash;
+import org.resume.s3filemanager.service.outbox.StorageOutboxService;
+import org.resume.s3filemanager.validation.FileValidator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.awscore.presigner.PresignedRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Сервис прямой передачи файлов через presigned URL.
+ * <p>
+ * Приложение только проверяет права и выдает короткоживущие подписанные ссылки,
+ * содержимое передается напрямую между клиентом и хранилищем. Загрузка проходит в два шага:
+ * <ul>
+ *   <li>Выдача PUT ссылки: проверка прав и типа файла, регистрация ожидающей загрузки в Redis</li>
+ *   <li>Подтверждение: проверка объекта в S3 (размер, сигнатура), сохранение метаданных</li>
+ * </ul>
+ * Подписанные заголовки Content-Type и Content-Length не дают загрузить по ссылке
+ * содержимое другого типа или размера. Если объект не прошел проверку при подтверждении,
+ * он удаляется из хранилища.
+ *
+ * @see S3Presigner
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@EnableConfigurationProperties(PresignedUrlProperties.class)
+@ConditionalOnProperty(prefix = "app.presigned", name = "enabled", havingValue = "true")
+public class PresignedUrlService {
+
+    private static final String PENDING_UPLOAD_PREFIX = "presigned:upload::";
+    private static final String HOST_HEADER = "host";
+    private static final Pattern PLAIN_MD5_ETAG = Pattern.compile("[0-9a-fA-F]{32}");
+
+    private final S3Presigner yandexS3Presigner;
+    private final RedissonClient redissonClient;
+    private final YandexStorageService fileStorageService;
+    private final StorageOutboxService storageOutboxService;
+    private final FileFacadeService fileFacadeService;
+    private final FileHashService fileHashService;
+    private final FileMetadataService fileMetadataService;
+    private final FilePermissionService filePermissionService;
+    private final FileValidator fileValidator;
+    private final YandexStorageProperties storageProperties;
+    private final PresignedUrlProperties presignedUrlProperties;
+
+    /**
+     * Выдает presigned PUT ссылку для загрузки файла напрямую в хранилище.
+     *
+     * @param request имя, MIME-тип и размер загружаемого файла
+     * @return ссылка, обязательные заголовки и уникальное имя для подтверждения
+     * @throws FileUploadLimitException если пользователь уже загрузил файл
+     * @throws FileValidationException если тип файла не разрешен или превышен размер
+     */
+    public PresignedUrlResponse createUploadUrl(PresignedUploadRequest request) {
+        User user = filePermissionService.checkUploadPermission();
+
+        fileValidator.validateDeclaredType(request.fileName(), request.contentType())
+                .ifPresent(error -> {
+                    throw new FileValidationException(error);
+                });
+
+        if (request.size() > presignedUrlProperties.getMaxFileSize().toBytes()) {
+            throw new FileValidationException(
+                    String.format(ErrorMessages.FILE_SIZE_EXCEEDED, presignedUrlProperties.getMaxFileSize())
+            );
+        }
+
+        String uniqueName = FileFacadeService.generateUniqueFileName(request.fileName());
+        PendingUpload pending = new PendingUpload(
+                user.getUsername(),
+                request.fileName(),
+                request.contentType(),
+                request.size()
+        );
+        getPendingBucket(uniqueName).set(pending, presignedUrlProperties.getConfirmTimeout());
+
+        PutObjectRequest putRequest = PutObjectRequest.builder()
+                .bucket(storageProperties.getBucketName())
+                .key(uniqueName)
+                .contentType(request.contentType())
+                .contentLength(request.size())
+                .build();
+
+        PresignedRequest presigned = yandexS3Presigner.presignPutObject(
+                PutObjectPresignRequest.builder()
+                        .signatureDuration(presignedUrlProperties.getUploadTtl())
+                        .putObjectRequest(putRequest)
+                        .build()
+        );
+
+        log.info("Presigned upload URL issued: {} for user: {}", uniqueName, user.getUsername());
+        return toResponse(uniqueName, HttpMethod.PUT, presigned);
+    }
+
+    /**
+     * Подтверждает загрузку по presigned ссылке и регистрирует файл.
+     * <p>
+     * Если объект еще не появился в хранилище, ожидающая загрузка сохраняется
+     * и подтверждение можно повторить до истечения {@code app.presigned.confirm-timeout}.
+     *
+     * @param uniqueName уникальное имя, выданное вместе с ссылкой
+     * @throws FileNotFoundException если ожидающая загрузка не найдена, принадлежит другому
+     *                               пользователю или объект еще не загружен в хранилище
+     * @throws FileValidationException если объект не соответствует заявленному размеру или типу
+     * @throws DuplicateFileException если файл с таким хешем уже существует у пользователя
+     * @throws S3YandexException при ошибке S3
+     */
+    @Auditable(operation = AuditOperation.FILE_UPLOAD, resourceType = ResourceType.FILE)
+    public void confirmUpload(String uniqueName) {
+        User user = filePermissionService.checkUploadPermission();
+
+        RBucket<PendingUpload> bucket = getPendingBucket(uniqueName);
+        PendingUpload pending = bucket.get();
+        if (pending == null || !pending.username().equals(user.getUsername())) {
+            throw new FileNotFoundException(uniqueName);
+        }
+
+        HeadObjectResponse head = headUploadedObject(uniqueName);
+
+        if (bucket.getAndDelete() == null) {
+            throw new FileNotFoundException(uniqueName);
+        }
+
+        try {
+            ContentHash fileHash = verifyUploadedObject(uniqueName, pending, head);
+            fileHashService.checkDuplicateInDatabase(fileHash, user.getId());
+            fileMetadataService.saveFileWithPermission(
+                    pending.originalName(),
+                    pending.contentType(),
+                    pending.size(),
+                    uniqueName,
+                    fileHash,
+                    user
+            );
+            log.info("Presigned upload confirmed: {}", uniqueName);
+
+        } catch (RuntimeException e) {
+            log.warn("Presigned upload rejected, removing object: {}", uniqueName);
+            compensateS3Upload(uniqueName);
+            throw e;
+        }
+    }
+
+    /**
+     * Выдает presigned GET ссылку для скачивания файла напрямую из хранилища.
+     *
+     * @param uniqueName уникальное имя файла
+     * @return ссылка для скачивания
+     * @throws FileNotFoundException если файл не найден
+     */
+    public PresignedUrlResponse createDownloadUrl(String uniqueName) {
+        FileDownloadResponse file = fileFacadeService.downloadFile(uniqueName);
+
+        GetObjectRequest getRequest = GetObjectRequest.builder()
+                .bucket(storageProperties.getBucketName())
+                .key(uniqueName)
+                .responseContentType(file.getContentType())
+                .responseContentDisposition("attachment; filename*=UTF-8''" + file.getFileName())
+                .build();
+
+        PresignedRequest presigned = yandexS3Presigner.presignGetObject(
+                GetObjectPresignRequest.builder()
+                        .signatureDuration(presignedUrlProperties.getDownloadTtl())
+                        .getObjectRequest(getRequest)
+                        .build()
+        );
+
+        return toResponse(uniqueName, HttpMethod.GET, presigned);
+    }
+
+    private HeadObjectResponse headUploadedObject(String uniqueName) {
+        try {
+            return fileStorageService.headFileYandexS3(uniqueName);
+        } catch (S3YandexException e) {
+            if (e.getCause() instanceof S3Exception s3Exception
+                    && s3Exception.statusCode() == HttpStatus.NOT_FOUND.value()) {
+                log.warn("Presigned upload confirmed before object was uploaded: {}", uniqueName);
+                throw new FileNotFoundException(uniqueName);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Проверяет загруженный объект и возвращает хеш его содержимого.
+     * <p>
+     * Если файлы хешируются MD5, а объект загружен одним PUT, ETag совпадает с MD5
+     * и содержимое не читается; иначе хеш вычисляется потоковым чтением объекта.
+     */
+    private ContentHash verifyUploadedObject(String uniqueName, PendingUpload pending, HeadObjectResponse head) {
+        if (head.contentLength() != pending.size()) {
+            throw new FileValidationException(
+                    String.format(ErrorMessages.UPLOADED_SIZE_MISMATCH, head.contentLength(), pending.size())
+            );
+        }
+
+        long prefixEnd = Math.min(pending.size(), FileValidator.SIGNATURE_PREFIX_SIZE) - 1;
+        try (StorageObject prefixObject = fileStorageService.openRangeYandexS3(uniqueName, 0, prefixEnd)) {
+            byte[] prefix = prefixObject.content().readAllBytes();
+            fileValidator.validateSignature(prefix, pending.originalName(), pending.contentType())
+                    .ifPresent(error -> {
+                        throw new FileValidationException(error);
+                    });
+        } catch (IOException e) {
+            throw new S3YandexException(e, uniqueName);
+        }
+
+        String eTag = head.eTag() != null ? head.eTag().replace("\"", "") : "";
+        if (fileHashService.getAlgorithm() == HashAlgorithm.MD5 && PLAIN_MD5_ETAG.matcher(eTag).matches()) {
+            return new ContentHash(HashAlgorithm.MD5, eTag.toLowerCase());
+        }
+        return hashObject(uniqueName);
+    }
+
+    private ContentHash hashObject(String uniqueName) {
+        try (StorageObject object = fileStorageService.openFileYandexS3(uniqueName)) {
+            return fileHashService.hash(object.content());
+        } catch (IOException e) {
+            throw new S3YandexException(e, uniqueName);
+        }
+    }
+
+    private PresignedUrlResponse toResponse(String uniqueName, HttpMethod method, PresignedRequest presigned) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        presigned.signedHeaders().forEach((name, values) -> {
+            if (!HOST_HEADER.equalsIgnoreCase(name)) {
+                headers.put(name, String.join(",", values));
+            }
+        });
+
+        return new PresignedUrlResponse(
+                uniqueName,
+                method.name(),
+                presigned.url().toString(),
+                headers,
+                presigned.expiration()
+        );
+    }
+
+    private void compensateS3Upload(String uniqueName) {
+        storageOutboxService.enqueueCompensation(uniqueName);
+    }
+
+    private RBucket<PendingUpload> getPendingBucket(String uniqueName) {
+        return redissonClient.getBucket(
+                PENDING_UPLOAD_PREFIX + uniqueName,
+                new TypedJsonJacksonCodec(PendingUpload.class)
+        );
+    }
+
+    /**
+     * Загрузка, для которой выдана ссылка, но еще не подтверждена.
+     */
+    record PendingUpload(String username, String originalName, String contentType, long size) {
+    }
+}
@@ -0,0 +1,218 @@
+package org.resume.s3filemanager.service.file;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.resume.s3filemanager.properties.HedgingProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Хеджирование запросов к хранилищу для снижения хвостовых задержек.
+ * <p>
+ * Запрос, не получивший ответ за перцентиль недавних задержек, дублируется;
+ * используется первый успешный ответ, второй запрос отменяется, а его ответ
+ * (если он уже пришел) освобождается.
+ * <ul>
+ *   <li>Задержка хеджа пересчитывается по скользящему окну последних ответов</li>
+ *   <li>Число хеджей ограничено бюджетом токенов ({@link HedgingProperties})</li>
+ *   <li>Ошибка одной попытки не завершает запрос, пока другая еще выполняется</li>
+ * </ul>
+ * Метрики: {@code storage.hedging.hedged}, {@code .wins}, {@code .budget-exhausted}.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(HedgingProperties.class)
+public class RequestHedger {
+
+    private final HedgingProperties properties;
+    private final Executor storageExecutor;
+    private final LatencyWindow latencies;
+    private final Budget budget;
+    private final Counter hedged;
+    private final Counter wins;
+    private final Counter budgetExhausted;
+
+    public RequestHedger(HedgingProperties properties, Executor storageExecutor, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.storageExecutor = storageExecutor;
+        this.latencies = new LatencyWindow(properties.getWindowSize());
+        this.budget = new Budget(properties.getBudgetRatio(), properties.getMaxBurst());
+        this.hedged = meterRegistry.counter("storage.hedging.hedged");
+        this.wins = meterRegistry.counter("storage.hedging.wins");
+        this.budgetExhausted = meterRegistry.counter("storage.hedging.budget-exhausted");
+    }
+
+    /**
+     * Выполняет запрос с хеджированием.
+     * <p>
+     * Отмена возвращенного future отменяет все попытки.
+     *
+     * @param request запускает одну попытку запроса; может быть вызван дважды
+     * @param discard освобождает результат проигравшей попытки
+     * @return future первого успешного результата или ошибки последней попытки
+     */
+    public <T> CompletableFuture<T> execute(Supplier<CompletableFuture<T>> request, Consumer<T> discard) {
+        if (!properties.isEnabled()) {
+            return request.get();
+        }
+
+        budget.earn();
+        Race<T> race = new Race<>(discard);
+        race.start(request, false);
+
+        long delayNanos = hedgeDelayNanos();
+        CompletableFuture.delayedExecutor(delayNanos, TimeUnit.NANOSECONDS, storageExecutor).execute(() -> {
+            if (race.result.isDone()) {
+                return;
+            }
+            if (!budget.tryAcquire()) {
+                budgetExhausted.increment();
+                return;
+            }
+            hedged.increment();
+            log.debug("Hedging storage request after {} ms", TimeUnit.NANOSECONDS.toMillis(delayNanos));
+            race.start(request, true);
+        });
+
+        return race.result;
+    }
+
+    private long hedgeDelayNanos() {
+        long minDelay = properties.getMinDelay().toNanos();
+        long observed = latencies.percentile(properties.getPercentile(), properties.getMinSamples());
+        return observed < 0
+                ? Math.max(minDelay, properties.getInitialDelay().toNanos())
+                : Math.max(minDelay, observed);
+    }
+
+    /**
+     * Попытки одного запроса: первый успешный ответ завершает результат,
+     * остальные отменяются или освобождаются.
+     * <p>
+     * Задержка записывается в окно по каждому успешному ответу и по основной попытке,
+     * отмененной из-за победы хеджа: ее время до отмены (не меньше задержки хеджа) —
+     * нижняя граница настоящей задержки. Без этого медленные ответы выпадали бы
+     * из окна и перцентиль смещался бы вниз.
+     */
+    private final class Race<T> {
+
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final Consumer<T> discard;
+        private final AtomicInteger running = new AtomicInteger();
+
+        private Race(Consumer<T> discard) {
+            this.discard = discard;
+        }
+
+        private void start(Supplier<CompletableFuture<T>> request, boolean hedge) {
+            running.incrementAndGet();
+            long started = System.nanoTime();
+            CompletableFuture<T> attempt = attempt(request);
+
+            result.whenComplete((value, error) -> attempt.cancel(true));
+            attempt.whenComplete((value, error) -> {
+                int remaining = running.decrementAndGet();
+                long elapsed = System.nanoTime() - started;
+                if (error == null) {
+                    latencies.record(elapsed);
+                    if (result.complete(value)) {
+                        if (hedge) {
+                            wins.increment();
+                        }
+                    } else {
+                        discard.accept(value);
+                    }
+                } else if (!hedge && result.isDone() && !result.isCompletedExceptionally()) {
+                    latencies.record(elapsed);
+                } else if (remaining == 0) {
+                    result.completeExceptionally(error);
+                }
+            });
+        }
+
+        private CompletableFuture<T> attempt(Supplier<CompletableFuture<T>> request) {
+            try {
+                return request.get();
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+    }
+
+    /**
+     * Скользящее окно задержек с периодическим пересчетом перцентиля.
+     */
+    private static final class LatencyWindow {
+
+        private final long[] samples;
+        private final int recomputeEvery;
+        private int next;
+        private int count;
+        private int sinceRecompute;
+        private long[] sorted = new long[0];
+
+        private LatencyWindow(int size) {
+            this.samples = new long[size];
+            this.recomputeEvery = Math.max(1, size / 20);
+        }
+
+        private synchronized void record(long nanos) {
+            samples[next] = nanos;
+            next = (next + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+            if (++sinceRecompute >= recomputeEvery) {
+                sorted = Arrays.copyOf(samples, count);
+                Arrays.sort(sorted);
+                sinceRecompute = 0;
+            }
+        }
+
+        /**
+         * @return перцентиль задержки в наносекундах или -1, если замеров недостаточно
+         */
+        private synchronized long percentile(double percentile, int minSamples) {
+            if (sorted.length < minSamples) {
+                return -1;
+            }
+            int index = (int) Math.ceil(percentile * sorted.length) - 1;
+            return sorted[Math.max(0, index)];
+        }
+    }
+
+    /**
+     * Бюджет хеджей: токены начисляются за каждый запрос и тратятся на хеджи.
+     */
+    private static final class Budget {
+
+        private final double ratio;
+        private final double capacity;
+        private double tokens;
+
+        private Budget(double ratio, int capacity) {
+            this.ratio = ratio;
+            this.capacity = capacity;
+            this.tokens = capacity;
+        }
+
+        private synchronized void earn() {
+            tokens = Math.min(capacity, tokens + ratio);
+        }
+
+        private synchronized boolean tryAcquire() {
+            if (tokens < 1) {
+                return false;
+            }
+            tokens -= 1;
+            return true;
+        }
+    }
+}
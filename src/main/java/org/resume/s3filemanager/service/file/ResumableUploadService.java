@@ -0,0 +1,393 @@
+package org.resume.s3filemanager.service.file;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBucket;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.redisson.codec.TypedJsonJacksonCodec;
+import org.resume.s3filemanager.audit.AuditOperation;
+import org.resume.s3filemanager.audit.Auditable;
+import org.resume.s3filemanager.audit.ResourceType;
+import org.resume.s3filemanager.constant.ErrorMessages;
+import org.resume.s3filemanager.dto.ResumableUploadRequest;
+import org.resume.s3filemanager.dto.ResumableUploadStatus;
+import org.resume.s3filemanager.entity.User;
+import org.resume.s3filemanager.enums.HashAlgorithm;
+import org.resume.s3filemanager.exception.*;
+import org.resume.s3filemanager.properties.ResumableUploadProperties;
+import org.resume.s3filemanager.properties.YandexStorageProperties;
+import org.resume.s3filemanager.security.MySecurityUtils;
+import org.resume.s3filemanager.service.hash.ContentHash;
+import org.resume.s3filemanager.service.hash.HashingInputStream;
+import org.resume.s3filemanager.service.hash.IncrementalHash;
+import org.resume.s3filemanager.service.outbox.StorageOutboxService;
+import org.resume.s3filemanager.validation.FileValidator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.MultipartUpload;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Сервис возобновляемой загрузки файлов по частям.
+ * <p>
+ * Каждая часть, принятая от клиента, сразу передается в S3 как часть multipart upload,
+ * без промежуточного хранения на узле. Состояние сессии (принятое смещение и ETag частей)
+ * хранится в Redis, поэтому после обрыва соединения клиент запрашивает смещение
+ * и продолжает с него, в том числе через другой узел.
+ * <ul>
+ *   <li>Все части, кроме последней, имеют размер {@code yandex.storage.multipart.part-size}</li>
+ *   <li>Части одной сессии принимаются строго последовательно (блокировка в Redis)</li>
+ *   <li>Сигнатура файла проверяется по первой части, до отправки в хранилище</li>
+ *   <li>Каждая часть хешируется по пути в хранилище, хеш хранится в сессии рядом с ETag</li>
+ *   <li>Завершение выполняет те же проверки дубликатов и запись метаданных, что и обычная загрузка</li>
+ * </ul>
+ * При завершении хеш файла собирается из хешей частей ({@link FileHashService#combineParts}),
+ * поэтому собранный объект повторно не читается.
+ * Незавершенные multipart upload без живой сессии периодически отменяются.
+ * Прием загрузок включается {@code app.resumable-upload.enabled} и требует
+ * {@code app.hashing.algorithm: sha256-tree}: иначе файлы, загруженные по частям и целиком,
+ * получали бы хеши разных алгоритмов и не распознавались бы как дубликаты.
+ * Доступен только с хранилищем {@code app.storage.backend: yandex}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "app.storage", name = "backend", havingValue = "yandex", matchIfMissing = true)
+@EnableConfigurationProperties(ResumableUploadProperties.class)
+public class ResumableUploadService {
+
+    private static final String SESSION_PREFIX = "resumable:upload::";
+    private static final String LOCK_PREFIX = "resumable:lock::";
+    private static final String CLEANUP_LOCK = "resumable:cleanup";
+
+    private final RedissonClient redissonClient;
+    private final YandexStorageService fileStorageService;
+    private final StorageOutboxService storageOutboxService;
+    private final FileHashService fileHashService;
+    private final FileMetadataService fileMetadataService;
+    private final FilePermissionService filePermissionService;
+    private final FileValidator fileValidator;
+    private final YandexStorageProperties storageProperties;
+    private final ResumableUploadProperties resumableUploadProperties;
+
+    /**
+     * Проверяет, что настроенный алгоритм хеширует файл по частям загрузки
+     * и что файл максимального размера помещается в лимит частей S3.
+     */
+    @PostConstruct
+    void checkHashing() {
+        if (!resumableUploadProperties.isEnabled()) {
+            return;
+        }
+        if (fileHashService.getAlgorithm() != HashAlgorithm.SHA256_TREE) {
+            throw new IllegalStateException("app.resumable-upload requires app.hashing.algorithm: sha256-tree, "
+                    + "configured: " + fileHashService.getAlgorithm());
+        }
+        if (!fileHashService.supportsParts(partSize())) {
+            throw new IllegalStateException(String.format(
+                    "yandex.storage.multipart.partSize (%d bytes) must be a multiple of app.hashing.tree-chunk-size",
+                    partSize()
+            ));
+        }
+        long maxObjectSize = storageProperties.getMultipart().maxObjectSize();
+        if (resumableUploadProperties.getMaxFileSize().toBytes() > maxObjectSize) {
+            throw new IllegalStateException(String.format(
+                    "app.resumable-upload.max-file-size exceeds %d parts of yandex.storage.multipart.partSize (%d bytes)",
+                    YandexStorageProperties.Multipart.MAX_PARTS, maxObjectSize
+            ));
+        }
+    }
+
+    /**
+     * Создает сессию загрузки и multipart upload в хранилище.
+     *
+     * @param request имя, MIME-тип и размер файла
+     * @return состояние новой сессии с нулевым смещением
+     * @throws FileUploadLimitException если пользователь уже загрузил файл
+     * @throws FileValidationException если тип файла не разрешен или превышен размер
+     */
+    public ResumableUploadStatus createUpload(ResumableUploadRequest request) {
+        User user = filePermissionService.checkUploadPermission();
+
+        fileValidator.validateDeclaredType(request.fileName(), request.contentType())
+                .ifPresent(error -> {
+                    throw new FileValidationException(error);
+                });
+
+        if (request.size() > resumableUploadProperties.getMaxFileSize().toBytes()) {
+            throw new FileValidationException(
+                    String.format(ErrorMessages.FILE_SIZE_EXCEEDED, resumableUploadProperties.getMaxFileSize())
+            );
+        }
+
+        String uniqueName = FileFacadeService.generateUniqueFileName(request.fileName());
+        String uploadId = fileStorageService.startMultipartUploadYandexS3(uniqueName, request.contentType());
+
+        UploadSession session = new UploadSession(
+                user.getUsername(),
+                request.fileName(),
+                request.contentType(),
+                request.size(),
+                uploadId,
+                0,
+                List.of()
+        );
+        getSessionBucket(uniqueName).set(session, resumableUploadProperties.getSessionTtl());
+
+        log.info("Resumable upload started: {} for user: {}", uniqueName, user.getUsername());
+        return toStatus(uniqueName, session);
+    }
+
+    /**
+     * Возвращает текущее смещение загрузки.
+     *
+     * @param uniqueName идентификатор сессии
+     * @return состояние сессии
+     * @throws FileNotFoundException если сессия не найдена или принадлежит другому пользователю
+     */
+    public ResumableUploadStatus getStatus(String uniqueName) {
+        return toStatus(uniqueName, findOwnSession(uniqueName));
+    }
+
+    /**
+     * Принимает очередную часть файла и передает ее в хранилище.
+     *
+     * @param uniqueName идентификатор сессии
+     * @param offset смещение части в файле
+     * @param content содержимое части
+     * @param contentLength размер части в байтах
+     * @return состояние сессии после приема части
+     * @throws FileNotFoundException если сессия не найдена или принадлежит другому пользователю
+     * @throws UploadConflictException если смещение не совпадает или часть уже передается
+     * @throws FileValidationException если размер части неверен или сигнатура не совпадает с типом
+     * @throws FileReadException при обрыве передачи клиентом; смещение не меняется
+     * @throws S3YandexException при ошибке S3; смещение не меняется
+     */
+    public ResumableUploadStatus uploadChunk(String uniqueName, long offset, InputStream content, long contentLength) {
+        return withSessionLock(uniqueName, session -> {
+            if (offset != session.offset()) {
+                throw new UploadConflictException(
+                        String.format(ErrorMessages.UPLOAD_OFFSET_MISMATCH, offset, session.offset())
+                );
+            }
+
+            long partSize = partSize();
+            long expectedLength = Math.min(partSize, session.size() - offset);
+            if (contentLength != expectedLength) {
+                throw new FileValidationException(
+                        String.format(ErrorMessages.UPLOAD_CHUNK_SIZE_INVALID, expectedLength)
+                );
+            }
+
+            InputStream body = offset == 0 ? validateFirstChunk(uniqueName, session, content, contentLength) : content;
+            IncrementalHash hash = fileHashService.newPartHash();
+            int partNumber = (int) (offset / partSize) + 1;
+            CompletedPart part = fileStorageService.uploadPartYandexS3(
+                    uniqueName, session.uploadId(), partNumber, new HashingInputStream(body, hash), contentLength
+            );
+
+            UploadSession updated = session.withPart(
+                    new UploadedPart(partNumber, part.eTag(), hash.finish()), contentLength
+            );
+            getSessionBucket(uniqueName).set(updated, resumableUploadProperties.getSessionTtl());
+
+            log.debug("Resumable upload {}: {}/{} bytes", uniqueName, updated.offset(), updated.size());
+            return toStatus(uniqueName, updated);
+        });
+    }
+
+    /**
+     * Завершает загрузку: собирает объект и регистрирует файл.
+     *
+     * @param uniqueName идентификатор сессии
+     * @throws FileNotFoundException если сессия не найдена или принадлежит другому пользователю
+     * @throws FileValidationException если приняты не все части файла
+     * @throws DuplicateFileException если файл с таким хешем уже существует у пользователя
+     * @throws S3YandexException при ошибке S3
+     */
+    @Auditable(operation = AuditOperation.FILE_UPLOAD, resourceType = ResourceType.FILE)
+    public void completeUpload(String uniqueName) {
+        User user = filePermissionService.checkUploadPermission();
+
+        withSessionLock(uniqueName, session -> {
+            if (session.offset() != session.size()) {
+                throw new FileValidationException(
+                        String.format(ErrorMessages.UPLOAD_INCOMPLETE, session.offset(), session.size())
+                );
+            }
+
+            List<CompletedPart> parts = session.parts().stream()
+                    .map(part -> CompletedPart.builder().partNumber(part.partNumber()).eTag(part.eTag()).build())
+                    .toList();
+            fileStorageService.completeMultipartUploadYandexS3(uniqueName, session.uploadId(), parts);
+            getSessionBucket(uniqueName).delete();
+
+            try {
+                ContentHash fileHash = fileHashService.combineParts(
+                        session.parts().stream().map(UploadedPart::hash).toList()
+                );
+                fileHashService.checkDuplicateInDatabase(fileHash, user.getId());
+                fileMetadataService.saveFileWithPermission(
+                        session.originalName(),
+                        session.contentType(),
+                        session.size(),
+                        uniqueName,
+                        fileHash,
+                        user
+                );
+                log.info("Resumable upload completed: {}", uniqueName);
+
+            } catch (RuntimeException e) {
+                log.warn("Resumable upload registration failed, removing object: {}", uniqueName);
+                compensateS3Upload(uniqueName);
+                throw e;
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Отменяет загрузку и освобождает принятые части.
+     *
+     * @param uniqueName идентификатор сессии
+     * @throws FileNotFoundException если сессия не найдена или принадлежит другому пользователю
+     */
+    public void abortUpload(String uniqueName) {
+        withSessionLock(uniqueName, session -> {
+            fileStorageService.abortMultipartUploadYandexS3(uniqueName, session.uploadId());
+            getSessionBucket(uniqueName).delete();
+            log.info("Resumable upload aborted: {}", uniqueName);
+            return null;
+        });
+    }
+
+    /**
+     * Отменяет multipart upload, начатые раньше срока жизни сессии и не имеющие живой сессии.
+     * <p>
+     * Выполняется одним узлом за раз. Под отмену попадают и multipart upload, брошенные
+     * обычной загрузкой при падении узла.
+     */
+    @Scheduled(fixedDelayString = "${app.resumable-upload.cleanup-interval}")
+    public void abortStaleUploads() {
+        RLock lock = redissonClient.getLock(CLEANUP_LOCK);
+        if (!lock.tryLock()) {
+            return;
+        }
+
+        try {
+            Instant cutoff = Instant.now().minus(resumableUploadProperties.getSessionTtl());
+            int aborted = 0;
+
+            for (MultipartUpload upload : fileStorageService.listMultipartUploadsYandexS3()) {
+                if (upload.initiated().isAfter(cutoff) || getSessionBucket(upload.key()).isExists()) {
+                    continue;
+                }
+                fileStorageService.abortMultipartUploadYandexS3(upload.key(), upload.uploadId());
+                aborted++;
+            }
+
+            if (aborted > 0) {
+                log.info("Aborted {} stale multipart uploads", aborted);
+            }
+        } catch (S3YandexException e) {
+            log.error("Stale multipart upload cleanup failed", e);
+        } catch (StorageUnavailableException e) {
+            log.warn("Stale multipart upload cleanup skipped: storage unavailable");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private <T> T withSessionLock(String uniqueName, Function<UploadSession, T> action) {
+        RLock lock = redissonClient.getLock(LOCK_PREFIX + uniqueName);
+        if (!lock.tryLock()) {
+            throw new UploadConflictException(ErrorMessages.UPLOAD_SESSION_BUSY);
+        }
+
+        try {
+            return action.apply(findOwnSession(uniqueName));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private UploadSession findOwnSession(String uniqueName) {
+        UploadSession session = getSessionBucket(uniqueName).get();
+        if (session == null || !session.username().equals(MySecurityUtils.getCurrentUsername())) {
+            throw new FileNotFoundException(uniqueName);
+        }
+        return session;
+    }
+
+    /**
+     * Проверяет сигнатуру по началу первой части и возвращает поток с полным содержимым части.
+     */
+    private InputStream validateFirstChunk(String uniqueName, UploadSession session,
+                                           InputStream content, long contentLength) {
+        try {
+            byte[] prefix = content.readNBytes((int) Math.min(contentLength, FileValidator.SIGNATURE_PREFIX_SIZE));
+            fileValidator.validateSignature(prefix, session.originalName(), session.contentType())
+                    .ifPresent(error -> {
+                        throw new FileValidationException(error);
+                    });
+            return new SequenceInputStream(new ByteArrayInputStream(prefix), content);
+
+        } catch (IOException e) {
+            throw new FileReadException(e, uniqueName);
+        }
+    }
+
+    private void compensateS3Upload(String uniqueName) {
+        storageOutboxService.enqueueCompensation(uniqueName);
+    }
+
+    private long partSize() {
+        return storageProperties.getMultipart().partSize().toBytes();
+    }
+
+    private ResumableUploadStatus toStatus(String uniqueName, UploadSession session) {
+        return new ResumableUploadStatus(uniqueName, session.offset(), session.size(), partSize());
+    }
+
+    private RBucket<UploadSession> getSessionBucket(String uniqueName) {
+        return redissonClient.getBucket(
+                SESSION_PREFIX + uniqueName,
+                new TypedJsonJacksonCodec(UploadSession.class)
+        );
+    }
+
+    /**
+     * Состояние сессии возобновляемой загрузки.
+     */
+    record UploadSession(String username, String originalName, String contentType, long size,
+                         String uploadId, long offset, List<UploadedPart> parts) {
+
+        UploadSession withPart(UploadedPart part, long length) {
+            List<UploadedPart> updated = new ArrayList<>(parts);
+            updated.add(part);
+            return new UploadSession(username, originalName, contentType, size, uploadId, offset + length, updated);
+        }
+    }
+
+    /**
+     * Принятая часть файла.
+     *
+     * @param hash хеши листьев дерева SHA-256 по содержимому части
+     */
+    record UploadedPart(int partNumber, String eTag, String hash) {
+    }
+}
@@ -0,0 +1,59 @@
+package org.resume.s3filemanager.service.file;
+
+import software.amazon.awssdk.http.Abortable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Открытый на чтение объект хранилища.
+ * <p>
+ * Содержимое не буферизуется: поток читается напрямую из ответа S3.
+ * Объект должен быть либо полностью передан через {@link #transferTo(OutputStream)},
+ * либо закрыт, иначе HTTP соединение с хранилищем не вернется в пул.
+ *
+ * @param content поток с содержимым объекта
+ * @param contentLength размер объекта в байтах по метаданным хранилища
+ */
+public record StorageObject(InputStream content, long contentLength) implements Closeable {
+
+    /**
+     * Передает содержимое объекта в выходной поток и освобождает соединение.
+     * <p>
+     * Если запись прервалась (например, клиент разорвал соединение), соединение
+     * с хранилищем прерывается, а не дочитывается до конца.
+     *
+     * @param out выходной поток
+     * @throws IOException при ошибке чтения или записи
+     */
+    public void transferTo(OutputStream out) throws IOException {
+        try {
+            content.transferTo(out);
+        } catch (IOException | RuntimeException e) {
+            abort();
+            throw e;
+        }
+        close();
+    }
+
+    /**
+     * Прерывает чтение без дочитывания оставшегося содержимого.
+     */
+    public void abort() {
+        if (content instanceof Abortable abortable) {
+            abortable.abort();
+        }
+        try {
+            content.close();
+        } catch (IOException ignored) {
+            // соединение уже прервано
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        content.close();
+    }
+}
@@ -0,0 +1,28 @@
+package org.resume.s3filemanager.service.file;
+
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Потоковое тело ответа, передающее открытый объект хранилища.
+ * <p>
+ * Если ответ так и не был отправлен (клиент отключился или истек таймаут
+ * до начала записи), тело нужно закрыть, чтобы прервать соединение с хранилищем.
+ *
+ * @param content открытый объект хранилища
+ */
+public record StorageResponseBody(StorageObject content) implements StreamingResponseBody, Closeable {
+
+    @Override
+    public void writeTo(OutputStream outputStream) throws IOException {
+        content.transferTo(outputStream);
+    }
+
+    @Override
+    public void close() {
+        content.abort();
+    }
+}
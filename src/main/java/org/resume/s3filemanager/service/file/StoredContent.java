@@ -0,0 +1,13 @@
+package org.resume.s3filemanager.service.file;
+
+import org.resume.s3filemanager.service.hash.ContentHash;
+
+/**
+ * Результат сохранения содержимого файла в хранилище.
+ *
+ * @param hash хеш исходного (несжатого) содержимого
+ * @param contentEncoding кодировка объекта в хранилище или {@code null}
+ * @param storedSize размер объекта в хранилище
+ */
+public record StoredContent(ContentHash hash, String contentEncoding, long storedSize) {
+}
@@ -3,82 +3,322 @@ package org.resume.s3filemanager.service.file;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.resume.s3filemanager.enums.StorageOperation;
+import org.resume.s3filemanager.exception.FileReadException;
 import org.resume.s3filemanager.exception.S3YandexException;
+import org.resume.s3filemanager.exception.StorageUnavailableException;
 import org.resume.s3filemanager.properties.YandexStorageProperties;
+import org.resume.s3filemanager.service.storage.ClientInputStream;
+import org.resume.s3filemanager.service.storage.StorageBackend;
+import org.resume.s3filemanager.service.storage.StorageEntry;
+import org.resume.s3filemanager.service.storage.StorageGuard;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.core.exception.SdkException;
 import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
  * Сервис для работы с объектным хранилищем Yandex Cloud S3.
  * <p>
  * Обеспечивает операции загрузки, скачивания и удаления файлов
- * через AWS SDK v2 с использованием S3-совместимого API.
+ * через AWS SDK v2 с использованием S3-совместимого API. Реализует {@link StorageBackend}
+ * ({@code app.storage.backend: yandex}); multipart загрузка по частям и HEAD запросы
+ * доступны только здесь.
+ * <p>
+ * Запросы выполняются через {@link StorageGuard}: при деградации хранилища они
+ * отклоняются {@link StorageUnavailableException} без обращения к S3.
  *
  * @see S3Client
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
-public class YandexStorageService {
+@ConditionalOnProperty(prefix = "app.storage", name = "backend", havingValue = "yandex", matchIfMissing = true)
+public class YandexStorageService implements StorageBackend {
+
+    private static final int DELETE_BATCH_SIZE = 1000;
 
     private final S3Client yandexS3Client;
+    private final S3AsyncClient yandexS3AsyncClient;
     private final YandexStorageProperties properties;
+    private final Executor storageExecutor;
+    private final RequestHedger requestHedger;
+    private final StorageGuard storageGuard;
+
+    /**
+     * Загружает файл в Yandex Object Storage потоково.
+     * <p>
+     * Содержимое читается из потока по мере отправки и не материализуется в памяти целиком.
+     * Файлы не меньше порога {@code yandex.storage.multipart.threshold} загружаются
+     * по частям через multipart upload.
+     *
+     * @param uniqueFileName уникальное имя файла (ключ объекта в S3)
+     * @param content поток с содержимым файла
+     * @param contentLength точный размер содержимого в байтах
+     * @param contentType MIME-тип файла
+     * @throws S3YandexException при ошибке взаимодействия с S3 или чтения потока
+     */
+    public void uploadFileYandexS3(String uniqueFileName, InputStream content,
+                                   long contentLength, String contentType) {
+        uploadFileYandexS3(uniqueFileName, content, contentLength, contentType, null);
+    }
 
     /**
-     * Загружает файл в Yandex Object Storage.
+     * Загружает файл в Yandex Object Storage потоково с указанной кодировкой содержимого.
+     * <p>
+     * Если размер заранее неизвестен ({@code contentLength < 0}), поток читается частями:
+     * содержимое не больше одной части загружается одним PUT, иначе — через multipart upload.
      *
      * @param uniqueFileName уникальное имя файла (ключ объекта в S3)
-     * @param bytes содержимое файла в виде массива байт
+     * @param content поток с содержимым файла
+     * @param contentLength точный размер содержимого в байтах или -1, если он неизвестен
      * @param contentType MIME-тип файла
+     * @param contentEncoding кодировка содержимого (Content-Encoding) или {@code null}
+     * @throws S3YandexException при ошибке взаимодействия с S3 или чтения потока
+     * @throws StorageUnavailableException если хранилище недоступно или лимит загрузок исчерпан
+     */
+    public void uploadFileYandexS3(String uniqueFileName, InputStream content, long contentLength,
+                                   String contentType, String contentEncoding) {
+        InputStream clientContent = new ClientInputStream(content);
+        storageGuard.run(StorageOperation.UPLOAD,
+                () -> upload(uniqueFileName, clientContent, contentLength, contentType, contentEncoding));
+    }
+
+    private void upload(String uniqueFileName, InputStream content, long contentLength,
+                        String contentType, String contentEncoding) {
+        if (contentLength < 0) {
+            uploadUnknownLength(uniqueFileName, content, contentType, contentEncoding);
+            return;
+        }
+        if (contentLength >= properties.getMultipart().threshold().toBytes()) {
+            multipartUpload(uniqueFileName, content, contentLength, contentType, contentEncoding);
+            return;
+        }
+
+        putObject(uniqueFileName, RequestBody.fromInputStream(content, contentLength),
+                contentLength, contentType, contentEncoding);
+    }
+
+    /**
+     * Открывает файл из Yandex Object Storage на потоковое чтение.
+     * <p>
+     * Содержимое не загружается в память целиком. Объекты больше одной части
+     * скачиваются параллельными ranged GET запросами. Вызывающий код обязан
+     * передать или закрыть полученный {@link StorageObject}.
+     *
+     * @param uniqueFileName уникальное имя файла (ключ объекта в S3)
+     * @return открытый объект с размером из метаданных хранилища
+     * @throws S3YandexException при ошибке взаимодействия с S3
+     * @throws StorageUnavailableException если хранилище недоступно или лимит скачиваний исчерпан
+     */
+    public StorageObject openFileYandexS3(String uniqueFileName) {
+        return storageGuard.open(() -> {
+            try {
+                return openObject(uniqueFileName);
+
+            } catch (SdkException e) {
+                log.error("S3 error downloading file: {}", uniqueFileName, e);
+                throw new S3YandexException(e, uniqueFileName);
+            }
+        });
+    }
+
+    /**
+     * Открывает диапазон байт файла из Yandex Object Storage одним ranged GET запросом.
+     *
+     * @param uniqueFileName уникальное имя файла (ключ объекта в S3)
+     * @param start первый байт диапазона
+     * @param end последний байт диапазона (включительно)
+     * @return открытый диапазон объекта
      * @throws S3YandexException при ошибке взаимодействия с S3
+     * @throws StorageUnavailableException если хранилище недоступно или лимит скачиваний исчерпан
+     */
+    public StorageObject openRangeYandexS3(String uniqueFileName, long start, long end) {
+        return storageGuard.open(() -> {
+            try {
+                return new StorageObject(
+                        getObject(uniqueFileName, "bytes=" + start + "-" + end),
+                        end - start + 1
+                );
+
+            } catch (SdkException e) {
+                log.error("S3 error downloading range {}-{} of file: {}", start, end, uniqueFileName, e);
+                throw new S3YandexException(e, uniqueFileName);
+            }
+        });
+    }
+
+    /**
+     * Асинхронно открывает файл на потоковое чтение через {@link S3AsyncClient}.
+     * <p>
+     * Future завершается, когда S3 ответил заголовками; до этого поток не занят.
+     * Содержимое читается как в {@link #openFileYandexS3}: объекты больше одной части
+     * дочитываются параллельными ranged GET запросами. Ответ ожидается не дольше
+     * {@code yandex.storage.async.openTimeout}; по таймауту и при отмене future
+     * запрос к S3 прерывается.
+     *
+     * @param uniqueFileName уникальное имя файла (ключ объекта в S3)
+     * @return future открытого объекта; завершается {@link S3YandexException} при ошибке S3
+     *         или {@link StorageUnavailableException}, если хранилище недоступно
+     */
+    public CompletableFuture<StorageObject> openFileAsyncYandexS3(String uniqueFileName) {
+        return storageGuard.openAsync(() -> openAsync(uniqueFileName));
+    }
+
+    private CompletableFuture<StorageObject> openAsync(String uniqueFileName) {
+        long partSize = properties.getDownload().partSize().toBytes();
+        CompletableFuture<ResponseInputStream<GetObjectResponse>> firstPart =
+                getObjectAsync(uniqueFileName, "bytes=0-" + (partSize - 1));
+
+        CompletableFuture<StorageObject> result = firstPart
+                .handle((part, error) -> {
+                    if (error == null) {
+                        return CompletableFuture.completedFuture(toStorageObject(uniqueFileName, part));
+                    }
+                    if (unwrap(error) instanceof S3Exception e
+                            && e.statusCode() == HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value()) {
+                        return getObjectAsync(uniqueFileName, null)
+                                .thenApply(content -> new StorageObject(content, content.response().contentLength()));
+                    }
+                    return CompletableFuture.<StorageObject>failedFuture(error);
+                })
+                .thenCompose(Function.identity());
+
+        return translate(propagateCancellation(result, firstPart), uniqueFileName);
+    }
+
+    /**
+     * Асинхронно открывает диапазон байт файла одним ranged GET запросом через {@link S3AsyncClient}.
+     *
+     * @param uniqueFileName уникальное имя файла (ключ объекта в S3)
+     * @param start первый байт диапазона
+     * @param end последний байт диапазона (включительно)
+     * @return future открытого диапазона; завершается {@link S3YandexException} при ошибке S3
+     *         или {@link StorageUnavailableException}, если хранилище недоступно
+     */
+    public CompletableFuture<StorageObject> openRangeAsyncYandexS3(String uniqueFileName, long start, long end) {
+        return storageGuard.openAsync(() -> {
+            CompletableFuture<ResponseInputStream<GetObjectResponse>> response =
+                    getObjectAsync(uniqueFileName, "bytes=" + start + "-" + end);
+
+            CompletableFuture<StorageObject> result = response
+                    .thenApply(content -> new StorageObject(content, end - start + 1));
+
+            return translate(propagateCancellation(result, response), uniqueFileName);
+        });
+    }
+
+    /**
+     * Возвращает метаданные объекта без скачивания содержимого.
+     *
+     * @param uniqueFileName уникальное имя файла (ключ объекта в S3)
+     * @return ответ HEAD запроса (размер, ETag, MIME-тип)
+     * @throws S3YandexException если объект не найден или при ошибке взаимодействия с S3
      */
-    public void uploadFileYandexS3(String uniqueFileName, byte[] bytes, String contentType) {
+    public HeadObjectResponse headFileYandexS3(String uniqueFileName) {
         try {
-            PutObjectRequest request = PutObjectRequest.builder()
+            HeadObjectRequest request = HeadObjectRequest.builder()
                     .bucket(properties.getBucketName())
                     .key(uniqueFileName)
-                    .contentType(contentType)
-                    .contentLength((long) bytes.length)
                     .build();
 
-            yandexS3Client.putObject(request, RequestBody.fromBytes(bytes));
+            return storageGuard.call(StorageOperation.OTHER, () -> yandexS3Client.headObject(request));
 
-        } catch (S3Exception e) {
-            log.error("S3 error uploading file: {}", uniqueFileName, e);
+        } catch (SdkException e) {
+            log.error("S3 error reading metadata of file: {}", uniqueFileName, e);
             throw new S3YandexException(e, uniqueFileName);
         }
     }
 
     /**
-     * Скачивает файл из Yandex Object Storage.
+     * Проверяет наличие объекта HEAD запросом.
      *
      * @param uniqueFileName уникальное имя файла (ключ объекта в S3)
-     * @return содержимое файла в виде массива байт
-     * @throws S3YandexException при ошибке взаимодействия с S3 или чтения потока
+     * @return {@code true}, если объект существует
+     * @throws S3YandexException при ошибке взаимодействия с S3
      */
-    public byte[] downloadFileYandexS3(String uniqueFileName) {
-        try (ResponseInputStream<GetObjectResponse> response = yandexS3Client.getObject(
-                GetObjectRequest.builder()
-                        .bucket(properties.getBucketName())
-                        .key(uniqueFileName)
-                        .build()
-        )) {
-            return response.readAllBytes();
+    public boolean existsFileYandexS3(String uniqueFileName) {
+        try {
+            HeadObjectRequest request = HeadObjectRequest.builder()
+                    .bucket(properties.getBucketName())
+                    .key(uniqueFileName)
+                    .build();
 
-        } catch (S3Exception e) {
-            log.error("S3 error downloading file: {}", uniqueFileName, e);
-            throw new S3YandexException(e, uniqueFileName);
-        } catch (IOException e) {
-            log.error("IO error downloading file: {}", uniqueFileName, e);
+            storageGuard.call(StorageOperation.OTHER, () -> yandexS3Client.headObject(request));
+            return true;
+
+        } catch (NoSuchKeyException e) {
+            return false;
+        } catch (SdkException e) {
+            log.error("S3 error checking file: {}", uniqueFileName, e);
             throw new S3YandexException(e, uniqueFileName);
         }
     }
 
+    /**
+     * Удаляет несколько объектов запросами DeleteObjects.
+     * <p>
+     * Ключи отправляются пачками по {@value #DELETE_BATCH_SIZE} в режиме quiet:
+     * в ответе S3 возвращает только ошибки. Если пачка не удалилась целиком
+     * (ошибка запроса или хранилище недоступно), все ее ключи считаются неудаленными.
+     *
+     * @param uniqueFileNames ключи удаляемых объектов
+     * @return ключи, которые не удалось удалить, с кодом ошибки S3
+     */
+    public Map<String, String> deleteFilesYandexS3(List<String> uniqueFileNames) {
+        Map<String, String> failures = new LinkedHashMap<>();
+
+        for (int from = 0; from < uniqueFileNames.size(); from += DELETE_BATCH_SIZE) {
+            List<String> batch = uniqueFileNames.subList(from, Math.min(from + DELETE_BATCH_SIZE, uniqueFileNames.size()));
+            try {
+                DeleteObjectsRequest request = DeleteObjectsRequest.builder()
+                        .bucket(properties.getBucketName())
+                        .delete(Delete.builder()
+                                .objects(batch.stream().map(key -> ObjectIdentifier.builder().key(key).build()).toList())
+                                .quiet(true)
+                                .build())
+                        .build();
+
+                DeleteObjectsResponse response = storageGuard.call(StorageOperation.OTHER,
+                        () -> yandexS3Client.deleteObjects(request));
+                for (S3Error error : response.errors()) {
+                    log.warn("S3 error deleting file {}: {} {}", error.key(), error.code(), error.message());
+                    failures.put(error.key(), error.code());
+                }
+
+            } catch (SdkException | StorageUnavailableException e) {
+                log.error("S3 error deleting batch of {} files", batch.size(), e);
+                batch.forEach(key -> failures.put(key, e.getClass().getSimpleName()));
+            }
+        }
+        return failures;
+    }
+
     /**
      * Удаляет файл из Yandex Object Storage.
      *
@@ -92,11 +332,559 @@ public class YandexStorageService {
                     .key(uniqueFileName)
                     .build();
 
-            yandexS3Client.deleteObject(request);
+            storageGuard.call(StorageOperation.OTHER, () -> yandexS3Client.deleteObject(request));
 
         } catch (S3Exception e) {
             log.error("S3 error deleting file: {}", uniqueFileName, e);
             throw new S3YandexException(e, uniqueFileName);
         }
     }
+
+    /**
+     * Начинает multipart upload, части которого передаются отдельными запросами.
+     *
+     * @param uniqueFileName уникальное имя файла (ключ объекта в S3)
+     * @param contentType MIME-тип файла
+     * @return идентификатор multipart upload
+     * @throws S3YandexException при ошибке взаимодействия с S3
+     */
+    public String startMultipartUploadYandexS3(String uniqueFileName, String contentType) {
+        return storageGuard.call(StorageOperation.OTHER, () -> createMultipartUpload(uniqueFileName, contentType, null));
+    }
+
+    /**
+     * Загружает одну часть multipart upload напрямую из потока, без буферизации.
+     * <p>
+     * Часть не повторяется: поток нельзя прочитать повторно, повтор остается за клиентом.
+     *
+     * @param uniqueFileName уникальное имя файла (ключ объекта в S3)
+     * @param uploadId идентификатор multipart upload
+     * @param partNumber номер части, начиная с 1
+     * @param content содержимое части
+     * @param contentLength точный размер части в байтах
+     * @return загруженная часть с ETag
+     * @throws FileReadException при ошибке чтения потока клиента
+     * @throws S3YandexException при ошибке взаимодействия с S3
+     */
+    public CompletedPart uploadPartYandexS3(String uniqueFileName, String uploadId, int partNumber,
+                                            InputStream content, long contentLength) {
+        try {
+            UploadPartRequest request = UploadPartRequest.builder()
+                    .bucket(properties.getBucketName())
+                    .key(uniqueFileName)
+                    .uploadId(uploadId)
+                    .partNumber(partNumber)
+                    .contentLength(contentLength)
+                    .build();
+
+            UploadPartResponse response = storageGuard.call(StorageOperation.UPLOAD, () -> yandexS3Client.uploadPart(
+                    request,
+                    RequestBody.fromInputStream(new ClientInputStream(content), contentLength)
+            ));
+
+            return CompletedPart.builder()
+                    .partNumber(partNumber)
+                    .eTag(response.eTag())
+                    .build();
+
+        } catch (SdkException e) {
+            if (ClientInputStream.isClientReadFailure(e)) {
+                log.warn("Client stream failed while uploading part {} of file: {}", partNumber, uniqueFileName);
+                throw new FileReadException(e, uniqueFileName);
+            }
+            log.error("S3 error uploading part {} of file: {}", partNumber, uniqueFileName, e);
+            throw new S3YandexException(e, uniqueFileName);
+        }
+    }
+
+    /**
+     * Собирает объект из загруженных частей.
+     *
+     * @param uniqueFileName уникальное имя файла (ключ объекта в S3)
+     * @param uploadId идентификатор multipart upload
+     * @param parts части в порядке номеров
+     * @throws S3YandexException при ошибке взаимодействия с S3
+     */
+    public void completeMultipartUploadYandexS3(String uniqueFileName, String uploadId, List<CompletedPart> parts) {
+        try {
+            storageGuard.run(StorageOperation.UPLOAD, () -> completeMultipartUpload(uniqueFileName, uploadId, parts));
+
+        } catch (SdkException e) {
+            log.error("S3 error completing multipart upload: {}", uniqueFileName, e);
+            throw new S3YandexException(e, uniqueFileName);
+        }
+    }
+
+    /**
+     * Отменяет multipart upload и освобождает загруженные части.
+     *
+     * @param uniqueFileName уникальное имя файла (ключ объекта в S3)
+     * @param uploadId идентификатор multipart upload
+     */
+    public void abortMultipartUploadYandexS3(String uniqueFileName, String uploadId) {
+        abortMultipartUpload(uniqueFileName, uploadId, List.of());
+    }
+
+    /**
+     * Возвращает все объекты бакета в порядке возрастания ключа.
+     * <p>
+     * Страницы ListObjectsV2 запрашиваются лениво по мере обхода, в памяти
+     * находится одна страница. Ошибки S3 при обходе выбрасываются как {@link SdkException}.
+     *
+     * @param pageSize число ключей на странице (не больше 1000)
+     * @return ленивый обход объектов
+     */
+    public Iterable<S3Object> listObjectsYandexS3(int pageSize) {
+        ListObjectsV2Request request = ListObjectsV2Request.builder()
+                .bucket(properties.getBucketName())
+                .maxKeys(pageSize)
+                .build();
+
+        return yandexS3Client.listObjectsV2Paginator(request).contents();
+    }
+
+    /**
+     * Возвращает все незавершенные multipart upload в бакете.
+     *
+     * @return незавершенные загрузки с ключом, идентификатором и временем начала
+     * @throws S3YandexException при ошибке взаимодействия с S3
+     */
+    public List<MultipartUpload> listMultipartUploadsYandexS3() {
+        try {
+            ListMultipartUploadsRequest request = ListMultipartUploadsRequest.builder()
+                    .bucket(properties.getBucketName())
+                    .build();
+
+            return storageGuard.call(StorageOperation.OTHER,
+                    () -> yandexS3Client.listMultipartUploadsPaginator(request).uploads().stream().toList());
+
+        } catch (SdkException e) {
+            log.error("S3 error listing multipart uploads", e);
+            throw new S3YandexException(e, properties.getBucketName());
+        }
+    }
+
+    /**
+     * Копирует объект внутри бакета запросом CopyObject, без передачи содержимого через приложение.
+     *
+     * @param sourceFileName ключ исходного объекта
+     * @param targetFileName ключ копии
+     * @throws S3YandexException при ошибке взаимодействия с S3
+     */
+    public void copyFileYandexS3(String sourceFileName, String targetFileName) {
+        try {
+            CopyObjectRequest request = CopyObjectRequest.builder()
+                    .sourceBucket(properties.getBucketName())
+                    .sourceKey(sourceFileName)
+                    .destinationBucket(properties.getBucketName())
+                    .destinationKey(targetFileName)
+                    .build();
+
+            storageGuard.call(StorageOperation.OTHER, () -> yandexS3Client.copyObject(request));
+            log.info("File copied in S3: {} -> {}", sourceFileName, targetFileName);
+
+        } catch (SdkException e) {
+            log.error("S3 error copying file {} to {}", sourceFileName, targetFileName, e);
+            throw new S3YandexException(e, sourceFileName);
+        }
+    }
+
+    // StorageBackend
+
+    @Override
+    public void put(String key, InputStream content, long contentLength, String contentType,
+                    String contentEncoding) {
+        uploadFileYandexS3(key, content, contentLength, contentType, contentEncoding);
+    }
+
+    @Override
+    public StorageObject get(String key) {
+        return openFileYandexS3(key);
+    }
+
+    @Override
+    public StorageObject getRange(String key, long start, long end) {
+        return openRangeYandexS3(key, start, end);
+    }
+
+    @Override
+    public CompletableFuture<StorageObject> getAsync(String key) {
+        return openFileAsyncYandexS3(key);
+    }
+
+    @Override
+    public CompletableFuture<StorageObject> getRangeAsync(String key, long start, long end) {
+        return openRangeAsyncYandexS3(key, start, end);
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return existsFileYandexS3(key);
+    }
+
+    @Override
+    public void delete(String key) {
+        deleteFileYandexS3(key);
+    }
+
+    @Override
+    public Map<String, String> deleteAll(List<String> keys) {
+        return deleteFilesYandexS3(keys);
+    }
+
+    /**
+     * Ошибки S3 при обходе выбрасываются как {@link S3YandexException}.
+     */
+    @Override
+    public Iterable<StorageEntry> list(int pageSize) {
+        return () -> {
+            Iterator<S3Object> objects = listObjectsYandexS3(pageSize).iterator();
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    try {
+                        return objects.hasNext();
+                    } catch (SdkException e) {
+                        log.error("S3 error listing objects", e);
+                        throw new S3YandexException(e, properties.getBucketName());
+                    }
+                }
+
+                @Override
+                public StorageEntry next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    S3Object object = objects.next();
+                    return new StorageEntry(object.key(), object.size(), object.lastModified());
+                }
+            };
+        };
+    }
+
+    @Override
+    public void copy(String sourceKey, String targetKey) {
+        copyFileYandexS3(sourceKey, targetKey);
+    }
+
+    private void putObject(String uniqueFileName, RequestBody body, long contentLength,
+                           String contentType, String contentEncoding) {
+        try {
+            PutObjectRequest request = PutObjectRequest.builder()
+                    .bucket(properties.getBucketName())
+                    .key(uniqueFileName)
+                    .contentType(contentType)
+                    .contentEncoding(contentEncoding)
+                    .contentLength(contentLength)
+                    .build();
+
+            yandexS3Client.putObject(request, body);
+
+        } catch (SdkException e) {
+            log.error("S3 error uploading file: {}", uniqueFileName, e);
+            throw new S3YandexException(e, uniqueFileName);
+        }
+    }
+
+    /**
+     * Загружает поток неизвестной длины: первая часть читается в память,
+     * и если поток на ней закончился, объект загружается одним PUT.
+     */
+    private void uploadUnknownLength(String uniqueFileName, InputStream content,
+                                     String contentType, String contentEncoding) {
+        int partSize = Math.toIntExact(properties.getMultipart().partSize().toBytes());
+        byte[] firstPart;
+        try {
+            firstPart = content.readNBytes(partSize);
+        } catch (IOException e) {
+            log.error("Failed to read upload stream: {}", uniqueFileName, e);
+            throw new S3YandexException(e, uniqueFileName);
+        }
+
+        if (firstPart.length < partSize) {
+            putObject(uniqueFileName, RequestBody.fromBytes(firstPart), firstPart.length,
+                    contentType, contentEncoding);
+            return;
+        }
+
+        InputStream remaining = new SequenceInputStream(new ByteArrayInputStream(firstPart), content);
+        multipartUpload(uniqueFileName, remaining, -1, contentType, contentEncoding);
+    }
+
+    /**
+     * Загружает файл по частям через S3 multipart upload.
+     * <p>
+     * Части читаются из потока последовательно и отправляются параллельно,
+     * одновременно в памяти находится не более {@code maxConcurrency} частей.
+     * Упавшая часть повторяется политикой повторов SDK, при окончательной ошибке загрузка отменяется.
+     * При неизвестном размере ({@code contentLength < 0}) поток читается до конца;
+     * поток длиннее {@link YandexStorageProperties.Multipart#MAX_PARTS} частей отклоняется.
+     */
+    private void multipartUpload(String uniqueFileName, InputStream content, long contentLength,
+                                 String contentType, String contentEncoding) {
+        YandexStorageProperties.Multipart settings = properties.getMultipart();
+        int partSize = Math.toIntExact(settings.partSize().toBytes());
+        boolean knownLength = contentLength >= 0;
+        if (contentLength > settings.maxObjectSize()) {
+            throw new S3YandexException(new IllegalArgumentException(String.format(
+                    "Content length %d exceeds %d parts of %d bytes",
+                    contentLength, YandexStorageProperties.Multipart.MAX_PARTS, partSize
+            )), uniqueFileName);
+        }
+        Semaphore permits = new Semaphore(settings.maxConcurrency());
+        List<CompletableFuture<CompletedPart>> parts = new ArrayList<>();
+
+        String uploadId = createMultipartUpload(uniqueFileName, contentType, contentEncoding);
+        try {
+            long remaining = knownLength ? contentLength : Long.MAX_VALUE;
+            int partNumber = 1;
+
+            while (remaining > 0) {
+                permits.acquire();
+                rethrowFirstFailure(parts);
+
+                int expectedSize = (int) Math.min(partSize, remaining);
+                byte[] chunk = content.readNBytes(expectedSize);
+                if (knownLength && chunk.length < expectedSize) {
+                    throw new EOFException("Stream ended before declared content length");
+                }
+                if (chunk.length == 0) {
+                    permits.release();
+                    break;
+                }
+                if (!knownLength && chunk.length < partSize) {
+                    remaining = chunk.length;
+                }
+                if (partNumber > YandexStorageProperties.Multipart.MAX_PARTS) {
+                    throw new IOException("Stream exceeds " + YandexStorageProperties.Multipart.MAX_PARTS + " parts");
+                }
+
+                int currentPart = partNumber++;
+                parts.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return uploadPart(uniqueFileName, uploadId, currentPart, chunk);
+                    } finally {
+                        permits.release();
+                    }
+                }, storageExecutor));
+                remaining -= chunk.length;
+            }
+
+            List<CompletedPart> completedParts = parts.stream()
+                    .map(CompletableFuture::join)
+                    .toList();
+            completeMultipartUpload(uniqueFileName, uploadId, completedParts);
+            log.debug("Multipart upload completed: {} ({} parts)", uniqueFileName, completedParts.size());
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abortMultipartUpload(uniqueFileName, uploadId, parts);
+            throw new S3YandexException(e, uniqueFileName);
+        } catch (IOException | RuntimeException e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            log.error("Multipart upload failed: {}", uniqueFileName, cause);
+            abortMultipartUpload(uniqueFileName, uploadId, parts);
+            throw new S3YandexException(cause, uniqueFileName);
+        }
+    }
+
+    private String createMultipartUpload(String uniqueFileName, String contentType, String contentEncoding) {
+        try {
+            CreateMultipartUploadRequest request = CreateMultipartUploadRequest.builder()
+                    .bucket(properties.getBucketName())
+                    .key(uniqueFileName)
+                    .contentType(contentType)
+                    .contentEncoding(contentEncoding)
+                    .build();
+
+            return yandexS3Client.createMultipartUpload(request).uploadId();
+
+        } catch (SdkException e) {
+            log.error("S3 error starting multipart upload: {}", uniqueFileName, e);
+            throw new S3YandexException(e, uniqueFileName);
+        }
+    }
+
+    /**
+     * Загружает одну часть. Тело читается из массива, поэтому SDK повторяет
+     * запрос сам, с экспоненциальной задержкой ({@link YandexStorageProperties.Retry}).
+     */
+    private CompletedPart uploadPart(String uniqueFileName, String uploadId, int partNumber, byte[] chunk) {
+        UploadPartRequest request = UploadPartRequest.builder()
+                .bucket(properties.getBucketName())
+                .key(uniqueFileName)
+                .uploadId(uploadId)
+                .partNumber(partNumber)
+                .contentLength((long) chunk.length)
+                .build();
+
+        UploadPartResponse response = yandexS3Client.uploadPart(
+                request,
+                RequestBody.fromInputStream(new ByteArrayInputStream(chunk), chunk.length)
+        );
+
+        return CompletedPart.builder()
+                .partNumber(partNumber)
+                .eTag(response.eTag())
+                .build();
+    }
+
+    private void completeMultipartUpload(String uniqueFileName, String uploadId, List<CompletedPart> parts) {
+        CompleteMultipartUploadRequest request = CompleteMultipartUploadRequest.builder()
+                .bucket(properties.getBucketName())
+                .key(uniqueFileName)
+                .uploadId(uploadId)
+                .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                .build();
+
+        yandexS3Client.completeMultipartUpload(request);
+    }
+
+    private void abortMultipartUpload(String uniqueFileName, String uploadId,
+                                      List<CompletableFuture<CompletedPart>> parts) {
+        parts.forEach(part -> part.cancel(true));
+
+        try {
+            AbortMultipartUploadRequest request = AbortMultipartUploadRequest.builder()
+                    .bucket(properties.getBucketName())
+                    .key(uniqueFileName)
+                    .uploadId(uploadId)
+                    .build();
+
+            yandexS3Client.abortMultipartUpload(request);
+            log.info("Multipart upload aborted: {}", uniqueFileName);
+        } catch (SdkException e) {
+            log.error("Failed to abort multipart upload: {} ({})", uniqueFileName, uploadId, e);
+        }
+    }
+
+    private void rethrowFirstFailure(List<CompletableFuture<CompletedPart>> parts) {
+        for (CompletableFuture<CompletedPart> part : parts) {
+            if (part.isCompletedExceptionally()) {
+                part.join();
+            }
+        }
+    }
+
+    /**
+     * Открывает объект на чтение.
+     * <p>
+     * Первая часть запрашивается ranged GET запросом, по заголовку Content-Range
+     * определяется полный размер. Если объект больше одной части, остальные части
+     * догружаются параллельно через {@link ParallelRangeInputStream}.
+     */
+    private StorageObject openObject(String uniqueFileName) {
+        long partSize = properties.getDownload().partSize().toBytes();
+
+        ResponseInputStream<GetObjectResponse> firstPart;
+        try {
+            firstPart = getObject(uniqueFileName, "bytes=0-" + (partSize - 1));
+        } catch (S3Exception e) {
+            if (e.statusCode() == HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value()) {
+                ResponseInputStream<GetObjectResponse> content = getObject(uniqueFileName, null);
+                return new StorageObject(content, content.response().contentLength());
+            }
+            throw e;
+        }
+
+        return toStorageObject(uniqueFileName, firstPart);
+    }
+
+    /**
+     * Оборачивает ответ на первый ranged GET: объекты больше одной части
+     * дочитываются параллельными запросами остальных частей.
+     */
+    private StorageObject toStorageObject(String uniqueFileName, ResponseInputStream<GetObjectResponse> firstPart) {
+        YandexStorageProperties.Download settings = properties.getDownload();
+        long partSize = settings.partSize().toBytes();
+        long totalLength = totalLengthOf(firstPart.response());
+        if (totalLength <= partSize) {
+            return new StorageObject(firstPart, totalLength);
+        }
+
+        log.debug("Parallel ranged download: {} ({} bytes)", uniqueFileName, totalLength);
+        ParallelRangeInputStream content = new ParallelRangeInputStream(
+                firstPart,
+                totalLength,
+                partSize,
+                settings.maxConcurrency(),
+                (start, end) -> getObject(uniqueFileName, "bytes=" + start + "-" + end),
+                storageExecutor
+        );
+        return new StorageObject(content, totalLength);
+    }
+
+    /**
+     * Запрос GET через асинхронный клиент с хеджированием ({@link RequestHedger}).
+     * Таймаут применяется к future SDK каждой попытки, поэтому по его истечении
+     * SDK прерывает HTTP запрос.
+     */
+    private CompletableFuture<ResponseInputStream<GetObjectResponse>> getObjectAsync(String uniqueFileName,
+                                                                                     String range) {
+        GetObjectRequest request = GetObjectRequest.builder()
+                .bucket(properties.getBucketName())
+                .key(uniqueFileName)
+                .range(range)
+                .build();
+
+        return requestHedger.execute(
+                () -> yandexS3AsyncClient.getObject(request, AsyncResponseTransformer.toBlockingInputStream())
+                        .orTimeout(properties.getAsync().openTimeout().toMillis(), TimeUnit.MILLISECONDS),
+                ResponseInputStream::abort
+        );
+    }
+
+    /**
+     * Передает отмену производного future в запрос SDK. Если ответ пришел
+     * уже после отмены, соединение прерывается без чтения тела.
+     */
+    private <T> CompletableFuture<T> propagateCancellation(CompletableFuture<T> result,
+                                                           CompletableFuture<ResponseInputStream<GetObjectResponse>> request) {
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                request.cancel(true);
+                request.thenAccept(ResponseInputStream::abort);
+            }
+        });
+        return result;
+    }
+
+    private <T> CompletableFuture<T> translate(CompletableFuture<T> future, String uniqueFileName) {
+        CompletableFuture<T> translated = future.exceptionallyCompose(error -> {
+            Throwable cause = unwrap(error);
+            if (cause instanceof S3YandexException || cause instanceof CancellationException) {
+                return CompletableFuture.failedFuture(cause);
+            }
+            log.error("S3 error downloading file: {}", uniqueFileName, cause);
+            return CompletableFuture.failedFuture(new S3YandexException(cause, uniqueFileName));
+        });
+        translated.whenComplete((value, error) -> {
+            if (translated.isCancelled()) {
+                future.cancel(true);
+            }
+        });
+        return translated;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private ResponseInputStream<GetObjectResponse> getObject(String uniqueFileName, String range) {
+        return yandexS3Client.getObject(
+                GetObjectRequest.builder()
+                        .bucket(properties.getBucketName())
+                        .key(uniqueFileName)
+                        .range(range)
+                        .build()
+        );
+    }
+
+    private long totalLengthOf(GetObjectResponse response) {
+        String contentRange = response.contentRange();
+        if (contentRange == null) {
+            return response.contentLength();
+        }
+        return Long.parseLong(contentRange.substring(contentRange.lastIndexOf('/') + 1));
+    }
 }
@@ -0,0 +1,149 @@
+package org.resume.s3filemanager.service.file;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.resume.s3filemanager.dto.FileDownloadResponse;
+import org.resume.s3filemanager.properties.BulkDownloadProperties;
+import org.resume.s3filemanager.service.compression.StorageCompressionService;
+import org.resume.s3filemanager.validation.AllowedFileType;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Сервис потоковой отдачи нескольких файлов одним ZIP архивом.
+ * <p>
+ * Архив формируется на лету и пишется в ответ по мере чтения файлов из хранилища,
+ * размер ответа заранее неизвестен. Пока текущий файл пишется в архив, следующие
+ * {@code app.bulk-download.prefetch} файлов читаются из S3 в фоне.
+ * <ul>
+ *   <li>Память ограничена окном: на каждый читаемый файл не больше {@code buffer-size}</li>
+ *   <li>Уже сжатые типы ({@code stored-types}) пишутся без сжатия</li>
+ *   <li>Файлы, сжатые в хранилище, распаковываются перед записью в архив</li>
+ *   <li>Совпадающие имена файлов получают суффикс {@code (n)}</li>
+ * </ul>
+ * Ошибка чтения посреди архива обрывает ответ: статус уже отправлен клиенту.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@EnableConfigurationProperties(BulkDownloadProperties.class)
+public class ZipStreamingService {
+
+    private static final String ARCHIVE_NAME = "files.zip";
+    private static final String ZIP_CONTENT_TYPE = "application/zip";
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final FileContentService fileContentService;
+    private final StorageCompressionService storageCompressionService;
+    private final BulkDownloadProperties properties;
+    private final Executor storageExecutor;
+
+    /**
+     * Формирует потоковый ответ с ZIP архивом файлов.
+     *
+     * @param files метаданные файлов в порядке записи в архив
+     * @return ответ с потоковым телом
+     */
+    public ResponseEntity<StreamingResponseBody> stream(List<FileDownloadResponse> files) {
+        List<String> entryNames = entryNames(files);
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_TYPE, ZIP_CONTENT_TYPE)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + ARCHIVE_NAME + "\"")
+                .body(outputStream -> writeArchive(files, entryNames, outputStream));
+    }
+
+    private void writeArchive(List<FileDownloadResponse> files, List<String> entryNames,
+                              OutputStream outputStream) throws IOException {
+        Deque<PrefetchedContent> window = new ArrayDeque<>();
+        int next = 0;
+        int written = 0;
+
+        try (ZipOutputStream zip = new ZipOutputStream(StreamUtils.nonClosing(outputStream))) {
+            for (int i = 0; i < files.size(); i++) {
+                while (next < files.size() && next <= i + properties.getPrefetch()) {
+                    window.addLast(prefetch(files.get(next++)));
+                }
+
+                FileDownloadResponse file = files.get(i);
+                try (PrefetchedContent content = window.removeFirst()) {
+                    zip.setLevel(isStored(file) ? Deflater.NO_COMPRESSION : Deflater.DEFAULT_COMPRESSION);
+                    zip.putNextEntry(new ZipEntry(entryNames.get(i)));
+                    content.transferTo(zip);
+                    zip.closeEntry();
+                }
+                written++;
+            }
+            log.debug("Archive streamed: {} files", files.size());
+
+        } catch (IOException | RuntimeException e) {
+            log.warn("Archive streaming aborted after {} of {} files", written, files.size(), e);
+            throw e;
+        } finally {
+            window.forEach(PrefetchedContent::close);
+        }
+    }
+
+    private PrefetchedContent prefetch(FileDownloadResponse file) {
+        PrefetchedContent content = new PrefetchedContent((int) properties.getBufferSize().toBytes(), CHUNK_SIZE);
+        storageExecutor.execute(() -> content.fill(() -> open(file)));
+        return content;
+    }
+
+    private StorageObject open(FileDownloadResponse file) {
+        StorageObject stored = fileContentService.open(file);
+        if (file.getContentEncoding() == null) {
+            return stored;
+        }
+        return storageCompressionService.decode(stored, file.getUniqueName(), file.getSize());
+    }
+
+    private boolean isStored(FileDownloadResponse file) {
+        return AllowedFileType.find(StringUtils.getFilenameExtension(file.getUniqueName()), file.getContentType())
+                .filter(properties.getStoredTypes()::contains)
+                .isPresent();
+    }
+
+    /**
+     * Строит имена записей архива из оригинальных имен файлов,
+     * убирая разделители каталогов и устраняя совпадения.
+     */
+    private List<String> entryNames(List<FileDownloadResponse> files) {
+        Set<String> used = new HashSet<>();
+        List<String> names = new ArrayList<>(files.size());
+
+        for (FileDownloadResponse file : files) {
+            String name = StringUtils.hasText(file.getOriginalName())
+                    ? file.getOriginalName().replaceAll("[/\\\\]", "_")
+                    : file.getUniqueName();
+
+            String candidate = name;
+            for (int copy = 1; !used.add(candidate); copy++) {
+                String extension = StringUtils.getFilenameExtension(name);
+                candidate = extension != null
+                        ? StringUtils.stripFilenameExtension(name) + " (" + copy + ")." + extension
+                        : name + " (" + copy + ")";
+            }
+            names.add(candidate);
+        }
+        return names;
+    }
+}
@@ -0,0 +1,12 @@
+package org.resume.s3filemanager.service.hash;
+
+import org.resume.s3filemanager.enums.HashAlgorithm;
+
+/**
+ * Хеш содержимого файла вместе с алгоритмом, которым он вычислен.
+ *
+ * @param algorithm алгоритм хеширования
+ * @param value хеш в виде шестнадцатеричной строки
+ */
+public record ContentHash(HashAlgorithm algorithm, String value) {
+}
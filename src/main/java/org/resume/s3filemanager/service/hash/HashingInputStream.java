@@ -0,0 +1,55 @@
+package org.resume.s3filemanager.service.hash;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Поток, передающий все прочитанные байты в {@link IncrementalHash}.
+ */
+public class HashingInputStream extends FilterInputStream {
+
+    private final IncrementalHash hash;
+
+    public HashingInputStream(InputStream in, IncrementalHash hash) {
+        super(in);
+        this.hash = hash;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int value = in.read();
+        if (value >= 0) {
+            hash.update(new byte[]{(byte) value}, 0, 1);
+        }
+        return value;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int read = in.read(buffer, offset, length);
+        if (read > 0) {
+            hash.update(buffer, offset, read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        byte[] buffer = new byte[(int) Math.min(n, 8192)];
+        long skipped = 0;
+        while (skipped < n) {
+            int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+            if (read < 0) {
+                break;
+            }
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+}
@@ -0,0 +1,19 @@
+package org.resume.s3filemanager.service.hash;
+
+import org.resume.s3filemanager.enums.HashAlgorithm;
+
+/**
+ * Стратегия хеширования содержимого файлов.
+ */
+public interface HashingStrategy {
+
+    /**
+     * @return алгоритм, который сохраняется рядом с хешем
+     */
+    HashAlgorithm algorithm();
+
+    /**
+     * @return новый хеш для одного файла
+     */
+    IncrementalHash newHash();
+}
@@ -0,0 +1,23 @@
+package org.resume.s3filemanager.service.hash;
+
+/**
+ * Хеш, вычисляемый по мере поступления содержимого.
+ */
+public interface IncrementalHash {
+
+    /**
+     * Добавляет фрагмент содержимого.
+     *
+     * @param bytes буфер
+     * @param offset начало фрагмента в буфере
+     * @param length длина фрагмента
+     */
+    void update(byte[] bytes, int offset, int length);
+
+    /**
+     * Завершает вычисление. После вызова экземпляр больше не используется.
+     *
+     * @return хеш в виде шестнадцатеричной строки (нижний регистр)
+     */
+    String finish();
+}
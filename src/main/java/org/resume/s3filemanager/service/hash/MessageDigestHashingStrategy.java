@@ -0,0 +1,54 @@
+package org.resume.s3filemanager.service.hash;
+
+import org.resume.s3filemanager.enums.HashAlgorithm;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Последовательное хеширование через {@link MessageDigest} JDK.
+ * <p>
+ * Реализации MD5 и SHA-256 в JDK используют аппаратные инструкции процессора
+ * (SHA extensions на x86, ARMv8 crypto), если они доступны.
+ */
+public class MessageDigestHashingStrategy implements HashingStrategy {
+
+    private final HashAlgorithm algorithm;
+    private final String jcaName;
+
+    public MessageDigestHashingStrategy(HashAlgorithm algorithm, String jcaName) {
+        this.algorithm = algorithm;
+        this.jcaName = jcaName;
+        newDigest(jcaName);
+    }
+
+    @Override
+    public HashAlgorithm algorithm() {
+        return algorithm;
+    }
+
+    @Override
+    public IncrementalHash newHash() {
+        MessageDigest digest = newDigest(jcaName);
+        return new IncrementalHash() {
+            @Override
+            public void update(byte[] bytes, int offset, int length) {
+                digest.update(bytes, offset, length);
+            }
+
+            @Override
+            public String finish() {
+                return HexFormat.of().formatHex(digest.digest());
+            }
+        };
+    }
+
+    static MessageDigest newDigest(String jcaName) {
+        try {
+            return MessageDigest.getInstance(jcaName);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(jcaName + " algorithm is not available", e);
+        }
+    }
+}
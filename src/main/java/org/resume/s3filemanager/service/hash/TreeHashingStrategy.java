@@ -0,0 +1,148 @@
+package org.resume.s3filemanager.service.hash;
+
+import org.resume.s3filemanager.enums.HashAlgorithm;
+
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+/**
+ * Древовидное SHA-256 хеширование для больших файлов.
+ * <p>
+ * Содержимое делится на части фиксированного размера; каждая часть хешируется
+ * отдельной задачей, пока следующие части еще читаются. Итоговый хеш —
+ * SHA-256 от последовательности хешей частей. Число частей, хешируемых
+ * одновременно, ограничено, поэтому память на буферы не растет с размером файла.
+ * <p>
+ * Если файл передается частями, кратными размеру части дерева, каждую часть можно
+ * хешировать отдельно ({@link #newPartHash()}) и собрать итоговый хеш из хешей
+ * листьев всех частей ({@link #combineParts}) без повторного чтения файла.
+ */
+public class TreeHashingStrategy implements HashingStrategy {
+
+    private static final String SHA_256 = "SHA-256";
+
+    private final int chunkSize;
+    private final int maxConcurrency;
+    private final Executor executor;
+
+    public TreeHashingStrategy(int chunkSize, int maxConcurrency, Executor executor) {
+        this.chunkSize = chunkSize;
+        this.maxConcurrency = maxConcurrency;
+        this.executor = executor;
+    }
+
+    @Override
+    public HashAlgorithm algorithm() {
+        return HashAlgorithm.SHA256_TREE;
+    }
+
+    @Override
+    public IncrementalHash newHash() {
+        return new TreeHash(false);
+    }
+
+    /**
+     * Можно ли хешировать файл частями заданного размера: границы частей файла
+     * должны совпадать с границами частей дерева.
+     *
+     * @param partSize размер каждой части файла, кроме последней
+     * @return {@code true}, если размер кратен размеру части дерева
+     */
+    public boolean supportsParts(long partSize) {
+        return partSize > 0 && partSize % chunkSize == 0;
+    }
+
+    /**
+     * Создает хеш одной части файла.
+     * {@link IncrementalHash#finish()} возвращает хеши листьев части, а не итоговый хеш.
+     *
+     * @return новый хеш части
+     */
+    public IncrementalHash newPartHash() {
+        return new TreeHash(true);
+    }
+
+    /**
+     * Собирает итоговый хеш файла из результатов {@link #newPartHash()}.
+     *
+     * @param partHashes хеши листьев частей в порядке частей файла
+     * @return хеш файла в виде шестнадцатеричной строки
+     */
+    public String combineParts(List<String> partHashes) {
+        byte[] leaves = HexFormat.of().parseHex(String.join("", partHashes));
+        if (leaves.length == 0) {
+            leaves = MessageDigestHashingStrategy.newDigest(SHA_256).digest();
+        }
+        return HexFormat.of().formatHex(MessageDigestHashingStrategy.newDigest(SHA_256).digest(leaves));
+    }
+
+    private final class TreeHash implements IncrementalHash {
+
+        private final boolean part;
+        private final List<CompletableFuture<byte[]>> leaves = new ArrayList<>();
+        private byte[] chunk = new byte[chunkSize];
+        private int filled;
+        private int awaited;
+
+        private TreeHash(boolean part) {
+            this.part = part;
+        }
+
+        @Override
+        public void update(byte[] bytes, int offset, int length) {
+            while (length > 0) {
+                int copied = Math.min(length, chunkSize - filled);
+                System.arraycopy(bytes, offset, chunk, filled, copied);
+                filled += copied;
+                offset += copied;
+                length -= copied;
+
+                if (filled == chunkSize) {
+                    submitChunk();
+                }
+            }
+        }
+
+        @Override
+        public String finish() {
+            if (filled > 0 || (leaves.isEmpty() && !part)) {
+                submitChunk();
+            }
+
+            if (part) {
+                HexFormat hex = HexFormat.of();
+                return leaves.stream()
+                        .map(leaf -> hex.formatHex(leaf.join()))
+                        .collect(Collectors.joining());
+            }
+
+            MessageDigest root = MessageDigestHashingStrategy.newDigest(SHA_256);
+            for (CompletableFuture<byte[]> leaf : leaves) {
+                root.update(leaf.join());
+            }
+            return HexFormat.of().formatHex(root.digest());
+        }
+
+        private void submitChunk() {
+            while (leaves.size() - awaited >= maxConcurrency) {
+                leaves.get(awaited++).join();
+            }
+
+            byte[] data = chunk;
+            int length = filled;
+            leaves.add(CompletableFuture.supplyAsync(() -> {
+                MessageDigest digest = MessageDigestHashingStrategy.newDigest(SHA_256);
+                digest.update(data, 0, length);
+                return digest.digest();
+            }, executor));
+
+            chunk = new byte[chunkSize];
+            filled = 0;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package org.resume.s3filemanager.service.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.resume.s3filemanager.entity.StorageOutboxEntry;
+import org.resume.s3filemanager.enums.StorageAction;
+import org.resume.s3filemanager.properties.StorageOutboxProperties;
+import org.resume.s3filemanager.repository.StorageOutboxRepository;
+import org.resume.s3filemanager.service.storage.StorageBackend;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.IntStream;
+
+/**
+ * Transactional outbox для действий с хранилищем.
+ * <p>
+ * Действие (например, удаление объекта) записывается в таблицу {@code storage_outbox}
+ * в той же транзакции, что и изменение метаданных, а выполняется фоновыми обработчиками.
+ * Поэтому запрос не ждет S3, а действие не теряется при сбое S3 или узла.
+ * <ul>
+ *   <li>Обработчики на всех узлах забирают записи через {@code FOR UPDATE SKIP LOCKED}</li>
+ *   <li>Удаления выполняются пачками запросов DeleteObjects</li>
+ *   <li>Неудачные попытки повторяются с экспоненциальной задержкой</li>
+ * </ul>
+ * Метрики: {@code storage.outbox.completed}, {@code .retried}, {@code .abandoned}.
+ */
+@Slf4j
+@Service
+@EnableConfigurationProperties(StorageOutboxProperties.class)
+public class StorageOutboxService {
+
+    private final StorageOutboxRepository storageOutboxRepository;
+    private final StorageBackend storageBackend;
+    private final StorageOutboxProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor storageExecutor;
+    private final Counter completed;
+    private final Counter retried;
+    private final Counter abandoned;
+
+    public StorageOutboxService(StorageOutboxRepository storageOutboxRepository,
+                                StorageBackend storageBackend,
+                                StorageOutboxProperties properties,
+                                TransactionTemplate transactionTemplate,
+                                Executor storageExecutor,
+                                MeterRegistry meterRegistry) {
+        this.storageOutboxRepository = storageOutboxRepository;
+        this.storageBackend = storageBackend;
+        this.properties = properties;
+        this.transactionTemplate = transactionTemplate;
+        this.storageExecutor = storageExecutor;
+        this.completed = meterRegistry.counter("storage.outbox.completed");
+        this.retried = meterRegistry.counter("storage.outbox.retried");
+        this.abandoned = meterRegistry.counter("storage.outbox.abandoned");
+    }
+
+    /**
+     * Записывает удаление объекта. Присоединяется к текущей транзакции, если она есть.
+     *
+     * @param objectKey ключ объекта в S3
+     */
+    @Transactional
+    public void enqueueDelete(String objectKey) {
+        enqueueDeletes(List.of(objectKey));
+    }
+
+    /**
+     * Записывает удаление нескольких объектов одним INSERT ... SELECT unnest.
+     * Присоединяется к текущей транзакции, если она есть.
+     *
+     * @param objectKeys ключи объектов в S3
+     */
+    @Transactional
+    public void enqueueDeletes(Collection<String> objectKeys) {
+        if (objectKeys.isEmpty()) {
+            return;
+        }
+        storageOutboxRepository.insertAll(
+                StorageAction.DELETE_OBJECT.name(),
+                objectKeys.toArray(String[]::new),
+                Instant.now()
+        );
+    }
+
+    /**
+     * Откладывает удаление объекта, загруженного в S3, но не зарегистрированного в базе.
+     * <p>
+     * Если записать действие не удалось (база недоступна), объект удаляется сразу;
+     * при неудаче и этого шага его найдет сверка хранилища.
+     *
+     * @param objectKey ключ объекта в S3
+     */
+    public void enqueueCompensation(String objectKey) {
+        try {
+            enqueueDelete(objectKey);
+            log.info("S3 upload rollback scheduled: {}", objectKey);
+        } catch (DataAccessException e) {
+            log.warn("Unable to schedule S3 upload rollback, deleting inline: {}", objectKey, e);
+            try {
+                storageBackend.delete(objectKey);
+            } catch (Exception ex) {
+                log.error("Failed to rollback S3 upload: {}", objectKey, ex);
+            }
+        }
+    }
+
+    /**
+     * Запускает обработчиков outbox и дожидается, пока готовые записи не закончатся.
+     */
+    @Scheduled(fixedDelayString = "${app.storage-outbox.poll-interval}")
+    public void processPending() {
+        List<CompletableFuture<Void>> workers = IntStream.range(0, properties.getWorkers())
+                .mapToObj(worker -> CompletableFuture.runAsync(this::drain, storageExecutor))
+                .toList();
+
+        workers.forEach(worker -> {
+            try {
+                worker.join();
+            } catch (RuntimeException e) {
+                log.error("Storage outbox worker failed", e.getCause() != null ? e.getCause() : e);
+            }
+        });
+    }
+
+    private void drain() {
+        Integer claimed;
+        do {
+            claimed = transactionTemplate.execute(status -> processBatch());
+        } while (claimed != null && claimed == properties.getBatchSize());
+    }
+
+    /**
+     * Забирает и выполняет одну пачку записей. Выполняется в транзакции,
+     * захваченные строки заблокированы до ее конца.
+     *
+     * @return число захваченных записей
+     */
+    private int processBatch() {
+        List<StorageOutboxEntry> entries = storageOutboxRepository.claimPending(
+                Instant.now(), properties.getMaxAttempts(), properties.getBatchSize());
+        if (entries.isEmpty()) {
+            return 0;
+        }
+
+        List<String> keys = entries.stream().map(StorageOutboxEntry::getObjectKey).toList();
+        Map<String, String> failures = storageBackend.deleteAll(keys);
+
+        List<Long> done = new ArrayList<>();
+        for (StorageOutboxEntry entry : entries) {
+            String error = failures.get(entry.getObjectKey());
+            if (error == null) {
+                done.add(entry.getId());
+                continue;
+            }
+
+            entry.retryLater(Instant.now().plus(backoff(entry.getAttempts())), error);
+            if (entry.getAttempts() >= properties.getMaxAttempts()) {
+                abandoned.increment();
+                log.error("Storage action abandoned after {} attempts: {} {} ({})",
+                        entry.getAttempts(), entry.getAction(), entry.getObjectKey(), error);
+            } else {
+                retried.increment();
+            }
+        }
+
+        storageOutboxRepository.deleteAllByIdIn(done);
+        completed.increment(done.size());
+        log.debug("Storage outbox batch: {} done, {} failed", done.size(), entries.size() - done.size());
+        return entries.size();
+    }
+
+    private Duration backoff(int attempts) {
+        Duration delay = properties.getInitialBackoff().multipliedBy(1L << Math.min(attempts, 20));
+        return delay.compareTo(properties.getMaxBackoff()) > 0 ? properties.getMaxBackoff() : delay;
+    }
+}
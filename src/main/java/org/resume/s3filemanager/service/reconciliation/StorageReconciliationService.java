@@ -0,0 +1,312 @@
+package org.resume.s3filemanager.service.reconciliation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.resume.s3filemanager.dto.ReconciliationReport;
+import org.resume.s3filemanager.entity.FileMetadata;
+import org.resume.s3filemanager.exception.LocalStorageException;
+import org.resume.s3filemanager.exception.ReconciliationInProgressException;
+import org.resume.s3filemanager.exception.S3YandexException;
+import org.resume.s3filemanager.exception.StorageUnavailableException;
+import org.resume.s3filemanager.properties.ReconciliationProperties;
+import org.resume.s3filemanager.repository.FileMetadataRepository;
+import org.resume.s3filemanager.service.file.FileContentService;
+import org.resume.s3filemanager.service.file.FileMetadataService;
+import org.resume.s3filemanager.service.storage.StorageBackend;
+import org.resume.s3filemanager.service.storage.StorageEntry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Сверка объектов S3 с метаданными файлов в базе.
+ * <p>
+ * Сбой между загрузкой в S3 и сохранением метаданных (или неудачная компенсация)
+ * оставляет объект без записи; сбой между удалением из S3 и из базы — запись без объекта.
+ * Сверка находит оба случая слиянием двух отсортированных потоков:
+ * <ul>
+ *   <li>листинга хранилища ({@link StorageBackend#list}) — ключи в побайтовом порядке</li>
+ *   <li>курсора по {@code file_metadata.unique_name} в том же порядке ({@code COLLATE "C"})</li>
+ * </ul>
+ * В памяти находится по одной странице каждого потока и пачка удаляемых имен,
+ * поэтому проход не зависит от числа файлов. Одновременно выполняется не больше
+ * одного прохода на кластер (блокировка Redis).
+ * <p>
+ * Метрики: {@code storage.reconciliation.orphan-objects}, {@code .orphan-rows}.
+ */
+@Slf4j
+@Service
+@EnableConfigurationProperties(ReconciliationProperties.class)
+public class StorageReconciliationService {
+
+    private static final String LOCK_NAME = "storage:reconciliation";
+
+    private final StorageBackend storageBackend;
+    private final FileMetadataRepository fileMetadataRepository;
+    private final FileMetadataService fileMetadataService;
+    private final FileContentService fileContentService;
+    private final RedissonClient redissonClient;
+    private final ReconciliationProperties properties;
+    private final Counter orphanObjectsCounter;
+    private final Counter orphanRowsCounter;
+
+    public StorageReconciliationService(StorageBackend storageBackend,
+                                        FileMetadataRepository fileMetadataRepository,
+                                        FileMetadataService fileMetadataService,
+                                        FileContentService fileContentService,
+                                        RedissonClient redissonClient,
+                                        ReconciliationProperties properties,
+                                        MeterRegistry meterRegistry) {
+        this.storageBackend = storageBackend;
+        this.fileMetadataRepository = fileMetadataRepository;
+        this.fileMetadataService = fileMetadataService;
+        this.fileContentService = fileContentService;
+        this.redissonClient = redissonClient;
+        this.properties = properties;
+        this.orphanObjectsCounter = meterRegistry.counter("storage.reconciliation.orphan-objects");
+        this.orphanRowsCounter = meterRegistry.counter("storage.reconciliation.orphan-rows");
+    }
+
+    /**
+     * Плановая сверка с режимом из {@code app.reconciliation.dry-run}.
+     * Пропускается, если сверка выключена или уже идет на другом узле.
+     */
+    @Scheduled(fixedDelayString = "${app.reconciliation.interval}",
+            initialDelayString = "${app.reconciliation.interval}")
+    public void scheduledReconcile() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        try {
+            reconcile(properties.isDryRun());
+        } catch (ReconciliationInProgressException e) {
+            log.debug("Reconciliation skipped: already running on another node");
+        } catch (S3YandexException | LocalStorageException | StorageUnavailableException | DataAccessException e) {
+            log.error("Storage reconciliation failed", e);
+        }
+    }
+
+    /**
+     * Выполняет один проход сверки.
+     *
+     * @param dryRun только найти расхождения, ничего не удаляя
+     * @return итог прохода
+     * @throws ReconciliationInProgressException если сверка уже выполняется
+     */
+    public ReconciliationReport reconcile(boolean dryRun) {
+        RLock lock = redissonClient.getLock(LOCK_NAME);
+        if (!lock.tryLock()) {
+            throw new ReconciliationInProgressException();
+        }
+
+        try {
+            log.info("Storage reconciliation started (dry run: {})", dryRun);
+            ReconciliationReport report = new Pass(dryRun).run();
+            log.info("Storage reconciliation finished: {}", report);
+            return report;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Один проход слияния листинга S3 и курсора по базе.
+     */
+    private final class Pass {
+
+        private final boolean dryRun;
+        private final Instant cutoff = Instant.now().minus(properties.getGracePeriod());
+        private final List<String> objectBatch = new ArrayList<>();
+        private final List<String> rowBatch = new ArrayList<>();
+
+        private long scannedObjects;
+        private long scannedRows;
+        private long orphanObjects;
+        private long orphanRows;
+        private long recentObjects;
+        private long deletedObjects;
+        private long deletedRows;
+
+        private Pass(boolean dryRun) {
+            this.dryRun = dryRun;
+        }
+
+        ReconciliationReport run() {
+            Iterator<StorageEntry> objects = storageBackend.list(properties.getPageSize()).iterator();
+            KeysetCursor rows = new KeysetCursor();
+
+            StorageEntry object = next(objects);
+            String row = rows.hasNext() ? rows.next() : null;
+
+            while (object != null || row != null) {
+                int order = object == null ? 1 : row == null ? -1 : object.key().compareTo(row);
+
+                if (order < 0) {
+                    onObjectWithoutRow(object);
+                    object = next(objects);
+                } else if (order > 0) {
+                    onRowWithoutObject(row);
+                    row = rows.hasNext() ? rows.next() : null;
+                } else {
+                    object = next(objects);
+                    row = rows.hasNext() ? rows.next() : null;
+                }
+            }
+
+            flushObjects();
+            flushRows();
+            return new ReconciliationReport(dryRun, scannedObjects, scannedRows, orphanObjects, orphanRows,
+                    recentObjects, deletedObjects, deletedRows);
+        }
+
+        private StorageEntry next(Iterator<StorageEntry> objects) {
+            if (!objects.hasNext()) {
+                return null;
+            }
+            scannedObjects++;
+            if (scannedObjects % properties.getPageSize() == 0) {
+                pause();
+            }
+            return objects.next();
+        }
+
+        private void onObjectWithoutRow(StorageEntry object) {
+            if (object.lastModified().isAfter(cutoff)) {
+                recentObjects++;
+                return;
+            }
+
+            orphanObjects++;
+            orphanObjectsCounter.increment();
+            log.warn("Orphan object without metadata: {} ({} bytes, {})",
+                    object.key(), object.size(), object.lastModified());
+
+            if (canDelete()) {
+                objectBatch.add(object.key());
+                if (objectBatch.size() >= properties.getPageSize()) {
+                    flushObjects();
+                }
+            }
+        }
+
+        /**
+         * Страницы листинга и базы читаются в разное время: загрузка, записавшая объект
+         * после чтения его страницы листинга и метаданные до чтения страницы базы,
+         * выглядит как запись без объекта. Поэтому отсутствие объекта перепроверяется
+         * отдельным запросом. Объект загружается до сохранения метаданных, и если
+         * запись уже есть, а объекта нет, он не появится.
+         */
+        private void onRowWithoutObject(String uniqueName) {
+            if (storageBackend.exists(uniqueName)) {
+                log.debug("Object appeared after listing, row kept: {}", uniqueName);
+                return;
+            }
+
+            orphanRows++;
+            orphanRowsCounter.increment();
+            log.warn("Orphan metadata without object: {}", uniqueName);
+
+            if (canDelete()) {
+                rowBatch.add(uniqueName);
+                if (rowBatch.size() >= properties.getPageSize()) {
+                    flushRows();
+                }
+            }
+        }
+
+        private boolean canDelete() {
+            long planned = deletedObjects + deletedRows + objectBatch.size() + rowBatch.size();
+            return !dryRun && planned < properties.getMaxDeletesPerRun();
+        }
+
+        private void flushObjects() {
+            if (objectBatch.isEmpty()) {
+                return;
+            }
+
+            Map<String, String> failures = storageBackend.deleteAll(objectBatch);
+            deletedObjects += objectBatch.size() - failures.size();
+            objectBatch.forEach(fileContentService::invalidate);
+            objectBatch.clear();
+            pause();
+        }
+
+        private void flushRows() {
+            if (rowBatch.isEmpty()) {
+                return;
+            }
+
+            Collection<FileMetadata> files = fileMetadataService.findExistingByUniqueNames(rowBatch).values();
+            deletedRows += fileMetadataService.deleteFilesAndUpdateUserStatuses(files);
+            rowBatch.forEach(fileContentService::invalidate);
+            rowBatch.clear();
+            pause();
+        }
+
+        private void pause() {
+            if (properties.getThrottle().isZero()) {
+                return;
+            }
+            try {
+                Thread.sleep(properties.getThrottle());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Reconciliation interrupted", e);
+            }
+        }
+
+        /**
+         * Постраничный курсор по уникальным именам в базе (keyset pagination).
+         */
+        private final class KeysetCursor implements Iterator<String> {
+
+            private List<String> page = List.of();
+            private int position;
+            private String last = "";
+            private boolean exhausted;
+
+            @Override
+            public boolean hasNext() {
+                if (position < page.size()) {
+                    return true;
+                }
+                if (exhausted) {
+                    return false;
+                }
+
+                if (!page.isEmpty()) {
+                    pause();
+                }
+                page = fileMetadataRepository.findUniqueNamesAfter(last, properties.getPageSize());
+                position = 0;
+                exhausted = page.size() < properties.getPageSize();
+                if (!page.isEmpty()) {
+                    last = page.getLast();
+                }
+                return !page.isEmpty();
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                scannedRows++;
+                return page.get(position++);
+            }
+        }
+    }
+}
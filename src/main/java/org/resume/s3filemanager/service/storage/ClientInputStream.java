@@ -0,0 +1,84 @@
+package org.resume.s3filemanager.service.storage;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Содержимое от клиента (тело запроса), передаваемое в хранилище.
+ * <p>
+ * Ошибки чтения заворачиваются в {@link ClientReadException}: SDK передает их
+ * причиной своей ошибки, и без пометки обрыв соединения клиента выглядел бы
+ * как сбой хранилища ({@link StorageGuard} размыкал бы цепь).
+ */
+public class ClientInputStream extends FilterInputStream {
+
+    public ClientInputStream(InputStream in) {
+        super(in);
+    }
+
+    /**
+     * Проверяет, вызвана ли ошибка чтением содержимого клиента.
+     *
+     * @param error ошибка с цепочкой причин
+     * @return {@code true}, если среди причин есть {@link ClientReadException}
+     */
+    public static boolean isClientReadFailure(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ClientReadException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int read() throws IOException {
+        try {
+            return in.read();
+        } catch (IOException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        try {
+            return in.read(buffer, offset, length);
+        } catch (IOException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        try {
+            return in.skip(n);
+        } catch (IOException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public int available() throws IOException {
+        try {
+            return in.available();
+        } catch (IOException e) {
+            throw wrap(e);
+        }
+    }
+
+    private static IOException wrap(IOException e) {
+        return e instanceof ClientReadException ? e : new ClientReadException(e);
+    }
+
+    /**
+     * Ошибка чтения содержимого, полученного от клиента.
+     */
+    public static final class ClientReadException extends IOException {
+
+        private ClientReadException(IOException cause) {
+            super(cause.getMessage(), cause);
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package org.resume.s3filemanager.service.storage;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.resume.s3filemanager.exception.LocalStorageException;
+import org.resume.s3filemanager.properties.LocalStorageProperties;
+import org.resume.s3filemanager.service.cache.FileRegionInputStream;
+import org.resume.s3filemanager.service.file.StorageObject;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Хранилище файлов в локальной файловой системе.
+ * <p>
+ * Используется для замеров пропускной способности без сети и для небольших
+ * установок без S3. Включается параметром {@code app.storage.backend: local}.
+ * <ul>
+ *   <li>Файлы раскладываются по каталогам из первых символов ключа
+ *   ({@link LocalStorageProperties#getShardDepth()}), поэтому обход каталогов
+ *   в отсортированном порядке дает ключи в порядке листинга S3</li>
+ *   <li>Запись идет во временный файл, который затем атомарно переименовывается:
+ *   читатели видят либо старое содержимое, либо новое целиком</li>
+ *   <li>Чтение идет позиционно из {@link FileChannel}, диапазон не требует
+ *   пропуска начала файла</li>
+ * </ul>
+ * MIME-тип и кодировка содержимого хранятся только в базе.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "app.storage", name = "backend", havingValue = "local")
+@EnableConfigurationProperties(LocalStorageProperties.class)
+public class LocalStorageBackend implements StorageBackend {
+
+    private static final String TEMP_DIRECTORY = ".tmp";
+    private static final int SHARD_WIDTH = 2;
+    private static final Pattern SAFE_KEY = Pattern.compile("[A-Za-z0-9][A-Za-z0-9._-]*");
+
+    private final LocalStorageProperties properties;
+
+    /**
+     * Создает каталог хранилища и удаляет временные файлы незавершенных записей.
+     */
+    @PostConstruct
+    void prepareDirectory() throws IOException {
+        Path temp = properties.getDirectory().resolve(TEMP_DIRECTORY);
+        Files.createDirectories(temp);
+        try (Stream<Path> leftovers = Files.list(temp)) {
+            leftovers.forEach(this::deleteQuietly);
+        }
+        log.info("Local storage ready: {} (shard depth {})", properties.getDirectory(), properties.getShardDepth());
+    }
+
+    @Override
+    public void put(String key, InputStream content, long contentLength, String contentType,
+                    String contentEncoding) {
+        Path target = pathOf(key);
+        Path temp = null;
+        try {
+            temp = createTempFile();
+            long written;
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE);
+                 ReadableByteChannel source = Channels.newChannel(content)) {
+                written = transferFrom(source, channel);
+                if (properties.isSyncOnWrite()) {
+                    channel.force(false);
+                }
+            }
+
+            if (contentLength >= 0 && written != contentLength) {
+                throw new IOException("Expected " + contentLength + " bytes, got " + written);
+            }
+
+            Files.createDirectories(target.getParent());
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            log.debug("File stored locally: {} ({} bytes)", key, written);
+
+        } catch (IOException e) {
+            deleteQuietly(temp);
+            log.error("Local storage error uploading file: {}", key, e);
+            throw new LocalStorageException(e, key);
+        }
+    }
+
+    @Override
+    public StorageObject get(String key) {
+        FileChannel channel = open(key);
+        try {
+            long size = channel.size();
+            return new StorageObject(new FileRegionInputStream(channel, 0, size, true), size);
+        } catch (IOException e) {
+            closeQuietly(channel);
+            throw new LocalStorageException(e, key);
+        }
+    }
+
+    @Override
+    public StorageObject getRange(String key, long start, long end) {
+        FileChannel channel = open(key);
+        try {
+            long length = Math.min(end, channel.size() - 1) - start + 1;
+            return new StorageObject(new FileRegionInputStream(channel, start, Math.max(0, length), true),
+                    Math.max(0, length));
+        } catch (IOException e) {
+            closeQuietly(channel);
+            throw new LocalStorageException(e, key);
+        }
+    }
+
+    @Override
+    public boolean isLocalFilesystem() {
+        return true;
+    }
+
+    @Override
+    public boolean exists(String key) {
+        try {
+            return Files.isRegularFile(pathOf(key));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void delete(String key) {
+        try {
+            Files.deleteIfExists(pathOf(key));
+            log.info("File deleted from local storage: {}", key);
+        } catch (IOException e) {
+            log.error("Local storage error deleting file: {}", key, e);
+            throw new LocalStorageException(e, key);
+        }
+    }
+
+    @Override
+    public Map<String, String> deleteAll(List<String> keys) {
+        Map<String, String> failures = new LinkedHashMap<>();
+        for (String key : keys) {
+            try {
+                Files.deleteIfExists(pathOf(key));
+            } catch (IOException | IllegalArgumentException e) {
+                log.warn("Local storage failed to delete {}: {}", key, e.getMessage());
+                failures.put(key, e.getMessage());
+            }
+        }
+        log.info("Files deleted from local storage: {} of {}", keys.size() - failures.size(), keys.size());
+        return failures;
+    }
+
+    /**
+     * Обходит каталоги шардов в отсортированном порядке; в памяти находится
+     * содержимое только открытых каталогов на текущем пути.
+     */
+    @Override
+    public Iterable<StorageEntry> list(int pageSize) {
+        return EntryIterator::new;
+    }
+
+    @Override
+    public void copy(String sourceKey, String targetKey) {
+        Path target = pathOf(targetKey);
+        Path temp = null;
+        try {
+            temp = createTempFile();
+            try (FileChannel source = open(sourceKey);
+                 FileChannel copy = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                long size = source.size();
+                long position = 0;
+                while (position < size) {
+                    position += source.transferTo(position, size - position, copy);
+                }
+                if (properties.isSyncOnWrite()) {
+                    copy.force(false);
+                }
+            }
+
+            Files.createDirectories(target.getParent());
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        } catch (IOException e) {
+            deleteQuietly(temp);
+            log.error("Local storage error copying {} to {}", sourceKey, targetKey, e);
+            throw new LocalStorageException(e, sourceKey);
+        } catch (LocalStorageException e) {
+            deleteQuietly(temp);
+            throw e;
+        }
+    }
+
+    private FileChannel open(String key) {
+        try {
+            return FileChannel.open(pathOf(key), StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            log.error("File not found in local storage: {}", key);
+            throw new LocalStorageException(e, key);
+        } catch (IOException e) {
+            log.error("Local storage error downloading file: {}", key, e);
+            throw new LocalStorageException(e, key);
+        }
+    }
+
+    private long transferFrom(ReadableByteChannel source, FileChannel target) throws IOException {
+        long position = 0;
+        long transferred;
+        while ((transferred = target.transferFrom(source, position, Long.MAX_VALUE - position)) > 0) {
+            position += transferred;
+        }
+        return position;
+    }
+
+    private Path createTempFile() throws IOException {
+        return Files.createTempFile(properties.getDirectory().resolve(TEMP_DIRECTORY), "put-", ".tmp");
+    }
+
+    /**
+     * Путь файла: каталоги шардов из пар первых символов ключа, затем сам ключ.
+     */
+    private Path pathOf(String key) {
+        int depth = properties.getShardDepth();
+        if (!SAFE_KEY.matcher(key).matches() || key.length() <= depth * SHARD_WIDTH) {
+            throw new IllegalArgumentException("Unsupported storage key: " + key);
+        }
+
+        Path path = properties.getDirectory();
+        for (int level = 0; level < depth; level++) {
+            path = path.resolve(key.substring(level * SHARD_WIDTH, (level + 1) * SHARD_WIDTH));
+        }
+        return path.resolve(key);
+    }
+
+    private void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Failed to delete temporary file: {}", path, e);
+        }
+    }
+
+    private void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // канал не использовался
+        }
+    }
+
+    /**
+     * Обход дерева шардов в глубину с сортировкой каждого каталога.
+     */
+    private final class EntryIterator implements Iterator<StorageEntry> {
+
+        private final Deque<Iterator<Path>> stack = new ArrayDeque<>();
+        private StorageEntry next;
+
+        private EntryIterator() {
+            stack.push(sortedChildren(properties.getDirectory()));
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && !stack.isEmpty()) {
+                Iterator<Path> current = stack.peek();
+                if (!current.hasNext()) {
+                    stack.pop();
+                    continue;
+                }
+
+                Path path = current.next();
+                BasicFileAttributes attributes = attributesOf(path);
+                if (attributes == null) {
+                    continue;
+                }
+                if (attributes.isDirectory()) {
+                    stack.push(sortedChildren(path));
+                } else if (attributes.isRegularFile()) {
+                    next = new StorageEntry(path.getFileName().toString(), attributes.size(),
+                            attributes.lastModifiedTime().toInstant());
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public StorageEntry next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            StorageEntry entry = next;
+            next = null;
+            return entry;
+        }
+
+        private Iterator<Path> sortedChildren(Path directory) {
+            try (Stream<Path> children = Files.list(directory)) {
+                return children
+                        .filter(child -> !child.getFileName().toString().startsWith("."))
+                        .sorted()
+                        .toList()
+                        .iterator();
+            } catch (IOException e) {
+                throw new LocalStorageException(e, directory.toString());
+            }
+        }
+
+        private BasicFileAttributes attributesOf(Path path) {
+            try {
+                return Files.readAttributes(path, BasicFileAttributes.class);
+            } catch (NoSuchFileException e) {
+                return null;
+            } catch (IOException e) {
+                throw new LocalStorageException(e, path.toString());
+            }
+        }
+    }
+}
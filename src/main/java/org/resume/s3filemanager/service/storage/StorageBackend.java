@@ -0,0 +1,135 @@
+package org.resume.s3filemanager.service.storage;
+
+import org.resume.s3filemanager.service.file.StorageObject;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Хранилище содержимого файлов.
+ * <p>
+ * Реализация выбирается параметром {@code app.storage.backend}:
+ * <ul>
+ *   <li>{@code yandex} — Yandex Object Storage (по умолчанию)</li>
+ *   <li>{@code local} — локальная файловая система ({@link LocalStorageBackend})</li>
+ * </ul>
+ * Ключ объекта — уникальное имя файла. Метаданные (MIME-тип, кодировка) хранятся в базе;
+ * хранилище может их не сохранять.
+ */
+public interface StorageBackend {
+
+    /**
+     * Сохраняет объект потоково. Объект становится видимым целиком или не появляется вовсе.
+     *
+     * @param key ключ объекта
+     * @param content поток с содержимым
+     * @param contentLength точный размер содержимого или -1, если он неизвестен
+     * @param contentType MIME-тип содержимого
+     * @param contentEncoding кодировка содержимого (например, {@code gzip}) или {@code null}
+     */
+    void put(String key, InputStream content, long contentLength, String contentType, String contentEncoding);
+
+    /**
+     * Открывает объект на потоковое чтение.
+     *
+     * @param key ключ объекта
+     * @return открытый объект; вызывающий код обязан передать или закрыть его
+     */
+    StorageObject get(String key);
+
+    /**
+     * Открывает диапазон байт объекта.
+     *
+     * @param key ключ объекта
+     * @param start первый байт диапазона
+     * @param end последний байт диапазона (включительно)
+     * @return открытый диапазон
+     */
+    StorageObject getRange(String key, long start, long end);
+
+    /**
+     * Асинхронный вариант {@link #get(String)}. По умолчанию объект открывается
+     * в вызывающем потоке — подходит для хранилищ, открытие в которых не ждет сети.
+     *
+     * @param key ключ объекта
+     * @return future открытого объекта
+     */
+    default CompletableFuture<StorageObject> getAsync(String key) {
+        try {
+            return CompletableFuture.completedFuture(get(key));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Асинхронный вариант {@link #getRange(String, long, long)}.
+     *
+     * @param key ключ объекта
+     * @param start первый байт диапазона
+     * @param end последний байт диапазона (включительно)
+     * @return future открытого диапазона
+     */
+    default CompletableFuture<StorageObject> getRangeAsync(String key, long start, long end) {
+        try {
+            return CompletableFuture.completedFuture(getRange(key, start, end));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Хранятся ли объекты в локальной файловой системе узла.
+     * <p>
+     * Такие объекты не кэшируются и не объединяются {@code SingleFlightFetcher}:
+     * чтение из хранилища не дороже чтения из кэша, а кэш узла лишь скопировал бы
+     * файл с того же диска.
+     *
+     * @return {@code true} для хранилищ на локальной файловой системе
+     */
+    default boolean isLocalFilesystem() {
+        return false;
+    }
+
+    /**
+     * Проверяет наличие объекта без чтения содержимого.
+     *
+     * @param key ключ объекта
+     * @return {@code true}, если объект существует
+     */
+    boolean exists(String key);
+
+    /**
+     * Удаляет объект. Отсутствие объекта ошибкой не считается.
+     *
+     * @param key ключ объекта
+     */
+    void delete(String key);
+
+    /**
+     * Удаляет несколько объектов.
+     *
+     * @param keys ключи объектов
+     * @return ключи, которые удалить не удалось, с описанием ошибки
+     */
+    Map<String, String> deleteAll(List<String> keys);
+
+    /**
+     * Перечисляет все объекты в побайтовом порядке ключей (UTF-8).
+     * Объекты читаются постранично по мере обхода.
+     *
+     * @param pageSize размер страницы (для хранилищ с постраничным листингом)
+     * @return объекты хранилища в порядке ключей
+     */
+    Iterable<StorageEntry> list(int pageSize);
+
+    /**
+     * Копирует объект под новым ключом.
+     *
+     * @param sourceKey ключ исходного объекта
+     * @param targetKey ключ копии
+     */
+    void copy(String sourceKey, String targetKey);
+}
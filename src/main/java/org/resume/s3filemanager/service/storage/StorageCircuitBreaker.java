@@ -0,0 +1,160 @@
+package org.resume.s3filemanager.service.storage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.resume.s3filemanager.properties.StorageResilienceProperties;
+
+import java.time.Duration;
+
+/**
+ * Circuit breaker запросов к хранилищу со счетным скользящим окном.
+ * <p>
+ * CLOSED → OPEN при превышении доли ошибок или медленных запросов,
+ * OPEN → HALF_OPEN по истечении {@code openDuration},
+ * HALF_OPEN → CLOSED или OPEN по результату пробных запросов.
+ * <p>
+ * Каждый пропущенный запрос получает номер поколения состояния; результаты
+ * запросов, начатых до последнего перехода, не учитываются.
+ * Метрики: гауг {@code storage.circuit-breaker.state} (0 — closed, 1 — open, 2 — half-open),
+ * счетчики {@code storage.circuit-breaker.transitions} (теги from, to)
+ * и {@code storage.circuit-breaker.rejected}.
+ */
+@Slf4j
+class StorageCircuitBreaker {
+
+    /**
+     * Номер поколения для отклоненного запроса.
+     */
+    static final long REJECTED = -1;
+
+    private static final byte FAILURE = 1;
+    private static final byte SLOW = 2;
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final StorageResilienceProperties.CircuitBreaker settings;
+    private final MeterRegistry meterRegistry;
+    private final Counter rejected;
+    private final byte[] outcomes;
+
+    private State state = State.CLOSED;
+    private long generation;
+    private long openedAt;
+    private int next;
+    private int calls;
+    private int failures;
+    private int slowCalls;
+    private int halfOpenPermits;
+
+    StorageCircuitBreaker(StorageResilienceProperties.CircuitBreaker settings, MeterRegistry meterRegistry) {
+        this.settings = settings;
+        this.meterRegistry = meterRegistry;
+        this.outcomes = new byte[settings.windowSize()];
+        this.rejected = meterRegistry.counter("storage.circuit-breaker.rejected");
+        meterRegistry.gauge("storage.circuit-breaker.state", this, breaker -> breaker.state().ordinal());
+    }
+
+    /**
+     * Пропускает запрос или отклоняет его в разомкнутом состоянии.
+     *
+     * @return номер поколения для {@link #onSuccess}/{@link #onFailure}/{@link #onIgnored}
+     *         или {@link #REJECTED}
+     */
+    synchronized long tryAcquire() {
+        if (!settings.enabled()) {
+            return generation;
+        }
+        if (state == State.OPEN && System.nanoTime() - openedAt >= settings.openDuration().toNanos()) {
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.OPEN || (state == State.HALF_OPEN && halfOpenPermits == 0)) {
+            rejected.increment();
+            return REJECTED;
+        }
+        if (state == State.HALF_OPEN) {
+            halfOpenPermits--;
+        }
+        return generation;
+    }
+
+    synchronized void onSuccess(long permit, boolean slow) {
+        record(permit, slow ? SLOW : 0);
+    }
+
+    synchronized void onFailure(long permit, boolean slow) {
+        record(permit, (byte) (FAILURE | (slow ? SLOW : 0)));
+    }
+
+    /**
+     * Возвращает пробное разрешение без учета результата (отмена запроса,
+     * ошибка на стороне клиента).
+     */
+    synchronized void onIgnored(long permit) {
+        if (permit == generation && state == State.HALF_OPEN) {
+            halfOpenPermits++;
+        }
+    }
+
+    /**
+     * @return время до перехода в полуоткрытое состояние, не меньше секунды
+     */
+    synchronized Duration retryAfter() {
+        if (state != State.OPEN) {
+            return Duration.ofSeconds(1);
+        }
+        long remaining = settings.openDuration().toNanos() - (System.nanoTime() - openedAt);
+        return Duration.ofNanos(Math.max(remaining, Duration.ofSeconds(1).toNanos()));
+    }
+
+    synchronized State state() {
+        return state;
+    }
+
+    private void record(long permit, byte outcome) {
+        if (!settings.enabled() || permit != generation || state == State.OPEN) {
+            return;
+        }
+
+        if (calls == outcomes.length) {
+            byte evicted = outcomes[next];
+            failures -= evicted & FAILURE;
+            slowCalls -= (evicted & SLOW) >> 1;
+        } else {
+            calls++;
+        }
+        outcomes[next] = outcome;
+        next = (next + 1) % outcomes.length;
+        failures += outcome & FAILURE;
+        slowCalls += (outcome & SLOW) >> 1;
+
+        int required = state == State.HALF_OPEN ? settings.halfOpenCalls() : settings.minimumCalls();
+        if (calls < required) {
+            return;
+        }
+        if (failures >= settings.failureRateThreshold() * calls
+                || slowCalls >= settings.slowCallRateThreshold() * calls) {
+            log.warn("Storage circuit breaker opened: {} failures, {} slow of {} calls", failures, slowCalls, calls);
+            transitionTo(State.OPEN);
+        } else if (state == State.HALF_OPEN) {
+            log.info("Storage circuit breaker closed after {} trial calls", calls);
+            transitionTo(State.CLOSED);
+        }
+    }
+
+    private void transitionTo(State target) {
+        meterRegistry.counter("storage.circuit-breaker.transitions",
+                "from", state.name().toLowerCase(), "to", target.name().toLowerCase()).increment();
+        state = target;
+        generation++;
+        next = 0;
+        calls = 0;
+        failures = 0;
+        slowCalls = 0;
+        if (target == State.OPEN) {
+            openedAt = System.nanoTime();
+        } else if (target == State.HALF_OPEN) {
+            halfOpenPermits = settings.halfOpenCalls();
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package org.resume.s3filemanager.service.storage;
+
+import java.time.Instant;
+
+/**
+ * Объект хранилища в листинге.
+ *
+ * @param key ключ объекта
+ * @param size размер объекта в байтах
+ * @param lastModified время последнего изменения
+ */
+public record StorageEntry(String key, long size, Instant lastModified) {
+}
@@ -0,0 +1,320 @@
+package org.resume.s3filemanager.service.storage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.resume.s3filemanager.enums.StorageOperation;
+import org.resume.s3filemanager.exception.StorageUnavailableException;
+import org.resume.s3filemanager.properties.StorageResilienceProperties;
+import org.resume.s3filemanager.service.file.StorageObject;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.http.Abortable;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Защита от деградации объектного хранилища: circuit breaker и bulkhead.
+ * <p>
+ * Пока хранилище отвечает ошибками или медленно, запросы не копятся в потоках,
+ * а сразу завершаются {@link StorageUnavailableException} (503 с Retry-After).
+ * <ul>
+ *   <li>Circuit breaker общий для всех операций ({@link StorageCircuitBreaker})</li>
+ *   <li>Загрузки и скачивания ограничены раздельными семафорами; разрешение
+ *   скачивания держится до закрытия потока содержимого</li>
+ *   <li>Ошибкой хранилища считаются ошибки SDK и таймауты, кроме ответов 4xx
+ *   (кроме 429): хранилище ответило, значит, оно доступно</li>
+ *   <li>Длительность загрузки зависит от размера файла, поэтому медленные
+ *   загрузки не учитываются</li>
+ * </ul>
+ * Метрики: гауг {@code storage.bulkhead.available} и счетчик {@code storage.bulkhead.rejected}
+ * с тегом {@code operation}.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(StorageResilienceProperties.class)
+public class StorageGuard {
+
+    private static final Duration BULKHEAD_RETRY_AFTER = Duration.ofSeconds(1);
+
+    private final StorageResilienceProperties properties;
+    private final StorageCircuitBreaker circuitBreaker;
+    private final Map<StorageOperation, Bulkhead> bulkheads = new EnumMap<>(StorageOperation.class);
+
+    public StorageGuard(StorageResilienceProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.circuitBreaker = new StorageCircuitBreaker(properties.getCircuitBreaker(), meterRegistry);
+        StorageResilienceProperties.Bulkhead limits = properties.getBulkhead();
+        bulkheads.put(StorageOperation.UPLOAD, new Bulkhead(StorageOperation.UPLOAD, limits.uploads(), meterRegistry));
+        bulkheads.put(StorageOperation.DOWNLOAD, new Bulkhead(StorageOperation.DOWNLOAD, limits.downloads(), meterRegistry));
+    }
+
+    /**
+     * Выполняет запрос к хранилищу под защитой.
+     *
+     * @param operation класс операции
+     * @param call запрос
+     * @return результат запроса
+     * @throws StorageUnavailableException если цепь разомкнута или лимит операции исчерпан
+     */
+    public <T> T call(StorageOperation operation, Supplier<T> call) {
+        long permit = acquire(operation, properties.getBulkhead().maxWait());
+        long started = System.nanoTime();
+        try {
+            T result = call.get();
+            complete(permit, operation, started, null);
+            return result;
+        } catch (RuntimeException e) {
+            complete(permit, operation, started, e);
+            throw e;
+        } finally {
+            release(operation);
+        }
+    }
+
+    /**
+     * Выполняет запрос к хранилищу без результата под защитой.
+     *
+     * @throws StorageUnavailableException если цепь разомкнута или лимит операции исчерпан
+     */
+    public void run(StorageOperation operation, Runnable call) {
+        call(operation, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    /**
+     * Открывает объект на чтение под защитой.
+     * <p>
+     * Медленным считается долгое открытие (до ответа с заголовками), а не чтение.
+     * Разрешение скачивания освобождается при закрытии или прерывании объекта.
+     *
+     * @throws StorageUnavailableException если цепь разомкнута или лимит скачиваний исчерпан
+     */
+    public StorageObject open(Supplier<StorageObject> call) {
+        long permit = acquire(StorageOperation.DOWNLOAD, properties.getBulkhead().maxWait());
+        long started = System.nanoTime();
+        try {
+            StorageObject object = call.get();
+            complete(permit, StorageOperation.DOWNLOAD, started, null);
+            return guarded(object);
+        } catch (RuntimeException e) {
+            complete(permit, StorageOperation.DOWNLOAD, started, e);
+            release(StorageOperation.DOWNLOAD);
+            throw e;
+        }
+    }
+
+    /**
+     * Асинхронно открывает объект на чтение под защитой.
+     * <p>
+     * Не ждет свободного места в лимите скачиваний, чтобы не занимать вызывающий поток.
+     * Отмена возвращенного future отменяет открытие.
+     *
+     * @return future открытого объекта; завершается {@link StorageUnavailableException},
+     *         если цепь разомкнута или лимит скачиваний исчерпан
+     */
+    public CompletableFuture<StorageObject> openAsync(Supplier<CompletableFuture<StorageObject>> call) {
+        long permit;
+        try {
+            permit = acquire(StorageOperation.DOWNLOAD, Duration.ZERO);
+        } catch (StorageUnavailableException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        long started = System.nanoTime();
+        CompletableFuture<StorageObject> opening;
+        try {
+            opening = call.get();
+        } catch (RuntimeException e) {
+            complete(permit, StorageOperation.DOWNLOAD, started, e);
+            release(StorageOperation.DOWNLOAD);
+            return CompletableFuture.failedFuture(e);
+        }
+
+        CompletableFuture<StorageObject> result = new CompletableFuture<>();
+        opening.whenComplete((object, error) -> {
+            complete(permit, StorageOperation.DOWNLOAD, started, error);
+            if (error != null) {
+                release(StorageOperation.DOWNLOAD);
+                result.completeExceptionally(error);
+                return;
+            }
+            StorageObject guarded = guarded(object);
+            if (!result.complete(guarded)) {
+                guarded.abort();
+            }
+        });
+        result.whenComplete((object, error) -> {
+            if (result.isCancelled()) {
+                opening.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    private long acquire(StorageOperation operation, Duration maxWait) {
+        long permit = circuitBreaker.tryAcquire();
+        if (permit == StorageCircuitBreaker.REJECTED) {
+            throw new StorageUnavailableException(circuitBreaker.retryAfter());
+        }
+
+        Bulkhead bulkhead = bulkheads.get(operation);
+        if (bulkhead != null && !bulkhead.tryAcquire(maxWait)) {
+            circuitBreaker.onIgnored(permit);
+            log.warn("Storage {} limit reached, rejecting request", operation);
+            throw new StorageUnavailableException(BULKHEAD_RETRY_AFTER);
+        }
+        return permit;
+    }
+
+    private void release(StorageOperation operation) {
+        Bulkhead bulkhead = bulkheads.get(operation);
+        if (bulkhead != null) {
+            bulkhead.release();
+        }
+    }
+
+    private void complete(long permit, StorageOperation operation, long started, Throwable error) {
+        boolean slow = operation != StorageOperation.UPLOAD
+                && System.nanoTime() - started >= properties.getCircuitBreaker().slowCallDuration().toNanos();
+
+        switch (classify(error)) {
+            case SUCCESS -> circuitBreaker.onSuccess(permit, slow);
+            case FAILURE -> circuitBreaker.onFailure(permit, slow);
+            case IGNORED -> circuitBreaker.onIgnored(permit);
+        }
+    }
+
+    private StorageObject guarded(StorageObject object) {
+        return new StorageObject(
+                new GuardedInputStream(object.content(), () -> release(StorageOperation.DOWNLOAD)),
+                object.contentLength()
+        );
+    }
+
+    /**
+     * Ошибки клиента (чтение входящего потока, неверные аргументы) и отмены
+     * о состоянии хранилища ничего не говорят и не учитываются. Ошибку чтения
+     * тела запроса SDK заворачивает в свою, поэтому она ищется по всей цепочке
+     * причин ({@link ClientInputStream}).
+     */
+    static Outcome classify(Throwable error) {
+        if (ClientInputStream.isClientReadFailure(error)) {
+            return Outcome.IGNORED;
+        }
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof CancellationException) {
+                return Outcome.IGNORED;
+            }
+            if (cause instanceof S3Exception e) {
+                boolean clientError = e.statusCode() >= 400 && e.statusCode() < 500
+                        && e.statusCode() != HttpStatus.TOO_MANY_REQUESTS.value();
+                return clientError ? Outcome.SUCCESS : Outcome.FAILURE;
+            }
+            if (cause instanceof SdkException || cause instanceof TimeoutException) {
+                return Outcome.FAILURE;
+            }
+        }
+        return error == null ? Outcome.SUCCESS : Outcome.IGNORED;
+    }
+
+    enum Outcome { SUCCESS, FAILURE, IGNORED }
+
+    /**
+     * Семафор одного класса операций.
+     */
+    private static final class Bulkhead {
+
+        private final Semaphore permits;
+        private final Counter rejected;
+
+        private Bulkhead(StorageOperation operation, int limit, MeterRegistry meterRegistry) {
+            String tag = operation.name().toLowerCase();
+            this.permits = new Semaphore(limit);
+            this.rejected = meterRegistry.counter("storage.bulkhead.rejected", "operation", tag);
+            meterRegistry.gauge("storage.bulkhead.available", Tags.of("operation", tag),
+                    permits, Semaphore::availablePermits);
+        }
+
+        private boolean tryAcquire(Duration maxWait) {
+            try {
+                if (permits.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS)) {
+                    return true;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            rejected.increment();
+            return false;
+        }
+
+        private void release() {
+            permits.release();
+        }
+    }
+
+    /**
+     * Поток содержимого, освобождающий разрешение скачивания один раз
+     * при закрытии или прерывании.
+     */
+    private static final class GuardedInputStream extends FilterInputStream implements Abortable {
+
+        private final Runnable onRelease;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private GuardedInputStream(InputStream in, Runnable onRelease) {
+            super(in);
+            this.onRelease = onRelease;
+        }
+
+        @Override
+        public long transferTo(OutputStream out) throws IOException {
+            return in.transferTo(out);
+        }
+
+        @Override
+        public void abort() {
+            try {
+                if (in instanceof Abortable abortable) {
+                    abortable.abort();
+                }
+            } finally {
+                release();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                release();
+            }
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                onRelease.run();
+            }
+        }
+    }
+}
@@ -4,6 +4,7 @@ import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 
 import java.util.Arrays;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -69,10 +70,22 @@ public enum AllowedFileType {
      * @return true если комбинация разрешена, false в противном случае
      */
     public static boolean isAllowed(String extension, String contentType) {
+        return find(extension, contentType).isPresent();
+    }
+
+    /**
+     * Находит тип файла по расширению и MIME-типу.
+     *
+     * @param extension расширение файла (без точки)
+     * @param contentType MIME-тип файла
+     * @return тип файла, если комбинация разрешена
+     */
+    public static Optional<AllowedFileType> find(String extension, String contentType) {
         return Arrays.stream(values())
-                .anyMatch(type ->
+                .filter(type ->
                         type.extension.equalsIgnoreCase(extension) &&
                                 type.contentType.equalsIgnoreCase(contentType)
-                );
+                )
+                .findFirst();
     }
 }
@@ -0,0 +1,328 @@
+package org.resume.s3filemanager.validation;
+
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Быстрое определение типа файла по магическим числам.
+ * <p>
+ * Сигнатуры всех двоичных типов из {@link AllowedFileType} собраны при старте
+ * в префиксное дерево байт; проверка — один проход по началу файла без выделения памяти.
+ * <ul>
+ *   <li>Байт {@code -1} в шаблоне сигнатуры совпадает с любым байтом (например, размер в RIFF)</li>
+ *   <li>BMP подтверждается заголовком DIB (размер заголовка, одна плоскость, допустимая
+ *   глубина цвета): двух байт {@code BM} мало, с них начинаются и обычные тексты</li>
+ *   <li>ZIP архивы дополнительно разбираются по локальным заголовкам: ODF определяется
+ *   по записи {@code mimetype}, OOXML — по каталогам {@code word/}, {@code xl/}, {@code ppt/}</li>
+ *   <li>Текстовые форматы (TXT, CSV, JSON, XML, SVG, Markdown) сигнатур не имеют
+ *   и не распознаются — для них нужен полноценный детектор</li>
+ * </ul>
+ *
+ * @see TikaFileDetector
+ */
+@Component
+public class FileSignatureMatcher {
+
+    private static final int ANY = -1;
+
+    private static final int ZIP_LOCAL_HEADER_SIZE = 30;
+    private static final int ZIP_DATA_DESCRIPTOR_FLAG = 0x08;
+    private static final int EBML_DOCTYPE_SCAN_LIMIT = 64;
+    private static final int BMP_DIB_HEADER_OFFSET = 14;
+    private static final int BMP_CORE_HEADER_SIZE = 12;
+    private static final int[] BMP_INFO_HEADER_SIZES = {40, 52, 56, 64, 108, 124};
+    private static final int[] BMP_BIT_COUNTS = {1, 4, 8, 16, 24, 32};
+
+    private static final byte[] ZIP_LOCAL_HEADER = {'P', 'K', 3, 4};
+    private static final byte[] ODF_MIMETYPE_ENTRY = ascii("mimetype");
+    private static final byte[] OOXML_CONTENT_TYPES_ENTRY = ascii("[Content_Types].xml");
+    private static final byte[] DOCX_PART = ascii("word/");
+    private static final byte[] XLSX_PART = ascii("xl/");
+    private static final byte[] PPTX_PART = ascii("ppt/");
+    private static final byte[] ODT_MIMETYPE = ascii(AllowedFileType.ODT.getContentType());
+    private static final byte[] WEBM_DOCTYPE = ascii("webm");
+    private static final byte[][] NON_VIDEO_FTYP_BRANDS = {
+            ascii("heic"), ascii("heix"), ascii("mif1"), ascii("msf1"), ascii("avif"), ascii("qt  "),
+            ascii("M4A "), ascii("M4B ")
+    };
+
+    private final Node root = new Node(0);
+    private final int maxSignatureLength;
+
+    public FileSignatureMatcher() {
+        register(AllowedFileType.PDF, ascii("%PDF-"));
+        register(AllowedFileType.RTF, ascii("{\\rtf"));
+
+        register(AllowedFileType.JPEG, 0xFF, 0xD8, 0xFF);
+        register(AllowedFileType.PNG, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A);
+        register(AllowedFileType.GIF, ascii("GIF87a"));
+        register(AllowedFileType.GIF, ascii("GIF89a"));
+        register(AllowedFileType.WEBP, 'R', 'I', 'F', 'F', ANY, ANY, ANY, ANY, 'W', 'E', 'B', 'P');
+        register(AllowedFileType.BMP, 'B', 'M');
+        register(AllowedFileType.ICO, 0x00, 0x00, 0x01, 0x00);
+
+        register(AllowedFileType.MP4, ANY, ANY, ANY, ANY, 'f', 't', 'y', 'p');
+        register(AllowedFileType.WEBM, 0x1A, 0x45, 0xDF, 0xA3);
+
+        register(AllowedFileType.MP3, ascii("ID3"));
+        for (int frameHeader : new int[]{0xFB, 0xFA, 0xF3, 0xF2, 0xE3, 0xE2}) {
+            register(AllowedFileType.MP3, 0xFF, frameHeader);
+        }
+        register(AllowedFileType.WAV, 'R', 'I', 'F', 'F', ANY, ANY, ANY, ANY, 'W', 'A', 'V', 'E');
+        register(AllowedFileType.OGG, ascii("OggS"));
+
+        register(AllowedFileType.ZIP, ZIP_LOCAL_HEADER);
+        register(AllowedFileType.ZIP, 'P', 'K', 5, 6);
+        register(AllowedFileType.RAR, 'R', 'a', 'r', '!', 0x1A, 0x07);
+        register(AllowedFileType.SEVEN_ZIP, '7', 'z', 0xBC, 0xAF, 0x27, 0x1C);
+
+        this.maxSignatureLength = root.depth();
+    }
+
+    /**
+     * Определяет тип файла по начальному фрагменту содержимого.
+     *
+     * @param prefix начальный фрагмент содержимого файла
+     * @return распознанный тип или {@code null}, если сигнатура не найдена
+     *         или по ней нельзя однозначно определить тип
+     */
+    public AllowedFileType match(byte[] prefix) {
+        AllowedFileType type = walk(prefix);
+        if (type == null) {
+            return null;
+        }
+
+        return switch (type) {
+            case ZIP -> matchZipContainer(prefix);
+            case BMP -> isBmpHeader(prefix) ? AllowedFileType.BMP : null;
+            case MP4 -> isVideoFtyp(prefix) ? AllowedFileType.MP4 : null;
+            case WEBM -> contains(prefix, 0, EBML_DOCTYPE_SCAN_LIMIT, WEBM_DOCTYPE) ? AllowedFileType.WEBM : null;
+            default -> type;
+        };
+    }
+
+    /**
+     * Обходит дерево, возвращая тип самой длинной совпавшей сигнатуры.
+     * Шаблоны с {@link #ANY} проверяются как отдельная ветка.
+     */
+    private AllowedFileType walk(byte[] prefix) {
+        Node matched = walk(root, prefix, 0, Math.min(prefix.length, maxSignatureLength));
+        return matched != null ? matched.type : null;
+    }
+
+    private Node walk(Node node, byte[] prefix, int position, int limit) {
+        Node best = node.type != null ? node : null;
+        if (position == limit) {
+            return best;
+        }
+
+        Node exact = node.children[prefix[position] & 0xFF];
+        if (exact != null) {
+            best = deeper(best, walk(exact, prefix, position + 1, limit));
+        }
+        if (node.any != null) {
+            best = deeper(best, walk(node.any, prefix, position + 1, limit));
+        }
+        return best;
+    }
+
+    private static Node deeper(Node current, Node candidate) {
+        if (candidate == null) {
+            return current;
+        }
+        return current == null || candidate.level > current.level ? candidate : current;
+    }
+
+    /**
+     * Уточняет тип ZIP архива по локальным заголовкам записей в префиксе.
+     * <p>
+     * OOXML документ распознается, когда в префиксе есть и {@code [Content_Types].xml},
+     * и часть документа. Разбор останавливается на записи с дескриптором данных
+     * (размер неизвестен заранее) или на границе префикса; если к этому моменту найден
+     * только один из признаков OOXML, тип считается неоднозначным.
+     */
+    private AllowedFileType matchZipContainer(byte[] prefix) {
+        boolean contentTypes = false;
+        AllowedFileType part = null;
+        int offset = 0;
+
+        while (offset + ZIP_LOCAL_HEADER_SIZE <= prefix.length
+                && startsWith(prefix, offset, ZIP_LOCAL_HEADER)) {
+            int flags = readShort(prefix, offset + 6);
+            long compressedSize = readInt(prefix, offset + 18);
+            int nameLength = readShort(prefix, offset + 26);
+            int extraLength = readShort(prefix, offset + 28);
+            int nameOffset = offset + ZIP_LOCAL_HEADER_SIZE;
+            int dataOffset = nameOffset + nameLength + extraLength;
+
+            if (nameOffset + nameLength > prefix.length) {
+                break;
+            }
+
+            if (offset == 0 && equalsRegion(prefix, nameOffset, nameLength, ODF_MIMETYPE_ENTRY)) {
+                return equalsRegion(prefix, dataOffset, (int) compressedSize, ODT_MIMETYPE)
+                        ? AllowedFileType.ODT
+                        : null;
+            }
+            if (equalsRegion(prefix, nameOffset, nameLength, OOXML_CONTENT_TYPES_ENTRY)) {
+                contentTypes = true;
+            } else if (part == null) {
+                part = ooxmlPart(prefix, nameOffset);
+            }
+            if (contentTypes && part != null) {
+                return part;
+            }
+
+            if ((flags & ZIP_DATA_DESCRIPTOR_FLAG) != 0 && compressedSize == 0) {
+                break;
+            }
+            offset = (int) Math.min(Integer.MAX_VALUE, dataOffset + compressedSize);
+        }
+
+        return contentTypes || part != null ? null : AllowedFileType.ZIP;
+    }
+
+    private AllowedFileType ooxmlPart(byte[] prefix, int nameOffset) {
+        if (startsWith(prefix, nameOffset, DOCX_PART)) {
+            return AllowedFileType.DOCX;
+        }
+        if (startsWith(prefix, nameOffset, XLSX_PART)) {
+            return AllowedFileType.XLSX;
+        }
+        if (startsWith(prefix, nameOffset, PPTX_PART)) {
+            return AllowedFileType.PPTX;
+        }
+        return null;
+    }
+
+    /**
+     * Проверяет заголовок DIB после {@code BM}: BITMAPCOREHEADER хранит число плоскостей
+     * и глубину цвета 16-битными полями со смещения 22, остальные версии — со смещения 26.
+     */
+    private boolean isBmpHeader(byte[] prefix) {
+        if (prefix.length < BMP_DIB_HEADER_OFFSET + 4) {
+            return false;
+        }
+        long headerSize = readInt(prefix, BMP_DIB_HEADER_OFFSET);
+        int fieldsOffset;
+        if (headerSize == BMP_CORE_HEADER_SIZE) {
+            fieldsOffset = 22;
+        } else if (contains(BMP_INFO_HEADER_SIZES, headerSize)) {
+            fieldsOffset = 26;
+        } else {
+            return false;
+        }
+        return prefix.length >= fieldsOffset + 4
+                && readShort(prefix, fieldsOffset) == 1
+                && contains(BMP_BIT_COUNTS, readShort(prefix, fieldsOffset + 2));
+    }
+
+    private boolean isVideoFtyp(byte[] prefix) {
+        for (byte[] brand : NON_VIDEO_FTYP_BRANDS) {
+            if (startsWith(prefix, 8, brand)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void register(AllowedFileType type, byte[] signature) {
+        Node node = root;
+        for (byte b : signature) {
+            node = node.child(b & 0xFF);
+        }
+        node.type = type;
+    }
+
+    private void register(AllowedFileType type, int... signature) {
+        Node node = root;
+        for (int b : signature) {
+            node = node.child(b);
+        }
+        node.type = type;
+    }
+
+    private static boolean startsWith(byte[] data, int offset, byte[] expected) {
+        if (offset < 0 || offset + expected.length > data.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (data[offset + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean equalsRegion(byte[] data, int offset, int length, byte[] expected) {
+        return length == expected.length && startsWith(data, offset, expected);
+    }
+
+    private static boolean contains(byte[] data, int from, int to, byte[] expected) {
+        int last = Math.min(to, data.length) - expected.length;
+        for (int offset = from; offset <= last; offset++) {
+            if (startsWith(data, offset, expected)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean contains(int[] values, long value) {
+        for (int candidate : values) {
+            if (candidate == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int readShort(byte[] data, int offset) {
+        return (data[offset] & 0xFF) | (data[offset + 1] & 0xFF) << 8;
+    }
+
+    private static long readInt(byte[] data, int offset) {
+        return readShort(data, offset) | (long) readShort(data, offset + 2) << 16;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Узел префиксного дерева сигнатур.
+     */
+    private static final class Node {
+
+        private final Node[] children = new Node[256];
+        private final int level;
+        private Node any;
+        private AllowedFileType type;
+
+        private Node(int level) {
+            this.level = level;
+        }
+
+        private Node child(int value) {
+            if (value == ANY) {
+                return any != null ? any : (any = new Node(level + 1));
+            }
+            Node child = children[value];
+            return child != null ? child : (children[value] = new Node(level + 1));
+        }
+
+        private int depth() {
+            int depth = 0;
+            for (Node child : children) {
+                if (child != null) {
+                    depth = Math.max(depth, child.depth() + 1);
+                }
+            }
+            if (any != null) {
+                depth = Math.max(depth, any.depth() + 1);
+            }
+            return depth;
+        }
+    }
+}
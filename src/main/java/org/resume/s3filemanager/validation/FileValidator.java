@@ -10,6 +10,7 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Optional;
 
 /**
@@ -18,9 +19,11 @@ import java.util.Optional;
  * Выполняет валидацию на основе:
  * <ul>
  *   <li>Расширения и MIME-типа файла (первый уровень)</li>
- *   <li>Реальной сигнатуры файла через Apache Tika (второй уровень)</li>
+ *   <li>Реальной сигнатуры файла по магическим числам, для текстовых форматов — через Apache Tika (второй уровень)</li>
  * </ul>
  * Защищает от подмены типа файла путем переименования.
+ * Для проверки сигнатуры читается только ограниченный префикс файла,
+ * содержимое целиком в память не загружается.
  *
  * @see ValidFile
  * @see TikaFileDetector
@@ -30,6 +33,11 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class FileValidator implements ConstraintValidator<ValidFile, MultipartFile> {
 
+    /**
+     * Размер начального фрагмента файла, достаточный для определения сигнатуры.
+     */
+    public static final int SIGNATURE_PREFIX_SIZE = 64 * 1024;
+
     private final TikaFileDetector tikaFileDetector;
 
     /**
@@ -66,6 +74,29 @@ public class FileValidator implements ConstraintValidator<ValidFile, MultipartFi
         }
 
         String filename = file.getOriginalFilename();
+        String contentType = file.getContentType();
+        Optional<String> typeError = validateDeclaredType(filename, contentType);
+        if (typeError.isPresent()) {
+            return typeError;
+        }
+
+        try (InputStream content = file.getInputStream()) {
+            return validateSignature(content.readNBytes(SIGNATURE_PREFIX_SIZE), filename, contentType);
+
+        } catch (IOException e) {
+            log.error("Error reading file: {}", filename, e);
+            return Optional.of(ValidationMessages.FILE_PROCESSING_ERROR);
+        }
+    }
+
+    /**
+     * Проверяет имя файла и заявленный MIME-тип без чтения содержимого.
+     *
+     * @param filename оригинальное имя файла
+     * @param contentType заявленный MIME-тип
+     * @return Optional с сообщением об ошибке; пустой Optional, если тип разрешен
+     */
+    public Optional<String> validateDeclaredType(String filename, String contentType) {
         if (filename == null || filename.isBlank()) {
             return Optional.of(ValidationMessages.FILE_TYPE_UNKNOWN);
         }
@@ -76,7 +107,6 @@ public class FileValidator implements ConstraintValidator<ValidFile, MultipartFi
         }
         extension = extension.toLowerCase();
 
-        String contentType = file.getContentType();
         if (contentType == null || contentType.isBlank()) {
             return Optional.of(ValidationMessages.FILE_TYPE_UNKNOWN);
         }
@@ -87,21 +117,28 @@ public class FileValidator implements ConstraintValidator<ValidFile, MultipartFi
             );
         }
 
-        try {
-            byte[] fileBytes = file.getBytes();
-            boolean isValid = tikaFileDetector.verifyContentType(fileBytes, filename, contentType);
+        return Optional.empty();
+    }
 
-            if (!isValid) {
-                return Optional.of(
-                        String.format(ValidationMessages.FILE_SIGNATURE_MISMATCH, extension)
-                );
+    /**
+     * Проверяет соответствие сигнатуры файла заявленному типу.
+     *
+     * @param prefix начальный фрагмент содержимого (не более {@link #SIGNATURE_PREFIX_SIZE} байт)
+     * @param filename оригинальное имя файла
+     * @param contentType заявленный MIME-тип
+     * @return Optional с сообщением об ошибке; пустой Optional, если сигнатура совпадает
+     */
+    public Optional<String> validateSignature(byte[] prefix, String filename, String contentType) {
+        try {
+            if (!tikaFileDetector.verifyContentType(prefix, filename, contentType)) {
+                return Optional.of(String.format(
+                        ValidationMessages.FILE_SIGNATURE_MISMATCH,
+                        StringUtils.getFilenameExtension(filename)
+                ));
             }
 
             return Optional.empty();
 
-        } catch (IOException e) {
-            log.error("Error reading file: {}", filename, e);
-            return Optional.of(ValidationMessages.FILE_PROCESSING_ERROR);
         } catch (Exception e) {
             log.error("Unexpected error during validation: {}", filename, e);
             return Optional.of(ValidationMessages.FILE_PROCESSING_ERROR);
@@ -11,8 +11,11 @@ import org.springframework.stereotype.Component;
  * <p>
  * Анализирует магические байты (file signature) для определения
  * фактического типа файла, защищая от подмены через переименование.
+ * Двоичные форматы распознаются {@link FileSignatureMatcher} без обращения к Tika;
+ * Tika используется для текстовых и неоднозначных случаев.
  *
  * @see Tika
+ * @see FileSignatureMatcher
  */
 @Slf4j
 @Component
@@ -20,11 +23,12 @@ import org.springframework.stereotype.Component;
 public class TikaFileDetector {
 
     private final Tika tika;
+    private final FileSignatureMatcher signatureMatcher;
 
     /**
      * Определяет реальный MIME-тип файла по его содержимому.
      *
-     * @param fileBytes содержимое файла
+     * @param fileBytes начальный фрагмент содержимого файла
      * @param fileName имя файла (используется как подсказка для Tika)
      * @return определенный MIME-тип
      */
@@ -37,16 +41,21 @@ public class TikaFileDetector {
     /**
      * Проверяет соответствие реального типа файла заявленному.
      * <p>
-     * Сравнивает тип, определенный через Tika, с MIME-типом,
-     * указанным клиентом, после нормализации обоих значений.
+     * Сравнивает тип, определенный по сигнатуре (или через Tika, если сигнатура
+     * не распознана), с MIME-типом, указанным клиентом, после нормализации обоих значений.
      *
-     * @param fileBytes содержимое файла
+     * @param fileBytes начальный фрагмент содержимого файла
      * @param fileName имя файла
      * @param declaredContentType MIME-тип, заявленный клиентом
      * @return true если типы совпадают, false при несоответствии
      */
     public boolean verifyContentType(byte[] fileBytes, String fileName, String declaredContentType) {
-        String normalizedRealType = normalizeContentType(detectContentType(fileBytes, fileName));
+        AllowedFileType signatureType = signatureMatcher.match(fileBytes);
+        String realType = signatureType != null
+                ? signatureType.getContentType()
+                : detectContentType(fileBytes, fileName);
+
+        String normalizedRealType = normalizeContentType(realType);
         String normalizedDeclaredType = normalizeContentType(declaredContentType);
 
         if (normalizedRealType.equalsIgnoreCase(normalizedDeclaredType)) {
@@ -0,0 +1,4 @@
+ALTER TABLE file_metadata
+    ADD COLUMN hash_algorithm VARCHAR(20) NOT NULL DEFAULT 'MD5';
+
+COMMENT ON COLUMN file_metadata.hash_algorithm IS 'Алгоритм хеша file_hash: MD5, SHA256, SHA256_TREE';
@@ -0,0 +1,6 @@
+ALTER TABLE file_metadata
+    ADD COLUMN content_encoding VARCHAR(20),
+    ADD COLUMN stored_size BIGINT;
+
+COMMENT ON COLUMN file_metadata.content_encoding IS 'Кодировка содержимого в хранилище (gzip) или NULL, если файл хранится как есть';
+COMMENT ON COLUMN file_metadata.stored_size IS 'Размер объекта в хранилище с учетом сжатия';
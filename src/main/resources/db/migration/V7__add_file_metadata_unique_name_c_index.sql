@@ -0,0 +1,3 @@
+CREATE INDEX idx_file_metadata_unique_name_c ON file_metadata (unique_name COLLATE "C");
+
+COMMENT ON INDEX idx_file_metadata_unique_name_c IS 'Побайтовый порядок имен для сверки с листингом S3';
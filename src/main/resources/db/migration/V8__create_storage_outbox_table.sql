@@ -0,0 +1,16 @@
+CREATE TABLE IF NOT EXISTS storage_outbox
+(
+    id              BIGSERIAL PRIMARY KEY,
+    action          VARCHAR(20)   NOT NULL,
+    object_key      VARCHAR(1024) NOT NULL,
+    attempts        INT           NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP     NOT NULL,
+    last_error      TEXT,
+    created_at      TIMESTAMP     NOT NULL
+);
+
+COMMENT ON TABLE storage_outbox IS 'Действия с хранилищем, записанные в одной транзакции с метаданными и выполняемые фоновым обработчиком';
+COMMENT ON COLUMN storage_outbox.action IS 'Тип действия: DELETE_OBJECT';
+COMMENT ON COLUMN storage_outbox.next_attempt_at IS 'Время следующей попытки с учетом экспоненциальной задержки';
+
+CREATE INDEX idx_storage_outbox_next_attempt_at ON storage_outbox(next_attempt_at);
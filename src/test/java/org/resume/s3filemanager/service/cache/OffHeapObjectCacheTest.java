@@ -0,0 +1,122 @@
+package org.resume.s3filemanager.service.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.resume.s3filemanager.properties.OffHeapCacheProperties;
+import org.resume.s3filemanager.service.file.StorageObject;
+import org.resume.s3filemanager.validation.AllowedFileType;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OffHeapObjectCacheTest {
+
+    private static final int PAGE_SIZE = 16;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    /**
+     * Четыре страницы по 16 байт.
+     */
+    private final OffHeapObjectCache cache = new OffHeapObjectCache(
+            new OffHeapCacheProperties(
+                    true,
+                    DataSize.ofBytes(4 * PAGE_SIZE),
+                    DataSize.ofBytes(PAGE_SIZE),
+                    DataSize.ofBytes(4 * PAGE_SIZE),
+                    Set.of(AllowedFileType.PDF)
+            ),
+            meterRegistry
+    );
+
+    @Test
+    void loadedObjectIsServedFromMemory() throws IOException {
+        byte[] content = content(40, 1);
+
+        assertThat(read(cache.load("a", source(content)))).isEqualTo(content);
+        assertThat(read(cache.open("a", 5, 20).orElseThrow())).isEqualTo(Arrays.copyOfRange(content, 5, 21));
+        assertThat(cache.open("b", 0, 1)).isEmpty();
+        assertThat(meterRegistry.counter("file.cache.memory.hits").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter("file.cache.memory.misses").count()).isEqualTo(1);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() throws IOException {
+        read(cache.load("a", source(content(32, 1))));
+        read(cache.load("b", source(content(32, 2))));
+        read(cache.open("a", 0, 0).orElseThrow());
+
+        read(cache.load("c", source(content(32, 3))));
+
+        assertThat(cache.open("b", 0, 0)).isEmpty();
+        assertThat(cache.open("a", 0, 0)).isPresent();
+        assertThat(evictions()).isEqualTo(1);
+    }
+
+    @Test
+    void openStreamKeepsPagesOfInvalidatedObject() throws IOException {
+        byte[] content = content(64, 1);
+        StorageObject reading = cache.load("a", source(content));
+        cache.invalidate("a");
+
+        StorageObject other = source(content(64, 2));
+        assertThat(cache.load("b", other)).isSameAs(other);
+        assertThat(read(reading)).isEqualTo(content);
+
+        assertThat(cache.load("b", source(content(64, 2)))).isNotSameAs(other);
+    }
+
+    @Test
+    void skipsObjectsBeingRead() throws IOException {
+        StorageObject reading = cache.load("a", source(content(32, 1)));
+        read(cache.load("b", source(content(32, 2))));
+
+        read(cache.load("c", source(content(32, 3))));
+
+        assertThat(cache.open("b", 0, 0)).isEmpty();
+        assertThat(evictions()).isEqualTo(1);
+        reading.close();
+        assertThat(cache.open("a", 0, 0)).isPresent();
+    }
+
+    @Test
+    void doesNotEvictWhenPagesCannotBeFreed() throws IOException {
+        StorageObject reading = cache.load("a", source(content(32, 1)));
+        read(cache.load("b", source(content(32, 2))));
+
+        StorageObject large = source(content(64, 3));
+        assertThat(cache.load("c", large)).isSameAs(large);
+
+        assertThat(evictions()).isZero();
+        assertThat(cache.open("b", 0, 0)).isPresent();
+        reading.close();
+    }
+
+    private double evictions() {
+        return meterRegistry.counter("file.cache.memory.evictions").count();
+    }
+
+    private static StorageObject source(byte[] content) {
+        return new StorageObject(new ByteArrayInputStream(content), content.length);
+    }
+
+    private static byte[] read(StorageObject object) throws IOException {
+        try (object) {
+            return object.content().readAllBytes();
+        }
+    }
+
+    private static byte[] content(int size, int seed) {
+        byte[] content = new byte[size];
+        for (int i = 0; i < size; i++) {
+            content[i] = (byte) (seed * 31 + i);
+        }
+        return content;
+    }
+}
@@ -0,0 +1,233 @@
+package org.resume.s3filemanager.service.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.resume.s3filemanager.exception.S3YandexException;
+import org.resume.s3filemanager.properties.DiskCacheProperties;
+import org.resume.s3filemanager.service.file.StorageObject;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.http.Abortable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightFetcherTest {
+
+    private static final String KEY = "flight.pdf";
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Path directory = createDirectory();
+    private final DiskDownloadCache diskDownloadCache = new DiskDownloadCache(
+            new DiskCacheProperties(true, directory, DataSize.ofMegabytes(1), DataSize.ofMegabytes(1)),
+            meterRegistry
+    );
+    private final SingleFlightFetcher fetcher = new SingleFlightFetcher(diskDownloadCache, executor, meterRegistry);
+    private final AtomicInteger opened = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() throws IOException {
+        executor.shutdownNow();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Test
+    void concurrentReadersShareOneDownload() throws Exception {
+        GatedSource source = new GatedSource(content(100_000));
+
+        StorageObject first = fetcher.fetch(KEY, opener(source));
+        StorageObject second = fetcher.fetch(KEY, opener(source));
+        source.release();
+
+        assertThat(read(first)).isEqualTo(source.content);
+        assertThat(read(second)).isEqualTo(source.content);
+        assertThat(opened).hasValue(1);
+        assertThat(meterRegistry.counter("file.fetch.single-flight.leaders").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter("file.fetch.single-flight.joins").count()).isEqualTo(1);
+    }
+
+    @Test
+    void openFailureReachesAllWaiters() throws Exception {
+        CountDownLatch failOpen = new CountDownLatch(1);
+        Supplier<StorageObject> failing = () -> {
+            opened.incrementAndGet();
+            await(failOpen);
+            throw new S3YandexException(new IOException("connection reset"), KEY);
+        };
+
+        CompletableFuture<StorageObject> first = CompletableFuture.supplyAsync(() -> fetcher.fetch(KEY, failing));
+        CompletableFuture<StorageObject> second = CompletableFuture.supplyAsync(() -> fetcher.fetch(KEY, failing));
+        awaitJoins(1);
+        failOpen.countDown();
+
+        assertThatThrownBy(first::join).hasCauseInstanceOf(S3YandexException.class);
+        assertThatThrownBy(second::join).hasCauseInstanceOf(S3YandexException.class);
+        assertThat(opened).hasValue(1);
+    }
+
+    @Test
+    void downloadFailureReachesAllReaders() throws Exception {
+        GatedSource source = new GatedSource(content(100_000));
+
+        StorageObject first = fetcher.fetch(KEY, opener(source));
+        StorageObject second = fetcher.fetch(KEY, opener(source));
+        source.fail();
+
+        assertThatThrownBy(() -> read(first)).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> read(second)).isInstanceOf(IOException.class);
+        assertThat(diskDownloadCache.open(KEY, 0, 0)).isEmpty();
+    }
+
+    @Test
+    void downloadIsAbortedWhenAllReadersLeave() throws Exception {
+        GatedSource source = new GatedSource(content(100_000));
+
+        StorageObject first = fetcher.fetch(KEY, opener(source));
+        StorageObject second = fetcher.fetch(KEY, opener(source));
+        first.close();
+        assertThat(source.aborted.getCount()).isEqualTo(1);
+        second.close();
+
+        assertThat(source.aborted.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(diskDownloadCache.open(KEY, 0, 0)).isEmpty();
+        assertThat(tempFiles()).isEmpty();
+    }
+
+    @Test
+    void completedDownloadIsAdoptedIntoDiskCache() throws Exception {
+        GatedSource source = new GatedSource(content(100_000));
+
+        StorageObject object = fetcher.fetch(KEY, opener(source));
+        source.release();
+        read(object);
+
+        StorageObject cached = diskDownloadCache.open(KEY, 0, source.content.length - 1).orElseThrow();
+        assertThat(read(cached)).isEqualTo(source.content);
+        assertThat(tempFiles()).isEmpty();
+    }
+
+    private Supplier<StorageObject> opener(GatedSource source) {
+        return () -> {
+            opened.incrementAndGet();
+            return new StorageObject(source, source.content.length);
+        };
+    }
+
+    private void awaitJoins(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.counter("file.fetch.single-flight.joins").count() < expected) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private List<Path> tempFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory.resolve("tmp"))) {
+            return files.toList();
+        }
+    }
+
+    private static byte[] read(StorageObject object) throws IOException {
+        try (object) {
+            return object.content().readAllBytes();
+        }
+    }
+
+    private static byte[] content(int size) {
+        byte[] content = new byte[size];
+        for (int i = 0; i < size; i++) {
+            content[i] = (byte) (i * 31);
+        }
+        return content;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Path createDirectory() {
+        try {
+            return Files.createTempDirectory("single-flight");
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Ответ хранилища: первая половина содержимого доступна сразу,
+     * вторая — после {@link #release()}; {@link #fail()} обрывает чтение.
+     */
+    private static final class GatedSource extends InputStream implements Abortable {
+
+        private final byte[] content;
+        private final CountDownLatch gate = new CountDownLatch(1);
+        private final CountDownLatch aborted = new CountDownLatch(1);
+        private volatile boolean failed;
+        private int position;
+
+        private GatedSource(byte[] content) {
+            this.content = content;
+        }
+
+        void release() {
+            gate.countDown();
+        }
+
+        void fail() {
+            failed = true;
+            gate.countDown();
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (position >= content.length / 2) {
+                await(gate);
+            }
+            if (failed || aborted.getCount() == 0) {
+                throw new IOException("Connection reset");
+            }
+            if (position >= content.length) {
+                return -1;
+            }
+            int limit = position < content.length / 2 ? content.length / 2 : content.length;
+            int read = Math.min(length, limit - position);
+            System.arraycopy(content, position, buffer, offset, read);
+            position += read;
+            return read;
+        }
+
+        @Override
+        public void abort() {
+            aborted.countDown();
+            gate.countDown();
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package org.resume.s3filemanager.service.file;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.resume.s3filemanager.dto.FileDownloadResponse;
+import org.resume.s3filemanager.properties.CacheControlProperties;
+import org.resume.s3filemanager.service.compression.StorageCompressionService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class FileStreamingServiceTest {
+
+    private static final String ETAG = "\"abc\"";
+
+    @Mock
+    private FileContentService fileContentService;
+
+    @Mock
+    private StorageCompressionService storageCompressionService;
+
+    @Mock
+    private CacheControlProperties cacheControlProperties;
+
+    @InjectMocks
+    private FileStreamingService fileStreamingService;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(cacheControlProperties.maxAgeFor(any())).thenReturn(Duration.ZERO);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"bytes=500-", "bytes=1000-", "bytes=500-600", "bytes=0-10,600-700"})
+    void rangeStartingAtOrBeyondSizeIsNotSatisfiable(String range) {
+        ResponseEntity<StreamingResponseBody> response = stream(file(500), range);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */500");
+        verifyNoInteractions(fileContentService);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"bytes=0-", "bytes=0-0", "bytes=-10"})
+    void anyRangeOfEmptyFileIsNotSatisfiable(String range) {
+        ResponseEntity<StreamingResponseBody> response = stream(file(0), range);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */0");
+    }
+
+    @Test
+    void overlappingRangesLargerThanFileAreNotSatisfiable() {
+        ResponseEntity<StreamingResponseBody> response = stream(file(500), "bytes=0-399,100-499");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+    }
+
+    @Test
+    void malformedRangeIsNotSatisfiable() {
+        ResponseEntity<StreamingResponseBody> response = stream(file(500), "bytes=20-10");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+    }
+
+    @Test
+    void rangeEndIsClampedToLastByte() {
+        FileDownloadResponse file = file(500);
+        when(fileContentService.openRangeAsync(any(), anyLong(), anyLong())).thenReturn(opened(100));
+
+        ResponseEntity<StreamingResponseBody> response = stream(file, "bytes=400-1000");
+
+        verify(fileContentService).openRangeAsync(file, 400, 499);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 400-499/500");
+    }
+
+    @Test
+    void suffixRangeSelectsLastBytes() {
+        FileDownloadResponse file = file(500);
+        when(fileContentService.openRangeAsync(any(), anyLong(), anyLong())).thenReturn(opened(10));
+
+        ResponseEntity<StreamingResponseBody> response = stream(file, "bytes=-10");
+
+        verify(fileContentService).openRangeAsync(file, 490, 499);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 490-499/500");
+    }
+
+    @Test
+    void lastByteRangeIsSatisfiable() {
+        FileDownloadResponse file = file(500);
+        when(fileContentService.openRangeAsync(any(), anyLong(), anyLong())).thenReturn(opened(1));
+
+        ResponseEntity<StreamingResponseBody> response = stream(file, "bytes=499-");
+
+        verify(fileContentService).openRangeAsync(file, 499, 499);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+    }
+
+    @Test
+    void multipleRangesProduceByteranges() {
+        ResponseEntity<StreamingResponseBody> response = stream(file(500), "bytes=0-9,100-109");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_TYPE)).startsWith("multipart/byteranges");
+    }
+
+    @Test
+    void mismatchedIfRangeReturnsFullContent() {
+        FileDownloadResponse file = file(500);
+        when(fileContentService.openAsync(any())).thenReturn(opened(500));
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RANGE, "bytes=1000-");
+        headers.set(HttpHeaders.IF_RANGE, "\"other\"");
+
+        ResponseEntity<StreamingResponseBody> response = fileStreamingService.stream(file, headers).join();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void matchingIfNoneMatchIsNotModifiedWithoutOpeningContent() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch("W/" + ETAG);
+
+        assertThat(fileStreamingService.notModified(file(500), headers))
+                .hasValueSatisfying(response ->
+                        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED));
+        assertThat(fileStreamingService.stream(file(500), headers).join().getStatusCode())
+                .isEqualTo(HttpStatus.NOT_MODIFIED);
+        verifyNoInteractions(fileContentService);
+
+        headers.setIfNoneMatch("\"other\"");
+        assertThat(fileStreamingService.notModified(file(500), headers)).isEmpty();
+    }
+
+    private ResponseEntity<StreamingResponseBody> stream(FileDownloadResponse file, String range) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RANGE, range);
+        return fileStreamingService.stream(file, headers).join();
+    }
+
+    private static FileDownloadResponse file(long size) {
+        return FileDownloadResponse.builder()
+                .uniqueName("file.bin")
+                .fileName("file.bin")
+                .contentType("application/octet-stream")
+                .size(size)
+                .storedSize(size)
+                .eTag(ETAG)
+                .build();
+    }
+
+    private static CompletableFuture<StorageObject> opened(int length) {
+        return CompletableFuture.completedFuture(
+                new StorageObject(new ByteArrayInputStream(new byte[length]), length));
+    }
+}
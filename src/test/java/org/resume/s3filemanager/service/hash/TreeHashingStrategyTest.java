@@ -0,0 +1,55 @@
+package org.resume.s3filemanager.service.hash;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TreeHashingStrategyTest {
+
+    private static final int CHUNK_SIZE = 16;
+
+    private final TreeHashingStrategy strategy = new TreeHashingStrategy(CHUNK_SIZE, 2, Runnable::run);
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 15, 16, 17, 32, 33, 100})
+    void combinedPartsMatchWholeFileHash(int size) {
+        byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+
+        assertThat(strategy.combineParts(hashParts(content, 2 * CHUNK_SIZE))).isEqualTo(hashWhole(content));
+        assertThat(strategy.combineParts(hashParts(content, CHUNK_SIZE))).isEqualTo(hashWhole(content));
+    }
+
+    @Test
+    void partSizeMustBeMultipleOfChunkSize() {
+        assertThat(strategy.supportsParts(CHUNK_SIZE)).isTrue();
+        assertThat(strategy.supportsParts(3 * CHUNK_SIZE)).isTrue();
+        assertThat(strategy.supportsParts(CHUNK_SIZE + 1)).isFalse();
+        assertThat(strategy.supportsParts(0)).isFalse();
+    }
+
+    private String hashWhole(byte[] content) {
+        IncrementalHash hash = strategy.newHash();
+        hash.update(content, 0, content.length);
+        return hash.finish();
+    }
+
+    private List<String> hashParts(byte[] content, int partSize) {
+        List<String> parts = new ArrayList<>();
+        int offset = 0;
+        do {
+            int length = Math.min(partSize, content.length - offset);
+            IncrementalHash hash = strategy.newPartHash();
+            hash.update(content, offset, length);
+            parts.add(hash.finish());
+            offset += length;
+        } while (offset < content.length);
+        return parts;
+    }
+}
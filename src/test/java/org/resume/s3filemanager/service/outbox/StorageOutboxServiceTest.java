@@ -0,0 +1,89 @@
+package org.resume.s3filemanager.service.outbox;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.resume.s3filemanager.entity.StorageOutboxEntry;
+import org.resume.s3filemanager.enums.StorageAction;
+import org.resume.s3filemanager.repository.StorageOutboxRepository;
+import org.resume.s3filemanager.service.storage.StorageBackend;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest
+class StorageOutboxServiceTest {
+
+    @Autowired
+    private StorageOutboxService storageOutboxService;
+
+    @Autowired
+    private StorageOutboxRepository storageOutboxRepository;
+
+    @MockBean
+    private StorageBackend storageBackend;
+
+    private final List<String> keys = List.of(key(), key());
+
+    @AfterEach
+    void tearDown() {
+        storageOutboxRepository.deleteAllByIdIn(findEntries().stream().map(StorageOutboxEntry::getId).toList());
+    }
+
+    @Test
+    void compensationOutsideTransactionIsWrittenToOutbox() {
+        keepPendingEntries();
+
+        storageOutboxService.enqueueCompensation(keys.get(0));
+
+        assertThat(findEntries())
+                .singleElement()
+                .satisfies(entry -> {
+                    assertThat(entry.getAction()).isEqualTo(StorageAction.DELETE_OBJECT);
+                    assertThat(entry.getAttempts()).isZero();
+                });
+        verify(storageBackend, never()).delete(any());
+    }
+
+    @Test
+    void deletesAreWrittenWithOneInsert() {
+        keepPendingEntries();
+
+        storageOutboxService.enqueueDeletes(keys);
+
+        assertThat(findEntries()).extracting(StorageOutboxEntry::getObjectKey)
+                .containsExactlyInAnyOrderElementsOf(keys);
+    }
+
+    /**
+     * Фоновый обработчик может забрать записи во время теста; неудача удаления
+     * оставляет их в таблице.
+     */
+    private void keepPendingEntries() {
+        when(storageBackend.deleteAll(anyList())).thenAnswer(invocation -> {
+            List<String> requested = invocation.getArgument(0);
+            return requested.stream().collect(Collectors.toMap(Function.identity(), key -> "kept by test"));
+        });
+    }
+
+    private List<StorageOutboxEntry> findEntries() {
+        return storageOutboxRepository.findAll().stream()
+                .filter(entry -> keys.contains(entry.getObjectKey()))
+                .toList();
+    }
+
+    private static String key() {
+        return "outbox-test-" + UUID.randomUUID();
+    }
+}
@@ -0,0 +1,190 @@
+package org.resume.s3filemanager.service.storage;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.resume.s3filemanager.properties.StorageResilienceProperties;
+import org.resume.s3filemanager.service.storage.StorageCircuitBreaker.State;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StorageCircuitBreakerTest {
+
+    private static final Duration LONG_OPEN = Duration.ofMinutes(1);
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void opensWhenFailureRateReachesThreshold() {
+        StorageCircuitBreaker breaker = breaker(LONG_OPEN);
+
+        succeed(breaker, 2);
+        fail(breaker, 2);
+
+        assertThat(breaker.state()).isEqualTo(State.OPEN);
+        assertThat(transitions("closed", "open")).isEqualTo(1);
+    }
+
+    @Test
+    void opensWhenSlowCallRateReachesThreshold() {
+        StorageCircuitBreaker breaker = breaker(LONG_OPEN);
+
+        succeed(breaker, 2);
+        for (int i = 0; i < 2; i++) {
+            breaker.onSuccess(breaker.tryAcquire(), true);
+        }
+
+        assertThat(breaker.state()).isEqualTo(State.OPEN);
+    }
+
+    @Test
+    void staysClosedBelowMinimumCalls() {
+        StorageCircuitBreaker breaker = breaker(LONG_OPEN);
+
+        fail(breaker, 3);
+
+        assertThat(breaker.state()).isEqualTo(State.CLOSED);
+    }
+
+    @Test
+    void staysClosedBelowFailureRate() {
+        StorageCircuitBreaker breaker = breaker(LONG_OPEN);
+
+        succeed(breaker, 3);
+        fail(breaker, 1);
+        succeed(breaker, 4);
+
+        assertThat(breaker.state()).isEqualTo(State.CLOSED);
+    }
+
+    @Test
+    void rateIsComputedOverLastWindowSizeCalls() {
+        StorageCircuitBreaker breaker = breaker(LONG_OPEN);
+
+        succeed(breaker, 10);
+        fail(breaker, 4);
+        assertThat(breaker.state()).isEqualTo(State.CLOSED);
+
+        fail(breaker, 1);
+        assertThat(breaker.state()).isEqualTo(State.OPEN);
+    }
+
+    @Test
+    void rejectsWhileOpen() {
+        StorageCircuitBreaker breaker = breaker(LONG_OPEN);
+        fail(breaker, 4);
+
+        assertThat(breaker.tryAcquire()).isEqualTo(StorageCircuitBreaker.REJECTED);
+        assertThat(breaker.retryAfter()).isGreaterThan(Duration.ofSeconds(50));
+        assertThat(meterRegistry.counter("storage.circuit-breaker.rejected").count()).isEqualTo(1);
+    }
+
+    @Test
+    void halfOpensAfterOpenDurationAndClosesOnSuccessfulTrials() {
+        StorageCircuitBreaker breaker = breaker(Duration.ZERO);
+        fail(breaker, 4);
+
+        succeed(breaker, 2);
+
+        assertThat(breaker.state()).isEqualTo(State.CLOSED);
+        assertThat(transitions("open", "half_open")).isEqualTo(1);
+        assertThat(transitions("half_open", "closed")).isEqualTo(1);
+    }
+
+    @Test
+    void reopensOnFailedTrials() {
+        StorageCircuitBreaker breaker = breaker(Duration.ZERO);
+        fail(breaker, 4);
+
+        long first = breaker.tryAcquire();
+        long second = breaker.tryAcquire();
+        breaker.onFailure(first, false);
+        breaker.onFailure(second, false);
+
+        assertThat(breaker.state()).isEqualTo(State.OPEN);
+        assertThat(transitions("half_open", "open")).isEqualTo(1);
+    }
+
+    @Test
+    void limitsTrialCallsWhileHalfOpen() {
+        StorageCircuitBreaker breaker = breaker(Duration.ZERO);
+        fail(breaker, 4);
+
+        long first = breaker.tryAcquire();
+        long second = breaker.tryAcquire();
+
+        assertThat(breaker.state()).isEqualTo(State.HALF_OPEN);
+        assertThat(first).isNotEqualTo(StorageCircuitBreaker.REJECTED);
+        assertThat(second).isNotEqualTo(StorageCircuitBreaker.REJECTED);
+        assertThat(breaker.tryAcquire()).isEqualTo(StorageCircuitBreaker.REJECTED);
+    }
+
+    @Test
+    void ignoredTrialReturnsItsPermit() {
+        StorageCircuitBreaker breaker = breaker(Duration.ZERO);
+        fail(breaker, 4);
+
+        long first = breaker.tryAcquire();
+        breaker.tryAcquire();
+        breaker.onIgnored(first);
+
+        assertThat(breaker.tryAcquire()).isNotEqualTo(StorageCircuitBreaker.REJECTED);
+    }
+
+    @Test
+    void ignoresOutcomesFromPreviousGeneration() {
+        StorageCircuitBreaker breaker = breaker(Duration.ZERO);
+        long stale = breaker.tryAcquire();
+        fail(breaker, 4);
+
+        long trial = breaker.tryAcquire();
+        breaker.onFailure(stale, false);
+        breaker.onFailure(stale, false);
+
+        assertThat(breaker.state()).isEqualTo(State.HALF_OPEN);
+        breaker.onSuccess(trial, false);
+        breaker.onSuccess(breaker.tryAcquire(), false);
+        assertThat(breaker.state()).isEqualTo(State.CLOSED);
+    }
+
+    @Test
+    void disabledBreakerAlwaysPermits() {
+        StorageCircuitBreaker breaker = new StorageCircuitBreaker(settings(false, LONG_OPEN), meterRegistry);
+
+        fail(breaker, 10);
+
+        assertThat(breaker.state()).isEqualTo(State.CLOSED);
+        assertThat(breaker.tryAcquire()).isNotEqualTo(StorageCircuitBreaker.REJECTED);
+    }
+
+    private StorageCircuitBreaker breaker(Duration openDuration) {
+        return new StorageCircuitBreaker(settings(true, openDuration), meterRegistry);
+    }
+
+    /**
+     * Окно из 10 вызовов, решение принимается с 4 вызовов при доле ошибок или медленных 50%,
+     * 2 пробных вызова в полуоткрытом состоянии.
+     */
+    private static StorageResilienceProperties.CircuitBreaker settings(boolean enabled, Duration openDuration) {
+        return new StorageResilienceProperties.CircuitBreaker(
+                enabled, 0.5, 0.5, Duration.ofSeconds(1), 10, 4, openDuration, 2);
+    }
+
+    private static void succeed(StorageCircuitBreaker breaker, int calls) {
+        for (int i = 0; i < calls; i++) {
+            breaker.onSuccess(breaker.tryAcquire(), false);
+        }
+    }
+
+    private static void fail(StorageCircuitBreaker breaker, int calls) {
+        for (int i = 0; i < calls; i++) {
+            breaker.onFailure(breaker.tryAcquire(), false);
+        }
+    }
+
+    private double transitions(String from, String to) {
+        return meterRegistry.counter("storage.circuit-breaker.transitions", "from", from, "to", to).count();
+    }
+}
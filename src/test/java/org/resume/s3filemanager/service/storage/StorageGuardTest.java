@@ -0,0 +1,91 @@
+package org.resume.s3filemanager.service.storage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.resume.s3filemanager.enums.StorageOperation;
+import org.resume.s3filemanager.exception.StorageUnavailableException;
+import org.resume.s3filemanager.properties.StorageResilienceProperties;
+import org.resume.s3filemanager.service.storage.StorageGuard.Outcome;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketException;
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StorageGuardTest {
+
+    private final StorageGuard guard = new StorageGuard(properties(), new SimpleMeterRegistry());
+
+    @Test
+    void clientStreamFailuresDoNotOpenCircuit() {
+        IOException clientError = readClientStream();
+
+        for (int i = 0; i < 10; i++) {
+            assertThatThrownBy(() -> guard.run(StorageOperation.UPLOAD, () -> {
+                throw SdkClientException.create("Unable to execute HTTP request", clientError);
+            })).isInstanceOf(SdkClientException.class);
+        }
+
+        assertThat(guard.call(StorageOperation.DOWNLOAD, () -> "ok")).isEqualTo("ok");
+    }
+
+    @Test
+    void storageConnectionFailuresOpenCircuit() {
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> guard.run(StorageOperation.UPLOAD, () -> {
+                throw SdkClientException.create("Unable to execute HTTP request", new SocketException("reset"));
+            })).isInstanceOf(SdkClientException.class);
+        }
+
+        assertThatThrownBy(() -> guard.call(StorageOperation.DOWNLOAD, () -> "ok"))
+                .isInstanceOf(StorageUnavailableException.class);
+    }
+
+    @Test
+    void classifiesStorageResponses() {
+        assertThat(StorageGuard.classify(null)).isEqualTo(Outcome.SUCCESS);
+        assertThat(StorageGuard.classify(s3Error(404))).isEqualTo(Outcome.SUCCESS);
+        assertThat(StorageGuard.classify(s3Error(429))).isEqualTo(Outcome.FAILURE);
+        assertThat(StorageGuard.classify(s3Error(503))).isEqualTo(Outcome.FAILURE);
+        assertThat(StorageGuard.classify(new CancellationException())).isEqualTo(Outcome.IGNORED);
+        assertThat(StorageGuard.classify(new IllegalArgumentException())).isEqualTo(Outcome.IGNORED);
+        assertThat(StorageGuard.classify(SdkClientException.create("upload", readClientStream())))
+                .isEqualTo(Outcome.IGNORED);
+    }
+
+    private static IOException readClientStream() {
+        InputStream broken = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("Connection reset by peer");
+            }
+        };
+        try {
+            new ClientInputStream(broken).read(new byte[16]);
+        } catch (IOException e) {
+            return e;
+        }
+        throw new AssertionError("Client stream did not fail");
+    }
+
+    private static S3Exception s3Error(int status) {
+        return (S3Exception) S3Exception.builder().statusCode(status).message("status " + status).build();
+    }
+
+    /**
+     * Цепь размыкается при половине ошибок среди не менее 4 запросов.
+     */
+    private static StorageResilienceProperties properties() {
+        return new StorageResilienceProperties(
+                new StorageResilienceProperties.CircuitBreaker(
+                        true, 0.5, 1.0, Duration.ofMinutes(1), 10, 4, Duration.ofMinutes(1), 2),
+                new StorageResilienceProperties.Bulkhead(4, 4, Duration.ZERO)
+        );
+    }
+}
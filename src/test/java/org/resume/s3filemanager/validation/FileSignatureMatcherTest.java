@@ -0,0 +1,181 @@
+package org.resume.s3filemanager.validation;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileSignatureMatcherTest {
+
+    private final FileSignatureMatcher matcher = new FileSignatureMatcher();
+
+    @Test
+    void matchesImageHeaders() {
+        assertThat(matcher.match(bytes(0xFF, 0xD8, 0xFF, 0xE0, 0x00, 0x10, 'J', 'F', 'I', 'F', 0x00)))
+                .isEqualTo(AllowedFileType.JPEG);
+        assertThat(matcher.match(bytes(0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A, 0x00, 0x00, 0x00, 0x0D,
+                'I', 'H', 'D', 'R'))).isEqualTo(AllowedFileType.PNG);
+        assertThat(matcher.match(ascii("GIF89a\u0001\u0000\u0001\u0000"))).isEqualTo(AllowedFileType.GIF);
+        assertThat(matcher.match(ascii("GIF87a\u0001\u0000\u0001\u0000"))).isEqualTo(AllowedFileType.GIF);
+        assertThat(matcher.match(riff("WEBP", "VP8 "))).isEqualTo(AllowedFileType.WEBP);
+        assertThat(matcher.match(bytes(0x00, 0x00, 0x01, 0x00, 0x01, 0x00, 0x10, 0x10))).isEqualTo(AllowedFileType.ICO);
+    }
+
+    @Test
+    void matchesBmpWithInfoHeader() {
+        assertThat(matcher.match(bmp(40, 1, 24))).isEqualTo(AllowedFileType.BMP);
+        assertThat(matcher.match(bmp(124, 1, 32))).isEqualTo(AllowedFileType.BMP);
+    }
+
+    @Test
+    void matchesBmpWithCoreHeader() {
+        ByteBuffer header = ByteBuffer.allocate(26).order(ByteOrder.LITTLE_ENDIAN);
+        header.put((byte) 'B').put((byte) 'M').putInt(26).putInt(0).putInt(26)
+                .putInt(12).putShort((short) 1).putShort((short) 1).putShort((short) 1).putShort((short) 8);
+
+        assertThat(matcher.match(header.array())).isEqualTo(AllowedFileType.BMP);
+    }
+
+    @Test
+    void rejectsTextStartingWithBm() {
+        assertThat(matcher.match(ascii("BMI,weight,height\n22.5,70,176\n23.1,75,180\n"))).isNull();
+        assertThat(matcher.match(ascii("BM"))).isNull();
+    }
+
+    @Test
+    void rejectsBmpWithInvalidPlanesOrBitCount() {
+        assertThat(matcher.match(bmp(40, 2, 24))).isNull();
+        assertThat(matcher.match(bmp(40, 1, 7))).isNull();
+        assertThat(matcher.match(bmp(41, 1, 24))).isNull();
+    }
+
+    @Test
+    void matchesDocumentHeaders() {
+        assertThat(matcher.match(ascii("%PDF-1.7\n%âã"))).isEqualTo(AllowedFileType.PDF);
+        assertThat(matcher.match(ascii("{\\rtf1\\ansi\\deff0"))).isEqualTo(AllowedFileType.RTF);
+    }
+
+    @Test
+    void matchesMediaHeaders() {
+        assertThat(matcher.match(ftyp("isom"))).isEqualTo(AllowedFileType.MP4);
+        assertThat(matcher.match(ftyp("mp42"))).isEqualTo(AllowedFileType.MP4);
+        assertThat(matcher.match(ftyp("heic"))).isNull();
+        assertThat(matcher.match(ftyp("M4A "))).isNull();
+
+        assertThat(matcher.match(ebml("webm"))).isEqualTo(AllowedFileType.WEBM);
+        assertThat(matcher.match(ebml("matroska"))).isNull();
+
+        assertThat(matcher.match(ascii("ID3\u0004\u0000\u0000\u0000\u0000\u0000\u0000"))).isEqualTo(AllowedFileType.MP3);
+        assertThat(matcher.match(bytes(0xFF, 0xFB, 0x90, 0x64))).isEqualTo(AllowedFileType.MP3);
+        assertThat(matcher.match(riff("WAVE", "fmt "))).isEqualTo(AllowedFileType.WAV);
+        assertThat(matcher.match(ascii("OggS\u0000\u0002"))).isEqualTo(AllowedFileType.OGG);
+    }
+
+    @Test
+    void matchesArchiveHeaders() {
+        assertThat(matcher.match(zip(entry("readme.txt", "hello")))).isEqualTo(AllowedFileType.ZIP);
+        assertThat(matcher.match(bytes('P', 'K', 5, 6, 0, 0, 0, 0))).isEqualTo(AllowedFileType.ZIP);
+        assertThat(matcher.match(bytes('R', 'a', 'r', '!', 0x1A, 0x07, 0x01, 0x00))).isEqualTo(AllowedFileType.RAR);
+        assertThat(matcher.match(bytes('7', 'z', 0xBC, 0xAF, 0x27, 0x1C, 0x00, 0x04)))
+                .isEqualTo(AllowedFileType.SEVEN_ZIP);
+    }
+
+    @Test
+    void refinesZipContainers() {
+        assertThat(matcher.match(zip(entry("[Content_Types].xml", "<Types/>"), entry("word/document.xml", "<w/>"))))
+                .isEqualTo(AllowedFileType.DOCX);
+        assertThat(matcher.match(zip(entry("[Content_Types].xml", "<Types/>"), entry("xl/workbook.xml", "<x/>"))))
+                .isEqualTo(AllowedFileType.XLSX);
+        assertThat(matcher.match(zip(entry("[Content_Types].xml", "<Types/>"), entry("ppt/presentation.xml", "<p/>"))))
+                .isEqualTo(AllowedFileType.PPTX);
+        assertThat(matcher.match(zip(entry("mimetype", AllowedFileType.ODT.getContentType()))))
+                .isEqualTo(AllowedFileType.ODT);
+        assertThat(matcher.match(zip(entry("mimetype", "application/vnd.oasis.opendocument.spreadsheet"))))
+                .isNull();
+    }
+
+    @Test
+    void ambiguousOoxmlPrefixIsLeftToFullDetector() {
+        assertThat(matcher.match(zip(entry("[Content_Types].xml", "<Types/>")))).isNull();
+    }
+
+    @Test
+    void textFormatsAreNotMatched() {
+        assertThat(matcher.match(ascii("{\"name\": \"value\"}"))).isNull();
+        assertThat(matcher.match(ascii("<?xml version=\"1.0\"?><root/>"))).isNull();
+        assertThat(matcher.match(ascii("id,name\n1,test\n"))).isNull();
+        assertThat(matcher.match(new byte[0])).isNull();
+    }
+
+    private static byte[] bmp(int headerSize, int planes, int bitCount) {
+        ByteBuffer header = ByteBuffer.allocate(14 + headerSize).order(ByteOrder.LITTLE_ENDIAN);
+        header.put((byte) 'B').put((byte) 'M').putInt(14 + headerSize).putInt(0).putInt(14 + headerSize)
+                .putInt(headerSize).putInt(1).putInt(1).putShort((short) planes).putShort((short) bitCount);
+        return header.array();
+    }
+
+    private static byte[] ftyp(String brand) {
+        ByteBuffer box = ByteBuffer.allocate(24);
+        box.putInt(24).put(ascii("ftyp")).put(ascii(brand)).putInt(0).put(ascii(brand)).put(ascii("mp41"));
+        return box.array();
+    }
+
+    private static byte[] ebml(String docType) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(bytes(0x1A, 0x45, 0xDF, 0xA3, 0x9F, 0x42, 0x86, 0x81, 0x01, 0x42, 0x82, 0x80 | docType.length()));
+        out.writeBytes(ascii(docType));
+        return out.toByteArray();
+    }
+
+    private static byte[] riff(String format, String chunk) {
+        ByteBuffer header = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+        header.put(ascii("RIFF")).putInt(1024).put(ascii(format)).put(ascii(chunk));
+        return header.array();
+    }
+
+    private static byte[] zip(byte[]... entries) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] entry : entries) {
+            out.writeBytes(entry);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Локальный заголовок ZIP записи без сжатия (method 0) с данными.
+     */
+    private static byte[] entry(String name, String content) {
+        byte[] nameBytes = ascii(name);
+        byte[] data = ascii(content);
+        ByteBuffer header = ByteBuffer.allocate(30 + nameBytes.length + data.length).order(ByteOrder.LITTLE_ENDIAN);
+        header.put(bytes('P', 'K', 3, 4))
+                .putShort((short) 20)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putInt(0)
+                .putInt(0)
+                .putInt(data.length)
+                .putInt(data.length)
+                .putShort((short) nameBytes.length)
+                .putShort((short) 0)
+                .put(nameBytes)
+                .put(data);
+        return header.array();
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private static byte[] bytes(int... values) {
+        byte[] result = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = (byte) values[i];
+        }
+        return result;
+    }
+}